@@ -0,0 +1,89 @@
+package gitlet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of adding many files and directories in one command.
+ * @author Ria Vora*/
+public class AddTest {
+
+    /** Makes a repository with a.txt committed, and files in nested
+     * folders, two of them with the same contents, not yet added.*/
+    @Before
+    public void setUp() {
+        _repo = new TestRepo();
+        _repo.run("init");
+        _repo.write("a.txt", "a");
+        _repo.run("add", "a.txt");
+        _repo.run("commit", "one");
+        _repo.write("d/b.txt", "same");
+        _repo.write("d/e/c.txt", "same");
+        _repo.write("d/e/f.txt", "f");
+    }
+
+    /** Deletes the repository.*/
+    @After
+    public void tearDown() {
+        _repo.delete();
+    }
+
+    /** Adding the repository folder stages every changed file below it,
+     * but nothing in .gitlet, and stores equal contents once. */
+    @Test
+    public void addsFolders() {
+        _repo.write("a.txt", "changed");
+        assertEquals("", _repo.run("add", "."));
+        assertEquals("a.txt\nd/b.txt\nd/e/c.txt\nd/e/f.txt\n", staged());
+        assertEquals(3, _repo.file(".gitlet/stage").list().length);
+    }
+
+    /** Adding a folder leaves unchanged files unstaged. */
+    @Test
+    public void skipsUnchangedFiles() {
+        _repo.run("add", "a.txt", "d/e");
+        assertEquals("d/e/c.txt\nd/e/f.txt\n", staged());
+    }
+
+    /** Every path is checked before anything is staged. */
+    @Test
+    public void checksPathsFirst() {
+        assertEquals("File does not exist.\n",
+                _repo.run("add", "d/b.txt", "missing.txt"));
+        assertEquals("", staged());
+    }
+
+    /** Adding a staged file again stages its new contents, and adding
+     * it back as it was committed unstages it. */
+    @Test
+    public void restagesFiles() {
+        _repo.write("a.txt", "first");
+        _repo.run("add", "a.txt");
+        _repo.write("a.txt", "second");
+        _repo.run("add", ".");
+        _repo.run("commit", "two");
+        _repo.write("a.txt", "third");
+        _repo.run("checkout", _repo.head(), "--", "a.txt");
+        assertEquals("second", _repo.read("a.txt"));
+        _repo.write("a.txt", "fourth");
+        _repo.run("add", "a.txt");
+        _repo.write("a.txt", "second");
+        _repo.run("add", "a.txt");
+        assertEquals("", staged());
+    }
+
+    /** Returns the files listed as staged by status.
+     * @return String is the staged files, one per line*/
+    private String staged() {
+        String status = _repo.run("status");
+        int start = status.indexOf("=== Staged Files ===\n")
+                + "=== Staged Files ===\n".length();
+        return status.substring(start,
+                status.indexOf("\n=== Removed Files ===", start));
+    }
+
+    /** The repository. */
+    private TestRepo _repo;
+
+}
@@ -0,0 +1,377 @@
+package gitlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/** Benchmark times the hot paths of gitlet and prints the best time per
+ * operation over ROUNDS rounds of each. Benchmarks that need a
+ * repository build one in a scratch folder, in a child JVM started
+ * there, since gitlet always works in the folder it is started in.
+ * Run all of them with 'make bench', or some with java gitlet.Benchmark
+ * NAME....
+ * @author Ria Vora*/
+public class Benchmark {
+
+    /** The number of timed rounds of each benchmark, after one round
+     * that warms up the JIT. */
+    static final int ROUNDS = 5;
+
+    /** The argument running a benchmark in the current folder, in a
+     * child JVM. */
+    static final String IN_SCRATCH = "--in-scratch";
+
+    /** Runs the benchmarks named by ARGS, or all of them.
+     * @param args is the names of the benchmarks*/
+    public static void main(String... args) throws IOException {
+        if (args.length == 2 && args[0].equals(IN_SCRATCH)) {
+            REPO_BENCHMARKS.get(args[1]).run();
+            return;
+        }
+        List<String> names = new ArrayList<String>(Arrays.asList(args));
+        if (names.isEmpty()) {
+            names.addAll(BENCHMARKS.keySet());
+            names.addAll(REPO_BENCHMARKS.keySet());
+        }
+        for (String name: names) {
+            if (BENCHMARKS.containsKey(name)) {
+                BENCHMARKS.get(name).run();
+            } else if (REPO_BENCHMARKS.containsKey(name)) {
+                inScratch(name);
+            } else {
+                System.out.println("No benchmark named " + name + ".");
+                System.exit(1);
+            }
+        }
+    }
+
+    /** Runs the given benchmark needing a repository in a child JVM in
+     * a new scratch folder, deleting the folder afterwards.
+     * @param name is the name of the benchmark*/
+    private static void inScratch(String name) throws IOException {
+        File scratch = Files.createTempDirectory("gitlet-bench").toFile();
+        try {
+            int status = new ProcessBuilder(TestRepo.JAVA, "-cp",
+                    System.getProperty("java.class.path"), "gitlet.Benchmark",
+                    IN_SCRATCH, name).directory(scratch).inheritIO().start()
+                    .waitFor();
+            if (status != 0) {
+                System.exit(status);
+            }
+        } catch (InterruptedException excp) {
+            throw new GitletException(excp.getMessage());
+        } finally {
+            try (Stream<Path> paths = Files.walk(scratch.toPath())) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile)
+                        .forEach(File::delete);
+            }
+        }
+    }
+
+    /** Times OP, which makes OPS operations, and prints its best time
+     * per operation.
+     * @param name is the name printed
+     * @param ops is the number of operations in one run of OP
+     * @param op is the operations*/
+    static void time(String name, int ops, Runnable op) {
+        op.run();
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round += 1) {
+            long start = System.nanoTime();
+            op.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-44s %12.3f us/op%n", name, best / 1e3 / ops);
+    }
+
+    /** Compares encoding and decoding commits with CommitCodec against
+     * the Java serialization it replaced.*/
+    private static void codec() {
+        Random random = new Random(0);
+        Commit[] commits = new Commit[COMMITS];
+        for (int i = 0; i < COMMITS; i += 1) {
+            commits[i] = new Commit(randomID(random), randomID(random)
+                    + (i % 10 == 0 ? " " + randomID(random) : ""),
+                    "commit number " + i, "Thu Jan 01 00:00:00 1970 +0000",
+                    new HashMap<String, String>());
+            commits[i].setTree(randomID(random));
+        }
+        byte[][] encoded = new byte[COMMITS][];
+        byte[][] serialized = new byte[COMMITS][];
+        time("codec: encode", COMMITS, () -> {
+            for (int i = 0; i < COMMITS; i += 1) {
+                encoded[i] = CommitCodec.encode(commits[i]);
+            }
+        });
+        time("codec: decode", COMMITS, () -> {
+            for (byte[] contents: encoded) {
+                _sink += CommitCodec.decode(contents).getMessage().length();
+            }
+        });
+        time("codec: java serialization, write", COMMITS, () -> {
+            for (int i = 0; i < COMMITS; i += 1) {
+                serialized[i] = Utils.serialize(commits[i]);
+            }
+        });
+        time("codec: java serialization, read", COMMITS, () -> {
+            for (byte[] contents: serialized) {
+                try (ObjectInputStream in = new ObjectInputStream(
+                        new ByteArrayInputStream(contents))) {
+                    _sink += ((Commit) in.readObject()).getMessage()
+                            .length();
+                } catch (IOException | ClassNotFoundException excp) {
+                    throw new GitletException(excp.getMessage());
+                }
+            }
+        });
+        System.out.printf("%-44s %8d vs %d bytes%n", "codec: size",
+                encoded[1].length, serialized[1].length);
+    }
+
+    /** Compares computing the ID of a commit of STAGED files once, as
+     * it is saved, against recomputing it from the String of all its
+     * IDs after each file is staged, as older versions of gitlet did,
+     * for OLD_STAGED files since that is quadratic.*/
+    private static void commitID() {
+        Random random = new Random(0);
+        String[] ids = new String[STAGED];
+        for (int i = 0; i < STAGED; i += 1) {
+            ids[i] = randomID(random);
+        }
+        time("commit-id: stage " + STAGED + " files, one ID", STAGED,
+            () -> {
+                Commit c = new Commit();
+                for (int i = 0; i < STAGED; i += 1) {
+                    c.getFileToID().put("/repo/f" + i, ids[i]);
+                }
+                c.setMessage("bench");
+                c.createTimestamp();
+                _sink += c.getID().length();
+            });
+        time("commit-id: stage " + OLD_STAGED + " files, ID per file",
+            OLD_STAGED, () -> {
+                HashMap<String, String> staged =
+                    new HashMap<String, String>();
+                for (int i = 0; i < OLD_STAGED; i += 1) {
+                    staged.put("/repo/f" + i, ids[i]);
+                    List<String> list =
+                        new ArrayList<String>(staged.values());
+                    Collections.sort(list);
+                    list.add("Thu Jan 01 00:00:00 1970 +0000");
+                    list.add("bench");
+                    _sink += Utils.sha1(list.toString()).length();
+                }
+            });
+    }
+
+    /** Compares storing and reading BLOBS source-like blobs of
+     * BLOB_SIZE bytes compressed against storing and reading them
+     * as they are, and prints the bytes each layout takes.*/
+    private static void compression() {
+        Random random = new Random(0);
+        byte[][] blobs = new byte[BLOBS][];
+        for (int i = 0; i < BLOBS; i += 1) {
+            blobs[i] = sourceText(random);
+        }
+        try {
+            File scratch = Files.createTempDirectory("gitlet-bench")
+                    .toFile();
+            File[] raw = new File[BLOBS];
+            File[] compressed = new File[BLOBS];
+            long[] sizes = new long[2];
+            for (int i = 0; i < BLOBS; i += 1) {
+                raw[i] = new File(scratch, i + ".raw");
+                compressed[i] = new File(scratch, i + ".glz");
+            }
+            time("compression: write raw", BLOBS, () -> {
+                for (int i = 0; i < BLOBS; i += 1) {
+                    Utils.writeContents(raw[i], blobs[i]);
+                }
+            });
+            time("compression: write compressed", BLOBS, () -> {
+                for (int i = 0; i < BLOBS; i += 1) {
+                    Utils.writeContents(compressed[i],
+                            Compression.deflate(blobs[i]));
+                }
+            });
+            time("compression: read raw", BLOBS, () -> {
+                for (File file: raw) {
+                    _sink += Utils.readContents(file).length;
+                }
+            });
+            time("compression: read compressed", BLOBS, () -> {
+                for (File file: compressed) {
+                    _sink += Compression.inflate(file).length;
+                }
+            });
+            time("compression: read first 1 KiB compressed", BLOBS,
+                () -> {
+                    for (File file: compressed) {
+                        try (InputStream in = Compression.open(file)) {
+                            _sink += in.readNBytes(1 << 10).length;
+                        } catch (IOException excp) {
+                            throw new GitletException(excp.getMessage());
+                        }
+                    }
+                });
+            for (int i = 0; i < BLOBS; i += 1) {
+                sizes[0] += raw[i].length();
+                sizes[1] += compressed[i].length();
+            }
+            System.out.printf("%-44s %8d vs %d bytes%n",
+                    "compression: size, compressed vs raw", sizes[1],
+                    sizes[0]);
+            for (File file: scratch.listFiles()) {
+                file.delete();
+            }
+            scratch.delete();
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Returns BLOB_SIZE bytes of text that reads like source code,
+     * with random identifiers and numbers.
+     * @param random is the source of randomness
+     * @return byte[] is the text*/
+    private static byte[] sourceText(Random random) {
+        String[] words = {"int", "return", "if", "for", "value", "result",
+                          "count", "index", "String", "final", "static"};
+        StringBuilder text = new StringBuilder();
+        while (text.length() < BLOB_SIZE) {
+            text.append("        ");
+            for (int i = random.nextInt(6) + 2; i > 0; i -= 1) {
+                text.append(words[random.nextInt(words.length)])
+                        .append(random.nextInt(4) == 0
+                                ? random.nextInt(1000) : "").append(' ');
+            }
+            text.append(";\n");
+        }
+        return Arrays.copyOf(text.toString().getBytes(
+                StandardCharsets.UTF_8), BLOB_SIZE);
+    }
+
+    /** Times finding the split point of two branches over the commit
+     * graph, in a repository whose two branches each have HISTORY
+     * commits: once where they last met at the initial commit, so that
+     * all of history is walked, and once where the second branch was
+     * merged into the first every MERGE_EVERY commits.*/
+    private static void mergeBase() {
+        run("init");
+        Random random = new Random(0);
+        String root = Main.getHeadCommit().getID();
+        String[] diverged = {root, root};
+        String[] merged = {root, root};
+        for (int i = 1; i <= HISTORY; i += 1) {
+            for (int side = 0; side < 2; side += 1) {
+                diverged[side] = saveCommit(random, diverged[side]);
+                merged[side] = saveCommit(random, merged[side]);
+            }
+            if (i % MERGE_EVERY == 0) {
+                merged[0] = saveCommit(random, merged[0] + " " + merged[1]);
+            }
+            if (i % JOURNAL_EVERY == 0) {
+                Journal.commit();
+            }
+        }
+        Journal.commit();
+        time("merge-base: diverged " + HISTORY + " commits ago", 1,
+            () -> _sink += MergeBase.findAll(diverged[0], diverged[1])
+                    .size());
+        time("merge-base: merged every " + MERGE_EVERY + " commits", 1,
+            () -> _sink += MergeBase.findAll(merged[0], merged[1]).size());
+    }
+
+    /** Saves a new commit with the given parents, and no files.
+     * @param random is the source of its ID
+     * @param parent is the ID, or IDs, of its parents
+     * @return String is its ID*/
+    private static String saveCommit(Random random, String parent) {
+        Commit c = new Commit(randomID(random), parent, "bench",
+                "Thu Jan 01 00:00:00 1970 +0000",
+                new HashMap<String, String>());
+        ObjectStore.writeCommit(c);
+        return c.getID();
+    }
+
+    /** Runs the given gitlet command in this JVM.
+     * @param args is the command and its operands*/
+    private static void run(String... args) {
+        try {
+            Main.run(args);
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Returns a random hexadecimal SHA-1 ID.
+     * @param random is the source of randomness
+     * @return String is the ID*/
+    static String randomID(Random random) {
+        byte[] id = new byte[Utils.UID_LENGTH / 2];
+        random.nextBytes(id);
+        return ObjectStore.toHex(id);
+    }
+
+    /** The number of commits in the codec benchmark. */
+    static final int COMMITS = 20000;
+
+    /** The number of files staged in the commit-id benchmark. */
+    static final int STAGED = 100000;
+
+    /** The number of files staged in the commit-id benchmark when the
+     * ID is recomputed after each. */
+    static final int OLD_STAGED = 2000;
+
+    /** The number of blobs in the compression benchmark. */
+    static final int BLOBS = 1000;
+
+    /** The size in bytes of the blobs in the compression benchmark. */
+    static final int BLOB_SIZE = 16 << 10;
+
+    /** The number of commits on each branch in the merge-base
+     * benchmark. */
+    static final int HISTORY = 5000;
+
+    /** The number of commits between merges in the merge-base
+     * benchmark. */
+    static final int MERGE_EVERY = 100;
+
+    /** The number of commits saved in one journal transaction while
+     * building a repository. */
+    static final int JOURNAL_EVERY = 1000;
+
+    /** The benchmarks by name, in the order they are run. */
+    private static final LinkedHashMap<String, Runnable> BENCHMARKS =
+        new LinkedHashMap<String, Runnable>();
+
+    /** The benchmarks needing a repository by name, in the order they
+     * are run. */
+    private static final LinkedHashMap<String, Runnable> REPO_BENCHMARKS =
+        new LinkedHashMap<String, Runnable>();
+
+    static {
+        BENCHMARKS.put("codec", Benchmark::codec);
+        BENCHMARKS.put("commit-id", Benchmark::commitID);
+        BENCHMARKS.put("compression", Benchmark::compression);
+        REPO_BENCHMARKS.put("merge-base", Benchmark::mergeBase);
+    }
+
+    /** Accumulates results so that the JIT cannot drop the work. */
+    private static long _sink;
+
+}
@@ -0,0 +1,82 @@
+package gitlet;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of the streaming hashing and copying of blobs.
+ * @author Ria Vora*/
+public class BlobHashTest {
+
+    /** Makes an empty scratch folder.*/
+    @Before
+    public void setUp() {
+        _repo = new TestRepo();
+    }
+
+    /** Deletes the scratch folder.*/
+    @After
+    public void tearDown() {
+        _repo.delete();
+    }
+
+    /** Files read in chunks and files memory-mapped hash to the SHA-1
+     * of their bytes, on both sides of each chunk size. */
+    @Test
+    public void hashesBytes() {
+        long[] sizes = {0, 1, ObjectStore.READ_CHUNK,
+                        ObjectStore.READ_CHUNK + 1,
+                        ObjectStore.MAP_THRESHOLD - 1,
+                        ObjectStore.MAP_THRESHOLD,
+                        3 * ObjectStore.MAP_THRESHOLD + 7};
+        for (long size: sizes) {
+            byte[] contents = randomBytes((int) size);
+            _repo.write("f", contents);
+            assertEquals("size " + size, Utils.sha1(contents),
+                    ObjectStore.hash(_repo.file("f")));
+        }
+    }
+
+    /** Copying keeps every byte, and replaces a longer file whole. */
+    @Test
+    public void copiesBytes() {
+        byte[] contents = randomBytes(ObjectStore.READ_CHUNK * 3 + 5);
+        _repo.write("source", contents);
+        _repo.write("dest", randomBytes(contents.length * 2));
+        ObjectStore.copy(_repo.file("source"), _repo.file("dest"));
+        assertArrayEquals(contents, Utils.readContents(_repo.file("dest")));
+    }
+
+    /** A binary file, which is not valid UTF-8, is committed and checked
+     * out again byte for byte. */
+    @Test
+    public void binaryRoundTrip() {
+        byte[] contents = new byte[512];
+        for (int i = 0; i < contents.length; i += 1) {
+            contents[i] = (byte) (255 - i);
+        }
+        _repo.run("init");
+        _repo.write("b.bin", contents);
+        _repo.run("add", "b.bin");
+        _repo.run("commit", "binary");
+        _repo.write("b.bin", "replaced");
+        _repo.run("checkout", "--", "b.bin");
+        assertArrayEquals(contents, Utils.readContents(_repo.file("b.bin")));
+    }
+
+    /** Returns the given number of random bytes.
+     * @param size is the number of bytes
+     * @return byte[] is the bytes*/
+    private static byte[] randomBytes(int size) {
+        byte[] result = new byte[size];
+        new Random(size).nextBytes(result);
+        return result;
+    }
+
+    /** The scratch folder. */
+    private TestRepo _repo;
+
+}
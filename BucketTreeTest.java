@@ -0,0 +1,124 @@
+package gitlet;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of directories too large for one tree node, which are split
+ * into hash buckets.
+ * @author Ria Vora*/
+public class BucketTreeTest {
+
+    /** Makes a repository with FILES files committed in its top folder,
+     * well over the NODE_LIMIT of one node.*/
+    @Before
+    public void setUp() {
+        _repo = new TestRepo();
+        _repo.run("init");
+        for (int i = 0; i < FILES; i += 1) {
+            _repo.write(name(i), "file " + i + "\n");
+        }
+        _repo.run(command("add", 0, FILES));
+        _repo.run("commit", "many");
+        _first = _repo.head();
+    }
+
+    /** Deletes the repository.*/
+    @After
+    public void tearDown() {
+        _repo.delete();
+    }
+
+    /** Changing one file rewrites only its bucket and the root bucket
+     * node, not the whole folder. */
+    @Test
+    public void rewritesOneBucket() {
+        long before = objects();
+        _repo.write(name(7), "changed\n");
+        _repo.run("add", name(7));
+        _repo.run("commit", "change one");
+        assertEquals("a blob, a bucket and the root", before + 3,
+                objects());
+    }
+
+    /** A folder shrunk under the limit and grown back has the same
+     * nodes as before, since their shape depends only on the entries. */
+    @Test
+    public void shapeIgnoresHistory() {
+        _repo.run(command("rm", 0, FILES - Tree.NODE_LIMIT / 2));
+        _repo.run("commit", "shrink");
+        assertEquals(0, _repo.status());
+        for (int i = 0; i < FILES - Tree.NODE_LIMIT / 2; i += 1) {
+            _repo.write(name(i), "file " + i + "\n");
+        }
+        long before = objects();
+        _repo.run(command("add", 0, FILES - Tree.NODE_LIMIT / 2));
+        _repo.run("commit", "grow");
+        assertEquals(before, objects());
+    }
+
+    /** Files are found, checked out and compared through the buckets. */
+    @Test
+    public void readsThroughBuckets() {
+        _repo.write(name(3), "changed\n");
+        _repo.run("add", name(3));
+        _repo.run("rm", name(4));
+        _repo.run("commit", "two");
+        String status = _repo.run("status");
+        assertFalse(status.contains(".txt"));
+        _repo.run("checkout", _first, "--", name(4));
+        assertEquals("file 4\n", _repo.read(name(4)));
+        _repo.run("reset", _first);
+        assertEquals("file 3\n", _repo.read(name(3)));
+        assertFalse(_repo.run("status").contains(".txt"));
+    }
+
+    /** Returns the given command with the names of the files numbered
+     * from START up to END as its operands.
+     * @param name is the command
+     * @param start is the first file number
+     * @param end is one past the last file number
+     * @return String[] is the command and its operands*/
+    private static String[] command(String name, int start, int end) {
+        ArrayList<String> result = new ArrayList<String>();
+        result.add(name);
+        for (int i = start; i < end; i += 1) {
+            result.add(name(i));
+        }
+        return result.toArray(new String[0]);
+    }
+
+    /** Returns the name of the file numbered I.
+     * @param i is the number of the file
+     * @return String is its name*/
+    private static String name(int i) {
+        return "f" + i + ".txt";
+    }
+
+    /** Returns the number of objects in the store.
+     * @return long is the number of blobs and tree nodes*/
+    private long objects() {
+        try (Stream<?> files = Files.walk(_repo.file(".gitlet/objects")
+                .toPath()).filter(Files::isRegularFile)) {
+            return files.count();
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** The number of files committed. */
+    private static final int FILES = 3 * Tree.NODE_LIMIT;
+
+    /** The ID of the commit of all the files. */
+    private String _first;
+
+    /** The repository. */
+    private TestRepo _repo;
+
+}
@@ -0,0 +1,99 @@
+package gitlet;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of checking out branches and resetting to commits, which write
+ * only the files that differ between the two snapshots.
+ * @author Ria Vora*/
+public class CheckoutTest {
+
+    /** Makes a repository whose branch other has a.txt and keep.txt,
+     * and whose master has also changed a.txt and added b.txt.*/
+    @Before
+    public void setUp() {
+        _repo = new TestRepo();
+        _repo.run("init");
+        _repo.write("a.txt", "one");
+        _repo.write("keep.txt", "kept");
+        _repo.run("add", "a.txt", "keep.txt");
+        _repo.run("commit", "one");
+        _first = _repo.head();
+        _repo.run("branch", "other");
+        _repo.write("a.txt", "two");
+        _repo.write("b.txt", "added");
+        _repo.run("add", "a.txt", "b.txt");
+        _repo.run("commit", "two");
+    }
+
+    /** Deletes the repository.*/
+    @After
+    public void tearDown() {
+        _repo.delete();
+    }
+
+    /** Checking out a branch writes its versions of changed files,
+     * deletes files it does not track, keeps files committed before
+     * either branch, and leaves untracked files alone. */
+    @Test
+    public void switchesBranches() {
+        _repo.write("c.txt", "untracked");
+        assertEquals("", _repo.run("checkout", "other"));
+        assertEquals("one", _repo.read("a.txt"));
+        assertFalse(_repo.file("b.txt").exists());
+        assertEquals("kept", _repo.read("keep.txt"));
+        assertEquals("untracked", _repo.read("c.txt"));
+        _repo.run("checkout", "master");
+        assertEquals("two", _repo.read("a.txt"));
+        assertEquals("added", _repo.read("b.txt"));
+    }
+
+    /** Files the same in both snapshots are not written again. */
+    @Test
+    public void skipsUnchangedFiles() {
+        File keep = _repo.file("keep.txt");
+        long old = System.currentTimeMillis() - AGE;
+        assertTrue(keep.setLastModified(old));
+        _repo.run("checkout", "other");
+        assertEquals(old, keep.lastModified());
+    }
+
+    /** An untracked file that checking out would overwrite stops the
+     * checkout before anything is written. */
+    @Test
+    public void refusesUntrackedFiles() {
+        _repo.run("checkout", "other");
+        _repo.write("b.txt", "in the way");
+        assertEquals("There is an untracked file in the way; delete it, "
+                + "or add and commit it first.\n",
+                _repo.run("checkout", "master"));
+        assertEquals("in the way", _repo.read("b.txt"));
+        assertEquals("one", _repo.read("a.txt"));
+    }
+
+    /** Reset checks out a commit and moves the current branch to it,
+     * leaving no other branch behind. */
+    @Test
+    public void resetsBranch() {
+        assertEquals("", _repo.run("reset", _first));
+        assertEquals(_first, _repo.head());
+        assertEquals("one", _repo.read("a.txt"));
+        assertFalse(_repo.file("b.txt").exists());
+        assertTrue(_repo.run("status").startsWith(
+                "=== Branches ===\n*master\nother\n\n"));
+    }
+
+    /** The time in milliseconds files are moved into the past. */
+    private static final long AGE = 60000;
+
+    /** The ID of the first commit. */
+    private String _first;
+
+    /** The repository. */
+    private TestRepo _repo;
+
+}
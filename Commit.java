@@ -3,6 +3,9 @@ package gitlet;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 import java.util.Date;
 import java.util.List;
@@ -14,6 +17,14 @@ import java.util.Collections;
  * @author Ria Vora*/
 public class Commit implements Serializable {
 
+    /** Pins the serialized form of commits saved by older versions
+     * of gitlet with Java serialization, so they remain readable. */
+    private static final long serialVersionUID = 816131614814977203L;
+
+    /** The separator of the elements of a List's toString(). */
+    private static final byte[] ID_SEPARATOR =
+            ", ".getBytes(StandardCharsets.UTF_8);
+
     /** Stores the String timestamp for the commit.*/
     private String _timestamp;
 
@@ -31,6 +42,11 @@ public class Commit implements Serializable {
     /** Stores the String ID of the parent commit.*/
     private String _parent;
 
+    /** Stores the ID of the root tree holding this commit's full
+     * snapshot, or is empty (or null, for commits saved with Java
+     * serialization) if it has none.*/
+    private String _tree;
+
 
     /** Constructor that creates a blank commit with
      * initialized fields.*/
@@ -40,6 +56,7 @@ public class Commit implements Serializable {
         _parent = "";
         _message = "";
         _timestamp = "";
+        _tree = "";
     }
 
     /** Constructor used to create the first commit,
@@ -56,6 +73,23 @@ public class Commit implements Serializable {
         }
     }
 
+    /** Constructor used by CommitCodec to rebuild a stored commit
+     * from its decoded fields.
+     * @param id is the SHA-1 ID of the commit
+     * @param parent is the ID (or IDs) of the parent commit
+     * @param message is the message of the commit
+     * @param timestamp is the timestamp of the commit
+     * @param fileToID is the mapping of files to content IDs*/
+    Commit(String id, String parent, String message, String timestamp,
+           HashMap<String, String> fileToID) {
+        _ID = id;
+        _parent = parent;
+        _message = message;
+        _timestamp = timestamp;
+        _fileToID = fileToID;
+        _tree = "";
+    }
+
     /** Instance method to create a timestamp for the commit,
      * called when the commit is being commited.*/
     public void createTimestamp() {
@@ -67,13 +101,31 @@ public class Commit implements Serializable {
 
     /** Uses the timestamp, message, and list of sorted file contents
      * in the form of SHA-1 IDS to make a unique SHA-1 ID for this commit.
+     * The list is fed to the digest element by element in the form of
+     * its toString(), so IDs match those of older versions of gitlet
+     * without building the whole String. Only called once a commit is
+     * complete, since staging files does not need the ID.
      * @return the unique SHA-1 ID*/
     private String createID() {
         List<String> idsList = new ArrayList<String>(_fileToID.values());
         Collections.sort(idsList);
         idsList.add(_timestamp);
         idsList.add(_message);
-        return Utils.sha1(idsList.toString());
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            md.update((byte) '[');
+            for (int i = 0; i < idsList.size(); i += 1) {
+                if (i > 0) {
+                    md.update(ID_SEPARATOR);
+                }
+                md.update(String.valueOf(idsList.get(i))
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+            md.update((byte) ']');
+            return ObjectStore.toHex(md.digest());
+        } catch (NoSuchAlgorithmException excp) {
+            throw new GitletException(excp.getMessage());
+        }
     }
 
     /** Getter method for the unique SHA-1 ID for this commit.
@@ -128,27 +180,27 @@ public class Commit implements Serializable {
         return _parent;
     }
 
+    /** Getter method, returns the ID of the root tree holding
+     * this commit's full snapshot.
+     * @return ID of the root tree, or empty if there is none*/
+    public String getTree() {
+        if (_tree == null) {
+            return "";
+        }
+        return _tree;
+    }
+
     /** Getter method, returns the timestamp of this commit.
      * @return String version of timestamp*/
     public String getTimestamp() {
         return _timestamp;
     }
 
-    /** Adds the given file and its contents to the
-     * commit's hashmap.
-     * @param f is the file to be added*/
-    public void addFile(File f) throws IOException {
-        String id = Utils.sha1(Utils.readContents(f));
-        _fileToID.put(f.getCanonicalPath(), id);
-        _ID = createID();
-    }
-
     /** Adds the given file to be removed as part of this
      * commit.
      * @param f is the file to be removed*/
     public void addRemoveFile(File f) throws IOException {
         _fileToID.put(f.getCanonicalPath(), "remove*" + f.getName());
-        _ID = createID();
     }
 
     /** Setter method, changes the ID of the parent
@@ -158,6 +210,12 @@ public class Commit implements Serializable {
         _parent = id;
     }
 
+    /** Setter method, changes the root tree of this commit.
+     * @param tree is the ID of the root tree*/
+    public void setTree(String tree) {
+        _tree = tree;
+    }
+
     /** Setter method, changes the message of this commit.
      * @param message of the commit*/
     public void setMessage(String message) {
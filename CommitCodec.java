@@ -0,0 +1,263 @@
+package gitlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/** CommitCodec converts commits to and from the compact binary form
+ * they are stored in. A stored commit is the MAGIC bytes, a version
+ * byte, then varint length-prefixed fields, with every SHA-1 ID
+ * written as its raw bytes. Version 2 adds the ID of the commit's root
+ * tree, and version 3 records each file by its number in the PathTable
+ * instead of its canonical pathway. Older versions are still read.
+ * @author Ria Vora*/
+public class CommitCodec {
+
+    /** The bytes every encoded commit starts with. */
+    static final byte[] MAGIC = {'G', 'L', 'C'};
+
+    /** The current version of the encoding. */
+    static final int VERSION = 3;
+
+    /** Tag for a file entry holding the ID of the file's contents. */
+    static final int BLOB = 0;
+
+    /** Tag for a file entry staging the file for removal. */
+    static final int REMOVE = 1;
+
+    /** Tag for a file entry holding any other string. */
+    static final int OTHER = 2;
+
+    /** The prefix marking a file entry as a removal. */
+    static final String REMOVE_PREFIX = "remove*";
+
+    /** Returns whether the given stored contents are an encoded commit,
+     * rather than a commit saved with Java serialization.
+     * @param contents is the contents of a commit file
+     * @return boolean is whether the contents were encoded*/
+    public static boolean isEncoded(byte[] contents) {
+        if (contents.length <= MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i += 1) {
+            if (contents[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Encodes the given commit.
+     * @param c is the commit
+     * @return byte[] is the encoded commit*/
+    public static byte[] encode(Commit c) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            writeID(out, c.getID());
+            String parent = c.getParent();
+            String[] parents = parent.isEmpty()
+                    ? new String[0] : parent.split(" ");
+            writeVarint(out, parents.length);
+            for (String id: parents) {
+                writeID(out, id);
+            }
+            writeString(out, c.getTimestamp());
+            writeString(out, c.getMessage());
+            if (c.getTree().isEmpty()) {
+                out.writeByte(0);
+            } else {
+                out.writeByte(1);
+                writeID(out, c.getTree());
+            }
+            writeVarint(out, c.getFileToID().size());
+            for (Map.Entry<String, String> entry
+                    : c.getFileToID().entrySet()) {
+                writePath(out, entry.getKey());
+                writeEntry(out, entry.getValue());
+            }
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Decodes the given encoded commit.
+     * @param contents is the encoded commit
+     * @return Commit is the decoded commit*/
+    public static Commit decode(byte[] contents) {
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(contents))) {
+            in.skipBytes(MAGIC.length);
+            int version = in.readUnsignedByte();
+            if (version < 1 || version > VERSION) {
+                throw new GitletException("Unknown commit version "
+                        + version + ".");
+            }
+            String id = readID(in);
+            int numParents = readVarint(in);
+            StringBuilder parent = new StringBuilder();
+            for (int i = 0; i < numParents; i += 1) {
+                if (i > 0) {
+                    parent.append(" ");
+                }
+                parent.append(readID(in));
+            }
+            String timestamp = readString(in);
+            String message = readString(in);
+            String tree = "";
+            if (version >= 2 && in.readUnsignedByte() != 0) {
+                tree = readID(in);
+            }
+            int size = readVarint(in);
+            HashMap<String, String> fileToID =
+                    new HashMap<String, String>(size * 2);
+            for (int i = 0; i < size; i += 1) {
+                String filePath = version >= 3
+                        ? readPath(in) : readString(in);
+                fileToID.put(filePath, readEntry(in));
+            }
+            Commit result = new Commit(id, parent.toString(), message,
+                    timestamp, fileToID);
+            result.setTree(tree);
+            return result;
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Writes the value of a file entry, choosing the smallest tag
+     * that can hold it.
+     * @param out is the stream written to
+     * @param value is the SHA-1 ID or removal name of the entry*/
+    private static void writeEntry(DataOutputStream out, String value)
+            throws IOException {
+        if (value.startsWith(REMOVE_PREFIX)) {
+            out.writeByte(REMOVE);
+            writeString(out, value.substring(REMOVE_PREFIX.length()));
+        } else if (value.length() == Utils.UID_LENGTH
+                && value.matches("[0-9a-f]*")) {
+            out.writeByte(BLOB);
+            writeID(out, value);
+        } else {
+            out.writeByte(OTHER);
+            writeString(out, value);
+        }
+    }
+
+    /** Reads the value of a file entry written by writeEntry.
+     * @param in is the stream read from
+     * @return String is the SHA-1 ID or removal name of the entry*/
+    private static String readEntry(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+        case BLOB:
+            return readID(in);
+        case REMOVE:
+            return REMOVE_PREFIX + readString(in);
+        case OTHER:
+            return readString(in);
+        default:
+            throw new GitletException("Corrupt commit entry.");
+        }
+    }
+
+    /** Writes the given canonical pathway as one more than its number
+     * in the PathTable, or as 0 and the pathway itself if it lies
+     * outside the repository.
+     * @param out is the stream written to
+     * @param filePath is the canonical pathway*/
+    private static void writePath(DataOutputStream out, String filePath)
+            throws IOException {
+        int id;
+        try {
+            id = PathTable.id(filePath);
+        } catch (GitletException excp) {
+            writeVarint(out, 0);
+            writeString(out, filePath);
+            return;
+        }
+        writeVarint(out, id + 1);
+    }
+
+    /** Reads a canonical pathway written by writePath.
+     * @param in is the stream read from
+     * @return String is the canonical pathway*/
+    private static String readPath(DataInputStream in) throws IOException {
+        int id = readVarint(in);
+        if (id == 0) {
+            return readString(in);
+        }
+        return PathTable.canonicalPath(id - 1);
+    }
+
+    /** Writes the given hexadecimal SHA-1 ID as raw bytes.
+     * @param out is the stream written to
+     * @param id is the hexadecimal ID*/
+    static void writeID(DataOutputStream out, String id) throws IOException {
+        out.write(ObjectStore.toBytes(id));
+    }
+
+    /** Reads a raw SHA-1 ID written by writeID.
+     * @param in is the stream read from
+     * @return String is the hexadecimal ID*/
+    static String readID(DataInputStream in) throws IOException {
+        byte[] id = new byte[Utils.UID_LENGTH / 2];
+        in.readFully(id);
+        return ObjectStore.toHex(id);
+    }
+
+    /** Writes the given string as a varint length and UTF-8 bytes.
+     * @param out is the stream written to
+     * @param s is the string*/
+    static void writeString(DataOutputStream out, String s)
+            throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /** Reads a string written by writeString.
+     * @param in is the stream read from
+     * @return String is the string*/
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarint(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Writes the given non-negative int in seven-bit groups, low
+     * group first, with the high bit set on all but the last byte.
+     * @param out is the stream written to
+     * @param value is the int*/
+    static void writeVarint(DataOutputStream out, int value)
+            throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /** Reads an int written by writeVarint.
+     * @param in is the stream read from
+     * @return int is the int*/
+    static int readVarint(DataInputStream in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new GitletException("Corrupt varint.");
+    }
+
+}
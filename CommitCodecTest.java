@@ -0,0 +1,144 @@
+package gitlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of the binary commit encoding of CommitCodec.
+ * @author Ria Vora*/
+public class CommitCodecTest {
+
+    /** Varints round-trip and take one byte per seven bits. */
+    @Test
+    public void varints() throws IOException {
+        int[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE};
+        int[] sizes = {1, 1, 1, 2, 2, 3, 5};
+        for (int i = 0; i < values.length; i += 1) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                CommitCodec.writeVarint(out, values[i]);
+            }
+            assertEquals(sizes[i], bytes.size());
+            assertEquals(values[i], CommitCodec.readVarint(
+                    input(bytes.toByteArray())));
+        }
+    }
+
+    /** Strings round-trip as UTF-8, whatever they hold. */
+    @Test
+    public void strings() throws IOException {
+        String s = "caf\u00e9 \u2603 \ud83d\ude00\nend";
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            CommitCodec.writeString(out, s);
+            CommitCodec.writeString(out, "");
+        }
+        DataInputStream in = input(bytes.toByteArray());
+        assertEquals(s, CommitCodec.readString(in));
+        assertEquals("", CommitCodec.readString(in));
+    }
+
+    /** A merge commit with a tree decodes to the same fields, and
+     * encodes back to the same bytes. */
+    @Test
+    public void roundTrip() {
+        Commit c = new Commit(ID1, ID2 + " " + ID3, "merged \u00e9",
+                "Thu Jan 01 00:00:00 1970 +0000",
+                new HashMap<String, String>());
+        c.setTree(ID4);
+        byte[] encoded = CommitCodec.encode(c);
+        assertTrue(CommitCodec.isEncoded(encoded));
+        Commit decoded = CommitCodec.decode(encoded);
+        assertEquals(c.getID(), decoded.getID());
+        assertEquals(c.getParent(), decoded.getParent());
+        assertEquals(c.getMessage(), decoded.getMessage());
+        assertEquals(c.getTimestamp(), decoded.getTimestamp());
+        assertEquals(c.getTree(), decoded.getTree());
+        assertTrue(decoded.getFileToID().isEmpty());
+        assertArrayEquals(encoded, CommitCodec.encode(decoded));
+    }
+
+    /** A root commit without a tree keeps its empty fields. */
+    @Test
+    public void rootCommit() {
+        Commit c = new Commit(ID1, "", "initial commit",
+                "Thu Jan 01 00:00:00 1970 +0000",
+                new HashMap<String, String>());
+        Commit decoded = CommitCodec.decode(CommitCodec.encode(c));
+        assertEquals("", decoded.getParent());
+        assertEquals("", decoded.getTree());
+    }
+
+    /** Commits encoded by version 1, which recorded files by pathway
+     * and had no tree, are still read. */
+    @Test
+    public void readsVersion1() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.write(CommitCodec.MAGIC);
+            out.writeByte(1);
+            CommitCodec.writeID(out, ID1);
+            CommitCodec.writeVarint(out, 1);
+            CommitCodec.writeID(out, ID2);
+            CommitCodec.writeString(out, "Thu Jan 01 00:00:00 1970 +0000");
+            CommitCodec.writeString(out, "old");
+            CommitCodec.writeVarint(out, 2);
+            CommitCodec.writeString(out, "/r/a.txt");
+            out.writeByte(CommitCodec.BLOB);
+            CommitCodec.writeID(out, ID3);
+            CommitCodec.writeString(out, "/r/b.txt");
+            out.writeByte(CommitCodec.REMOVE);
+            CommitCodec.writeString(out, "b.txt");
+        }
+        Commit c = CommitCodec.decode(bytes.toByteArray());
+        assertEquals(ID1, c.getID());
+        assertEquals(ID2, c.getParent());
+        assertEquals("old", c.getMessage());
+        assertEquals("", c.getTree());
+        assertEquals(ID3, c.getFileToID().get("/r/a.txt"));
+        assertEquals("remove*b.txt", c.getFileToID().get("/r/b.txt"));
+    }
+
+    /** Versions newer than this gitlet are refused. */
+    @Test(expected = GitletException.class)
+    public void refusesNewerVersion() {
+        byte[] encoded = CommitCodec.encode(new Commit(ID1, "", "m", "t",
+                new HashMap<String, String>()));
+        encoded[CommitCodec.MAGIC.length] = CommitCodec.VERSION + 1;
+        CommitCodec.decode(encoded);
+    }
+
+    /** Commits saved with Java serialization are not mistaken for
+     * encoded ones. */
+    @Test
+    public void tellsSerializedApart() {
+        byte[] serialized = Utils.serialize(new Commit(true));
+        assertFalse(CommitCodec.isEncoded(serialized));
+    }
+
+    /** Returns a stream reading the given bytes.
+     * @param bytes is the bytes
+     * @return DataInputStream is the stream*/
+    private static DataInputStream input(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    /** A commit ID used by the tests. */
+    static final String ID1 = "0123456789abcdef0123456789abcdef01234567";
+
+    /** A second commit ID used by the tests. */
+    static final String ID2 = "89abcdef0123456789abcdef0123456789abcdef";
+
+    /** A third commit ID used by the tests. */
+    static final String ID3 = "fedcba9876543210fedcba9876543210fedcba98";
+
+    /** A tree ID used by the tests. */
+    static final String ID4 = "00000000000000000000000000000000000000ff";
+
+}
@@ -0,0 +1,409 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.TreeMap;
+
+/** CommitGraph is a side file holding, for every commit, its parents,
+ * commit time and generation number in fixed-width records, so that
+ * history can be walked without reading any commit files. The
+ * generation of a commit is one more than the largest generation of
+ * its parents, and 1 for the initial commit. Like the CommitIndex, the
+ * file starts with a header counting the records after it that are
+ * sorted by commit ID, which are found by bisecting the mapped file,
+ * and new commits are appended after them into a tail that is scanned
+ * until the Journal is next checkpointed.
+ * @author Ria Vora*/
+public class CommitGraph {
+
+    /** The bytes the graph file starts with. */
+    static final byte[] MAGIC = {'G', 'C', 'G'};
+
+    /** The current version of the graph file. */
+    static final int VERSION = 1;
+
+    /** The width in bytes of one SHA-1 ID. */
+    static final int ID = Utils.UID_LENGTH / 2;
+
+    /** The width in bytes of one record: the commit ID, two parent
+     * IDs (zero when absent), the commit time and the generation. */
+    static final int RECORD = 3 * ID + Long.BYTES + Integer.BYTES;
+
+    /** The size in bytes of the header: MAGIC, VERSION and the number
+     * of sorted records. */
+    static final int START = MAGIC.length + 1 + Integer.BYTES;
+
+    /** Returns the IDs of the parents of the given commit, first
+     * parent first.
+     * @param id is the full ID of the commit
+     * @return String[] is the zero to two parent IDs*/
+    public static String[] parents(String id) {
+        int pos = position(id);
+        ArrayList<String> result = new ArrayList<String>();
+        for (int i = 1; i <= 2; i += 1) {
+            String parent = readID(pos + i * ID);
+            if (parent != null) {
+                result.add(parent);
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+
+    /** Returns the ID of the first parent of the given commit.
+     * @param id is the full ID of the commit
+     * @return String is the first parent's ID, or null at the root*/
+    public static String firstParent(String id) {
+        return readID(position(id) + ID);
+    }
+
+    /** Returns the generation number of the given commit.
+     * @param id is the full ID of the commit
+     * @return int is the generation*/
+    public static int generation(String id) {
+        return load().getInt(position(id) + 3 * ID + Long.BYTES);
+    }
+
+    /** Returns the commit time of the given commit.
+     * @param id is the full ID of the commit
+     * @return long is the time in milliseconds since the epoch*/
+    public static long time(String id) {
+        return load().getLong(position(id) + 3 * ID);
+    }
+
+    /** Appends the record of the given newly saved commit to the tail
+     * of the graph through the Journal, or rebuilds the graph, header
+     * and all, if it is missing. Its parents must already be in the
+     * graph.
+     * @param c is the commit*/
+    public static void add(Commit c) {
+        if (!GRAPH_FILE.exists()) {
+            rebuild();
+            return;
+        }
+        String[] parents = splitParents(c.getParent());
+        int generation = 0;
+        for (String parent: parents) {
+            generation = Math.max(generation, generation(parent));
+        }
+        if (find(load(), ObjectStore.toBytes(c.getID())) >= 0) {
+            return;
+        }
+        Journal.append(GRAPH_FILE,
+                record(c, parents, generation + 1).array());
+        _graph = map();
+    }
+
+    /** Merges the tail of the graph into its sorted records, if there
+     * is one. Only called by the Journal once it is emptied, like
+     * CommitIndex.merge.*/
+    public static void merge() {
+        if (!GRAPH_FILE.exists() || legacy()) {
+            return;
+        }
+        ByteBuffer graph = load();
+        int records = (graph.capacity() - START) / RECORD;
+        if (graph.getInt(MAGIC.length + 1) == records) {
+            return;
+        }
+        TreeMap<String, byte[]> sorted = new TreeMap<String, byte[]>();
+        for (int i = 0; i < records; i += 1) {
+            byte[] record = new byte[RECORD];
+            ByteBuffer view = graph.duplicate();
+            view.position(START + i * RECORD);
+            view.get(record);
+            sorted.put(ObjectStore.toHex(Arrays.copyOf(record, ID)),
+                    record);
+        }
+        write(sorted.values());
+    }
+
+    /** Returns whether the graph exists in the current format, so
+     * that reading it writes nothing.
+     * @return boolean is whether it need not be rebuilt*/
+    public static boolean current() {
+        return GRAPH_FILE.exists() && !legacy();
+    }
+
+    /** Rewrites the graph from scratch from every stored commit.*/
+    public static void rebuild() {
+        HashMap<String, Commit> commits = new HashMap<String, Commit>();
+        for (File file: ObjectStore.commitFiles()) {
+            Commit c = ObjectStore.readCommit(file);
+            commits.put(c.getID(), c);
+        }
+        HashMap<String, Integer> generations = new HashMap<String, Integer>();
+        TreeMap<String, byte[]> sorted = new TreeMap<String, byte[]>();
+        for (String id: commits.keySet()) {
+            computeGeneration(id, commits, generations);
+            Commit c = commits.get(id);
+            sorted.put(id, record(c, splitParents(c.getParent()),
+                    generations.get(id)).array());
+        }
+        write(sorted.values());
+    }
+
+    /** Atomically replaces the graph with the given records, sorted by
+     * commit ID, and forces it to disk.
+     * @param records is the sorted records*/
+    private static void write(Collection<byte[]> records) {
+        ByteBuffer contents = ByteBuffer.allocate(START
+                + records.size() * RECORD);
+        contents.put(MAGIC).put((byte) VERSION).putInt(records.size());
+        for (byte[] record: records) {
+            contents.put(record);
+        }
+        try {
+            File temp = File.createTempFile(GRAPH_FILE.getName(), ".lock",
+                    Main.GITLET_FOLDER);
+            Utils.writeContents(temp, contents.array());
+            Files.move(temp.toPath(), GRAPH_FILE.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        Journal.force(GRAPH_FILE);
+        Journal.force(Main.GITLET_FOLDER);
+        _graph = null;
+    }
+
+    /** Computes the generation of the commit with the given ID and of
+     * all of its ancestors without a known generation, iteratively so
+     * that long histories do not overflow the stack.
+     * @param id is the ID of the commit
+     * @param commits maps every commit ID to its commit
+     * @param generations maps commit IDs to known generations*/
+    private static void computeGeneration(String id,
+                                          HashMap<String, Commit> commits,
+                                          HashMap<String, Integer>
+                                                  generations) {
+        ArrayList<String> stack = new ArrayList<String>();
+        stack.add(id);
+        while (!stack.isEmpty()) {
+            String top = stack.get(stack.size() - 1);
+            if (generations.containsKey(top)) {
+                stack.remove(stack.size() - 1);
+                continue;
+            }
+            int generation = 0;
+            boolean ready = true;
+            for (String parent: splitParents(commits.get(top).getParent())) {
+                if (!commits.containsKey(parent)) {
+                    continue;
+                } else if (!generations.containsKey(parent)) {
+                    stack.add(parent);
+                    ready = false;
+                } else {
+                    generation = Math.max(generation,
+                            generations.get(parent));
+                }
+            }
+            if (ready) {
+                generations.put(top, generation + 1);
+                stack.remove(stack.size() - 1);
+            }
+        }
+    }
+
+    /** Returns the record of the given commit.
+     * @param c is the commit
+     * @param parents is the IDs of its parents
+     * @param generation is its generation
+     * @return ByteBuffer is the record*/
+    private static ByteBuffer record(Commit c, String[] parents,
+                                     int generation) {
+        ByteBuffer result = ByteBuffer.allocate(RECORD);
+        result.put(ObjectStore.toBytes(c.getID()));
+        for (int i = 0; i < 2; i += 1) {
+            if (i < parents.length) {
+                result.put(ObjectStore.toBytes(parents[i]));
+            } else {
+                result.put(new byte[ID]);
+            }
+        }
+        result.putLong(parseTime(c.getTimestamp()));
+        result.putInt(generation);
+        return result;
+    }
+
+    /** Splits the parent field of a commit into the IDs it holds.
+     * @param parent is the parent field of a commit
+     * @return String[] is the parent IDs*/
+    static String[] splitParents(String parent) {
+        if (parent.isEmpty()) {
+            return new String[0];
+        }
+        return parent.split(" ");
+    }
+
+    /** Returns the time of the given commit timestamp.
+     * @param timestamp is the timestamp of a commit
+     * @return long is the time in milliseconds since the epoch*/
+    private static long parseTime(String timestamp) {
+        try {
+            return new SimpleDateFormat("EEE MMM dd HH:mm:ss yyyy Z")
+                    .parse(timestamp).getTime();
+        } catch (ParseException excp) {
+            return 0;
+        }
+    }
+
+    /** Returns the ID stored at the given offset of the graph, or
+     * null if it is all zeros.
+     * @param offset is the offset of the ID
+     * @return String is the hexadecimal ID*/
+    private static String readID(int offset) {
+        byte[] id = new byte[ID];
+        ByteBuffer graph = load().duplicate();
+        graph.position(offset);
+        graph.get(id);
+        for (byte b: id) {
+            if (b != 0) {
+                return ObjectStore.toHex(id);
+            }
+        }
+        return null;
+    }
+
+    /** Returns the offset of the record of the given commit, mapping
+     * the graph again and then rebuilding it if it does not hold the
+     * commit yet.
+     * @param id is the full ID of the commit
+     * @return int is the offset of its record*/
+    private static int position(String id) {
+        byte[] key = ObjectStore.toBytes(id);
+        int result = find(load(), key);
+        if (result < 0) {
+            _graph = map();
+            result = find(_graph, key);
+        }
+        if (result < 0) {
+            rebuild();
+            result = find(load(), key);
+            if (result < 0) {
+                throw new GitletException("No commit " + id + " in graph.");
+            }
+        }
+        return result;
+    }
+
+    /** Returns the offset of the record of the commit with the given
+     * raw ID in GRAPH, bisecting its sorted records and then scanning
+     * its tail, or -1 if it has none.
+     * @param graph is the mapped graph
+     * @param key is the raw ID of the commit
+     * @return int is the offset of its record*/
+    private static int find(ByteBuffer graph, byte[] key) {
+        int sorted = graph.getInt(MAGIC.length + 1);
+        int low = 0;
+        int high = sorted;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(graph, START + mid * RECORD, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid;
+            } else {
+                return START + mid * RECORD;
+            }
+        }
+        for (int offset = START + sorted * RECORD;
+             offset + RECORD <= graph.capacity(); offset += RECORD) {
+            if (compare(graph, offset, key) == 0) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    /** Compares the ID at the given offset of GRAPH with KEY, as
+     * unsigned bytes, so that records sort as their hexadecimal IDs do.
+     * @param graph is the mapped graph
+     * @param offset is the offset of the ID
+     * @param key is the raw ID
+     * @return int is negative, zero or positive*/
+    private static int compare(ByteBuffer graph, int offset, byte[] key) {
+        for (int i = 0; i < ID; i += 1) {
+            int cmp = Integer.compare(graph.get(offset + i) & 0xff,
+                    key[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    /** Memory-maps the graph file, rebuilding it if it is missing or
+     * was written without a header by an older version of gitlet.
+     * @return MappedByteBuffer is the mapped graph*/
+    private static MappedByteBuffer load() {
+        if (_graph != null) {
+            return _graph;
+        }
+        if (!GRAPH_FILE.exists() || legacy()) {
+            rebuild();
+        }
+        _graph = map();
+        for (int i = 0; i < MAGIC.length; i += 1) {
+            if (_graph.get(i) != MAGIC[i]) {
+                throw new GitletException("Corrupt commit graph.");
+            }
+        }
+        int version = _graph.get(MAGIC.length) & 0xff;
+        if (version != VERSION) {
+            throw new GitletException("Unknown commit graph version "
+                    + version + ".");
+        }
+        return _graph;
+    }
+
+    /** Returns whether the graph file was written without a header.
+     * @return boolean is whether it holds records alone*/
+    private static boolean legacy() {
+        return GRAPH_FILE.length() % RECORD == 0;
+    }
+
+    /** Drops the mapped graph if another process has changed its file
+     * since it was mapped, so that it is mapped again when next used.*/
+    static void revalidate() {
+        if (_graph != null && !Stamp.of(GRAPH_FILE).equals(_stamp)) {
+            _graph = null;
+        }
+    }
+
+    /** Memory-maps the whole graph file.
+     * @return MappedByteBuffer is the mapped graph*/
+    private static MappedByteBuffer map() {
+        _stamp = Stamp.of(GRAPH_FILE);
+        try (RandomAccessFile file = new RandomAccessFile(GRAPH_FILE, "r")) {
+            FileChannel channel = file.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** The mapped graph file, or null if not loaded yet. */
+    private static MappedByteBuffer _graph;
+
+    /** The stamp of the graph file as last mapped. */
+    private static Stamp _stamp;
+
+    /** The commit-graph file. */
+    static final File GRAPH_FILE = new File(".gitlet/commit-graph");
+
+}
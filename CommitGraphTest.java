@@ -0,0 +1,160 @@
+package gitlet;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of the generation numbers and layout of the CommitGraph.
+ * @author Ria Vora*/
+public class CommitGraphTest {
+
+    /** Makes a repository with a branch named other.*/
+    @Before
+    public void setUp() {
+        _repo = new TestRepo();
+        _repo.run("init");
+        _repo.run("branch", "other");
+    }
+
+    /** Deletes the repository.*/
+    @After
+    public void tearDown() {
+        _repo.delete();
+    }
+
+    /** A commit's generation is one more than its highest parent's,
+     * and its record holds its parents. */
+    @Test
+    public void generations() {
+        String initial = _repo.head();
+        String one = commit("a.txt", "one");
+        String two = commit("a.txt", "two");
+        _repo.run("checkout", "other");
+        String side = commit("b.txt", "side");
+        _repo.run("checkout", "master");
+        _repo.run("merge", "other");
+        String merged = _repo.head();
+        HashMap<String, ByteBuffer> records = records(graph());
+        assertEquals(1, generation(records.get(initial)));
+        assertEquals(2, generation(records.get(one)));
+        assertEquals(3, generation(records.get(two)));
+        assertEquals(2, generation(records.get(side)));
+        assertEquals(4, generation(records.get(merged)));
+        assertEquals(two, parent(records.get(merged), 0));
+        assertEquals(side, parent(records.get(merged), 1));
+        assertNull(parent(records.get(one), 1));
+    }
+
+    /** New commits are appended to the tail of the graph. */
+    @Test
+    public void appendsToTail() {
+        byte[] before = graph();
+        commit("a.txt", "one");
+        byte[] after = graph();
+        assertEquals(before.length + CommitGraph.RECORD, after.length);
+        assertArrayEquals(Arrays.copyOfRange(before, CommitGraph.START,
+                before.length), Arrays.copyOfRange(after,
+                CommitGraph.START, before.length));
+        assertEquals(sorted(before), sorted(after));
+    }
+
+    /** A missing graph is rebuilt, all sorted, with the same records,
+     * and log still walks the whole history. */
+    @Test
+    public void rebuildsMissingGraph() {
+        commit("a.txt", "one");
+        commit("a.txt", "two");
+        HashMap<String, ByteBuffer> before = records(graph());
+        String log = _repo.run("log");
+        assertTrue(_repo.file(".gitlet/commit-graph").delete());
+        assertEquals(log, _repo.run("log"));
+        byte[] rebuilt = graph();
+        assertEquals(before, records(rebuilt));
+        assertEquals(before.size(), sorted(rebuilt));
+    }
+
+    /** A graph written without a header by older versions of gitlet,
+     * which kept no journal, is rebuilt with one. */
+    @Test
+    public void upgradesHeaderlessGraph() {
+        commit("a.txt", "one");
+        HashMap<String, ByteBuffer> before = records(graph());
+        byte[] old = graph();
+        _repo.write(".gitlet/commit-graph", Arrays.copyOfRange(old,
+                CommitGraph.START, old.length));
+        assertTrue(_repo.file(".gitlet/journal").delete());
+        _repo.run("log");
+        byte[] upgraded = graph();
+        assertArrayEquals(CommitGraph.MAGIC, Arrays.copyOf(upgraded,
+                CommitGraph.MAGIC.length));
+        assertEquals(before, records(upgraded));
+    }
+
+    /** Commits a new version of a file.
+     * @param name is the name of the file
+     * @param message is the message and the new contents
+     * @return String is the ID of the commit*/
+    private String commit(String name, String message) {
+        _repo.write(name, message);
+        _repo.run("add", name);
+        _repo.run("commit", message);
+        return _repo.head();
+    }
+
+    /** Returns the contents of the graph.
+     * @return byte[] is the graph*/
+    private byte[] graph() {
+        return Utils.readContents(_repo.file(".gitlet/commit-graph"));
+    }
+
+    /** Returns the records of the given graph by commit ID.
+     * @param graph is the contents of the graph
+     * @return the map of IDs to records*/
+    private static HashMap<String, ByteBuffer> records(byte[] graph) {
+        HashMap<String, ByteBuffer> result = new HashMap<String, ByteBuffer>();
+        for (int i = CommitGraph.START; i + CommitGraph.RECORD <= graph.length;
+             i += CommitGraph.RECORD) {
+            byte[] record = Arrays.copyOfRange(graph, i,
+                    i + CommitGraph.RECORD);
+            result.put(ObjectStore.toHex(Arrays.copyOf(record,
+                    CommitGraph.ID)), ByteBuffer.wrap(record));
+        }
+        return result;
+    }
+
+    /** Returns the number of sorted records in the given graph.
+     * @param graph is the contents of the graph
+     * @return int is the number of sorted records*/
+    private static int sorted(byte[] graph) {
+        return ByteBuffer.wrap(graph).getInt(CommitGraph.MAGIC.length + 1);
+    }
+
+    /** Returns the generation held by the given record.
+     * @param record is the record
+     * @return int is the generation*/
+    private static int generation(ByteBuffer record) {
+        return record.getInt(3 * CommitGraph.ID + Long.BYTES);
+    }
+
+    /** Returns the parent with the given index held by the given
+     * record, or null if it has none.
+     * @param record is the record
+     * @param index is 0 for the first parent and 1 for the second
+     * @return String is the parent's ID*/
+    private static String parent(ByteBuffer record, int index) {
+        int offset = (index + 1) * CommitGraph.ID;
+        byte[] id = Arrays.copyOfRange(record.array(), offset,
+                offset + CommitGraph.ID);
+        return Arrays.equals(id, new byte[CommitGraph.ID])
+                ? null : ObjectStore.toHex(id);
+    }
+
+    /** The repository. */
+    private TestRepo _repo;
+
+}
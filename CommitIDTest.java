@@ -0,0 +1,91 @@
+package gitlet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests that commit IDs, now streamed into the digest once per
+ * commit, are those of older versions of gitlet: the SHA-1 of the
+ * toString() of the sorted content IDs, timestamp and message.
+ * @author Ria Vora*/
+public class CommitIDTest {
+
+    /** A commit of many files has the ID of the old formula, and
+     * staging its files does not compute one. */
+    @Test
+    public void matchesListFormula() {
+        Random random = new Random(0);
+        Commit c = new Commit();
+        String blank = c.getID();
+        ArrayList<String> ids = new ArrayList<String>();
+        for (int i = 0; i < FILES; i += 1) {
+            String id = Benchmark.randomID(random);
+            c.getFileToID().put("/repo/f" + i, id);
+            ids.add(id);
+        }
+        c.getFileToID().put("/repo/gone", "remove*gone");
+        ids.add("remove*gone");
+        c.setMessage("many files, caf\u00e9");
+        assertEquals(blank, c.getID());
+        c.createTimestamp();
+        assertEquals(listID(ids, c.getTimestamp(), c.getMessage()),
+                c.getID());
+    }
+
+    /** A commit with no files has the ID of the old formula. */
+    @Test
+    public void emptyCommit() {
+        Commit c = new Commit();
+        c.setMessage("empty");
+        c.createTimestamp();
+        assertEquals(listID(new ArrayList<String>(), c.getTimestamp(),
+                "empty"), c.getID());
+    }
+
+    /** A commit made by gitlet has the ID of the old formula, computed
+     * from its logged date and its file's contents. */
+    @Test
+    public void committedID() {
+        TestRepo repo = new TestRepo();
+        try {
+            repo.run("init");
+            repo.write("a.txt", "a\n");
+            repo.run("add", "a.txt");
+            repo.run("commit", "one");
+            Matcher date = DATE_LINE.matcher(repo.run("log"));
+            assertTrue(date.find());
+            ArrayList<String> ids = new ArrayList<String>();
+            ids.add(Utils.sha1("a\n"));
+            assertEquals(listID(ids, date.group(1), "one"), repo.head());
+        } finally {
+            repo.delete();
+        }
+    }
+
+    /** Returns a commit ID by the formula of older versions of gitlet.
+     * @param ids is the content IDs of the commit's files
+     * @param timestamp is its timestamp
+     * @param message is its message
+     * @return String is its ID*/
+    private static String listID(ArrayList<String> ids, String timestamp,
+                                 String message) {
+        ArrayList<String> list = new ArrayList<String>(ids);
+        Collections.sort(list);
+        list.add(timestamp);
+        list.add(message);
+        return Utils.sha1(list.toString());
+    }
+
+    /** The number of files in the commit of many files. */
+    private static final int FILES = 1000;
+
+    /** The first line of log giving a commit's date. */
+    private static final Pattern DATE_LINE =
+        Pattern.compile("^Date: (.*)$", Pattern.MULTILINE);
+
+}
@@ -0,0 +1,284 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/** CommitIndex is a table of every commit ID in the repository, stored
+ * as fixed-width raw SHA-1 records so that abbreviated commit IDs
+ * resolve quickly. The file starts with a header holding the number
+ * of records sorted after it, which are searched by bisection, and
+ * new commits are appended unsorted after them, into a short tail
+ * that is scanned. The tail is merged into the sorted records when
+ * the Journal is checkpointed, so saving a commit never rewrites the
+ * index.
+ * @author Ria Vora*/
+public class CommitIndex {
+
+    /** The bytes the index file starts with. */
+    static final byte[] MAGIC = {'G', 'C', 'I'};
+
+    /** The current version of the index file. */
+    static final int VERSION = 1;
+
+    /** The width in bytes of one record in the index file. */
+    static final int RECORD = Utils.UID_LENGTH / 2;
+
+    /** The size in bytes of the header: MAGIC, VERSION and the number
+     * of sorted records. */
+    static final int START = MAGIC.length + 1 + Integer.BYTES;
+
+    /** The number of records past which the tail is merged. */
+    static final int TAIL_LIMIT = 1024;
+
+    /** Returns the full ID of the single commit starting with the
+     * given abbreviated ID, or null if there is no such commit.
+     * Errors if the abbreviated ID matches more than one commit.
+     * @param prefix is the abbreviated commit ID
+     * @return String is the full commit ID*/
+    public static String resolve(String prefix) {
+        if (prefix.isEmpty() || !prefix.matches("[0-9a-f]*")) {
+            return null;
+        }
+        TreeSet<String> found = new TreeSet<String>();
+        try (RandomAccessFile index = new RandomAccessFile(INDEX_FILE, "r")) {
+            long sorted = sorted(index);
+            long low = search(index, sorted, prefix);
+            for (long i = low; i < sorted && found.size() < 2; i += 1) {
+                String id = readRecord(index, i);
+                if (!id.startsWith(prefix)) {
+                    break;
+                }
+                found.add(id);
+            }
+            for (String id: tail(index, sorted)) {
+                if (id.startsWith(prefix)) {
+                    found.add(id);
+                }
+            }
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        if (found.size() > 1) {
+            Main.exitWithError("Ambiguous commit id " + prefix + ".", 0);
+        }
+        return found.isEmpty() ? null : found.first();
+    }
+
+    /** Appends the given commit ID to the tail of the index, unless it
+     * is there already.
+     * @param id is the full ID of a newly saved commit*/
+    public static void add(String id) {
+        byte[] record = ObjectStore.toBytes(id);
+        if (!INDEX_FILE.exists()) {
+            record = ByteBuffer.allocate(START + RECORD).put(header(0))
+                    .put(record).array();
+        } else {
+            try (RandomAccessFile index = new RandomAccessFile(INDEX_FILE,
+                    "r")) {
+                long sorted = sorted(index);
+                long pos = search(index, sorted, id);
+                if (pos < sorted && readRecord(index, pos).equals(id)
+                        || tail(index, sorted).contains(id)) {
+                    return;
+                }
+            } catch (IOException excp) {
+                throw new GitletException(excp.getMessage());
+            }
+        }
+        Journal.append(INDEX_FILE, record);
+    }
+
+    /** Returns whether the tail has grown past TAIL_LIMIT, so that the
+     * index should be merged.
+     * @return boolean is whether the tail is full*/
+    public static boolean tailFull() {
+        if (!INDEX_FILE.exists()) {
+            return false;
+        }
+        try (RandomAccessFile index = new RandomAccessFile(INDEX_FILE, "r")) {
+            return records(index) - sorted(index) > TAIL_LIMIT;
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Merges the tail into the sorted records, if there is one. Only
+     * called by the Journal once it is emptied, since the appends it
+     * records are at offsets into the unmerged file.*/
+    public static void merge() {
+        if (!INDEX_FILE.exists()) {
+            return;
+        }
+        try (RandomAccessFile index = new RandomAccessFile(INDEX_FILE, "r")) {
+            if (records(index) == sorted(index)) {
+                return;
+            }
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        writeAll(readAll());
+    }
+
+    /** Rebuilds the index from the commits folder if it is missing, as
+     * in repositories made by older versions of gitlet, and adds the
+     * header to an index written without one.*/
+    public static void rebuildIfMissing() {
+        if (INDEX_FILE.exists()) {
+            if (INDEX_FILE.length() % RECORD == 0) {
+                writeAll(readAll());
+            }
+            return;
+        }
+        TreeSet<String> ids = new TreeSet<String>();
+        for (File file: ObjectStore.commitFiles()) {
+            ids.add(Main.removeTXT(file.getName()));
+        }
+        writeAll(ids);
+    }
+
+    /** Returns whether rebuildIfMissing has nothing to do, reading
+     * only.
+     * @return boolean is whether the index exists with a header*/
+    public static boolean current() {
+        return INDEX_FILE.exists() && INDEX_FILE.length() % RECORD != 0;
+    }
+
+    /** Returns the number of sorted records in INDEX, checking its
+     * header.
+     * @param index is the opened index file
+     * @return long is the number of sorted records*/
+    private static long sorted(RandomAccessFile index) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        index.seek(0);
+        index.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new GitletException("Corrupt commit index.");
+        }
+        int version = index.readUnsignedByte();
+        if (version != VERSION) {
+            throw new GitletException("Unknown commit index version "
+                    + version + ".");
+        }
+        return index.readInt();
+    }
+
+    /** Returns the number of whole records in INDEX.
+     * @param index is the opened index file
+     * @return long is the number of records*/
+    private static long records(RandomAccessFile index) throws IOException {
+        return (index.length() - START) / RECORD;
+    }
+
+    /** Returns the position of the first of the SORTED records of INDEX
+     * that is not less than KEY.
+     * @param index is the opened index file
+     * @param sorted is the number of sorted records
+     * @param key is the ID or abbreviated ID searched for
+     * @return long is the position*/
+    private static long search(RandomAccessFile index, long sorted,
+                               String key) throws IOException {
+        long low = 0;
+        long high = sorted;
+        while (low < high) {
+            long mid = (low + high) / 2;
+            if (readRecord(index, mid).compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Returns the IDs in the tail of INDEX, after its SORTED records.
+     * @param index is the opened index file
+     * @param sorted is the number of sorted records
+     * @return the list of IDs*/
+    private static ArrayList<String> tail(RandomAccessFile index,
+                                         long sorted) throws IOException {
+        ArrayList<String> result = new ArrayList<String>();
+        long size = records(index);
+        if (size <= sorted) {
+            return result;
+        }
+        byte[] contents = new byte[(int) ((size - sorted) * RECORD)];
+        index.seek(START + sorted * RECORD);
+        index.readFully(contents);
+        for (int i = 0; i < contents.length; i += RECORD) {
+            result.add(ObjectStore.toHex(
+                    Arrays.copyOfRange(contents, i, i + RECORD)));
+        }
+        return result;
+    }
+
+    /** Reads the record at position POS of INDEX.
+     * @param index is the opened index file
+     * @param pos is the position of the record
+     * @return String is the hexadecimal commit ID*/
+    private static String readRecord(RandomAccessFile index, long pos)
+            throws IOException {
+        byte[] record = new byte[RECORD];
+        index.seek(START + pos * RECORD);
+        index.readFully(record);
+        return ObjectStore.toHex(record);
+    }
+
+    /** Returns every commit ID in the index, in sorted order. An index
+     * written without a header is read as sorted records alone.
+     * @return the sorted set of IDs*/
+    private static TreeSet<String> readAll() {
+        byte[] contents = Utils.readContents(INDEX_FILE);
+        int start = contents.length % RECORD == 0 ? 0 : START;
+        TreeSet<String> result = new TreeSet<String>();
+        for (int i = start; i + RECORD <= contents.length; i += RECORD) {
+            result.add(ObjectStore.toHex(
+                    Arrays.copyOfRange(contents, i, i + RECORD)));
+        }
+        return result;
+    }
+
+    /** Atomically replaces the index with the given IDs, all sorted,
+     * and forces it to disk, so that later appends recorded by the
+     * Journal never land in the file it replaced.
+     * @param ids is the sorted set of commit IDs*/
+    private static void writeAll(TreeSet<String> ids) {
+        ByteBuffer contents = ByteBuffer.allocate(START
+                + ids.size() * RECORD);
+        contents.put(header(ids.size()));
+        for (String id: ids) {
+            contents.put(ObjectStore.toBytes(id));
+        }
+        try {
+            File temp = File.createTempFile(INDEX_FILE.getName(), ".lock",
+                    Main.GITLET_FOLDER);
+            Utils.writeContents(temp, contents.array());
+            Files.move(temp.toPath(), INDEX_FILE.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        Journal.force(INDEX_FILE);
+        Journal.force(Main.GITLET_FOLDER);
+    }
+
+    /** Returns the header of an index with the given number of sorted
+     * records.
+     * @param sorted is the number of sorted records
+     * @return byte[] is the header*/
+    private static byte[] header(int sorted) {
+        return ByteBuffer.allocate(START).put(MAGIC).put((byte) VERSION)
+                .putInt(sorted).array();
+    }
+
+    /** The index file of commit IDs. */
+    static final File INDEX_FILE = new File(".gitlet/commit-index");
+
+}
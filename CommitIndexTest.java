@@ -0,0 +1,129 @@
+package gitlet;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of abbreviated commit IDs resolved through the CommitIndex.
+ * @author Ria Vora*/
+public class CommitIndexTest {
+
+    /** Makes a repository with one commit of one file.*/
+    @Before
+    public void setUp() {
+        _repo = new TestRepo();
+        _repo.run("init");
+        commit("one");
+    }
+
+    /** Deletes the repository.*/
+    @After
+    public void tearDown() {
+        _repo.delete();
+    }
+
+    /** A commit is found by a short prefix of its ID. */
+    @Test
+    public void resolvesPrefix() {
+        String head = _repo.head();
+        commit("two");
+        _repo.run("checkout", head.substring(0, 6), "--", "f.txt");
+        assertEquals(0, _repo.status());
+        assertEquals("one", _repo.read("f.txt"));
+    }
+
+    /** A prefix matching no commit is reported as missing. */
+    @Test
+    public void missingPrefix() {
+        String head = _repo.head();
+        String other = head.charAt(0) == '0' ? "1" : "0";
+        assertEquals("No commit with that id exists.\n",
+                _repo.run("checkout", other + head.substring(1, 8), "--",
+                        "f.txt"));
+    }
+
+    /** A prefix matching two commits is reported as ambiguous. */
+    @Test
+    public void ambiguousPrefix() {
+        HashMap<Character, String> first = new HashMap<Character, String>();
+        String prefix = null;
+        for (int i = 0; prefix == null; i += 1) {
+            commit("c" + i);
+            String head = _repo.head();
+            if (first.put(head.charAt(0), head) != null) {
+                prefix = head.substring(0, 1);
+            }
+        }
+        assertEquals("Ambiguous commit id " + prefix + ".\n",
+                _repo.run("checkout", prefix, "--", "f.txt"));
+    }
+
+    /** New commits are appended to the unsorted tail of the index
+     * rather than rewriting it. */
+    @Test
+    public void appendsToTail() {
+        byte[] before = index();
+        commit("two");
+        byte[] after = index();
+        assertEquals(before.length + CommitIndex.RECORD, after.length);
+        assertArrayEquals(Arrays.copyOfRange(before, CommitIndex.START,
+                before.length), Arrays.copyOfRange(after, CommitIndex.START,
+                before.length));
+        assertTrue(sorted(after) < records(after));
+    }
+
+    /** An index written without a header by older versions of gitlet,
+     * which kept no journal, is given one, sorted, by the next
+     * command. */
+    @Test
+    public void upgradesHeaderlessIndex() {
+        String head = _repo.head();
+        byte[] old = index();
+        _repo.write(".gitlet/commit-index", Arrays.copyOfRange(old,
+                CommitIndex.START, old.length));
+        assertTrue(_repo.file(".gitlet/journal").delete());
+        _repo.run("checkout", head.substring(0, 6), "--", "f.txt");
+        assertEquals(0, _repo.status());
+        byte[] upgraded = index();
+        assertArrayEquals(CommitIndex.MAGIC, Arrays.copyOf(upgraded,
+                CommitIndex.MAGIC.length));
+        assertEquals(records(upgraded), sorted(upgraded));
+    }
+
+    /** Commits a new version of f.txt.
+     * @param message is the message and the new contents*/
+    private void commit(String message) {
+        _repo.write("f.txt", message);
+        _repo.run("add", "f.txt");
+        _repo.run("commit", message);
+    }
+
+    /** Returns the contents of the index.
+     * @return byte[] is the index*/
+    private byte[] index() {
+        return Utils.readContents(_repo.file(".gitlet/commit-index"));
+    }
+
+    /** Returns the number of sorted records in the given index.
+     * @param index is the contents of the index
+     * @return int is the number of sorted records*/
+    private static int sorted(byte[] index) {
+        return ByteBuffer.wrap(index).getInt(CommitIndex.MAGIC.length + 1);
+    }
+
+    /** Returns the number of records in the given index.
+     * @param index is the contents of the index
+     * @return int is the number of records*/
+    private static int records(byte[] index) {
+        return (index.length - CommitIndex.START) / CommitIndex.RECORD;
+    }
+
+    /** The repository. */
+    private TestRepo _repo;
+
+}
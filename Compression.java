@@ -0,0 +1,225 @@
+package gitlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/** Compression stores blobs, tree nodes and commits zlib-compressed.
+ * A compressed file starts with MAGIC and VERSION followed by the zlib
+ * stream of its contents. Every stored object is compressed, since
+ * ObjectStore.migrate compresses those written by older versions of
+ * gitlet, so contents without the header are corrupt rather than read
+ * as they are. IDs are always the SHA-1 of the uncompressed contents.
+ * Deflaters and Inflaters are pooled, since each holds native memory
+ * that is costly to set up, and the level is set by the
+ * GITLET_COMPRESSION environment variable.
+ * @author Ria Vora*/
+public class Compression {
+
+    /** The bytes a compressed file starts with. */
+    static final byte[] MAGIC = {'G', 'L', 'Z'};
+
+    /** The current version of the compressed format. */
+    static final int VERSION = 1;
+
+    /** The environment variable setting the compression level. */
+    static final String LEVEL_VARIABLE = "GITLET_COMPRESSION";
+
+    /** The size in bytes of the buffers files are streamed through. */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    /** Returns the level files are compressed at.
+     * @return int is the level, from 0 (stored) to 9 (smallest)*/
+    public static int level() {
+        String setting = System.getenv(LEVEL_VARIABLE);
+        if (setting != null) {
+            try {
+                int result = Integer.parseInt(setting.trim());
+                if (result >= Deflater.NO_COMPRESSION
+                        && result <= Deflater.BEST_COMPRESSION) {
+                    return result;
+                }
+            } catch (NumberFormatException excp) {
+                /* Reported below. */
+            }
+            throw new GitletException("Invalid " + LEVEL_VARIABLE
+                    + ": " + setting);
+        }
+        return Deflater.DEFAULT_COMPRESSION;
+    }
+
+    /** Returns the given contents compressed.
+     * @param contents is the uncompressed contents
+     * @return byte[] is the compressed file contents*/
+    public static byte[] deflate(byte[] contents) {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try {
+            deflate(new ByteArrayInputStream(contents), result);
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        return result.toByteArray();
+    }
+
+    /** Writes the contents of SOURCE compressed into DEST, streaming
+     * it so it is never held in memory whole.
+     * @param source is the uncompressed file
+     * @param dest is the file to be written*/
+    public static void deflate(File source, File dest) {
+        try (InputStream in = new FileInputStream(source);
+             OutputStream out = new FileOutputStream(dest)) {
+            deflate(in, out);
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Returns the uncompressed contents of the given file.
+     * @param file is the compressed file
+     * @return byte[] is its uncompressed contents*/
+    public static byte[] inflate(File file) {
+        try (InputStream in = open(file)) {
+            return in.readAllBytes();
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Returns the uncompressed form of the given file contents.
+     * @param contents is the compressed file contents
+     * @return byte[] is the uncompressed contents*/
+    public static byte[] inflate(byte[] contents) {
+        try (InputStream in = open(new ByteArrayInputStream(contents))) {
+            return in.readAllBytes();
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Writes the uncompressed contents of SOURCE into DEST,
+     * streaming it so it is never held in memory whole.
+     * @param source is the compressed file
+     * @param dest is the file to be written*/
+    public static void inflate(File source, File dest) {
+        try (InputStream in = open(source);
+             OutputStream out = new FileOutputStream(dest)) {
+            in.transferTo(out);
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Returns a stream of the uncompressed contents of the given
+     * file, which inflates only as much as is read from it.
+     * @param file is the compressed file
+     * @return InputStream is the stream, to be closed by the caller*/
+    public static InputStream open(File file) throws IOException {
+        return open(new FileInputStream(file));
+    }
+
+    /** Returns whether the given file contents are compressed.
+     * @param contents is the file contents
+     * @return boolean is whether they start with MAGIC and VERSION*/
+    public static boolean isCompressed(byte[] contents) {
+        if (contents.length <= MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i += 1) {
+            if (contents[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return contents[MAGIC.length] == VERSION;
+    }
+
+    /** Writes MAGIC, VERSION and the compressed contents of IN to OUT.
+     * @param in is the uncompressed contents
+     * @param out is where the compressed contents go*/
+    static void deflate(InputStream in, OutputStream out)
+            throws IOException {
+        out.write(MAGIC);
+        out.write(VERSION);
+        Deflater deflater = deflater();
+        try {
+            DeflaterOutputStream zip = new DeflaterOutputStream(out,
+                    deflater, BUFFER_SIZE);
+            in.transferTo(zip);
+            zip.finish();
+        } finally {
+            deflater.reset();
+            DEFLATERS.offer(deflater);
+        }
+    }
+
+    /** Returns a stream of the uncompressed contents of IN, after
+     * checking that it starts with MAGIC and VERSION.
+     * @param in is the stored contents
+     * @return InputStream is the stream, to be closed by the caller*/
+    private static InputStream open(InputStream in) throws IOException {
+        byte[] header = new byte[MAGIC.length + 1];
+        int read = in.readNBytes(header, 0, header.length);
+        if (read < header.length || !isCompressed(header)) {
+            in.close();
+            throw new GitletException("Corrupt compressed object.");
+        }
+        return new PooledInflaterInputStream(in);
+    }
+
+    /** Returns a pooled Deflater at the configured level.
+     * @return Deflater is the deflater*/
+    private static Deflater deflater() {
+        Deflater result = DEFLATERS.poll();
+        return result != null ? result : new Deflater(level());
+    }
+
+    /** Returns a pooled Inflater.
+     * @return Inflater is the inflater*/
+    private static Inflater inflater() {
+        Inflater result = INFLATERS.poll();
+        return result != null ? result : new Inflater();
+    }
+
+    /** An InflaterInputStream returning its Inflater to the pool when
+     * closed. */
+    private static class PooledInflaterInputStream
+            extends InflaterInputStream {
+
+        /** A stream inflating IN with a pooled Inflater.
+         * @param in is the compressed stream, past its header*/
+        PooledInflaterInputStream(InputStream in) {
+            super(in, inflater(), BUFFER_SIZE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!_closed) {
+                _closed = true;
+                super.close();
+                inf.reset();
+                INFLATERS.offer(inf);
+            }
+        }
+
+        /** Whether the stream has been closed. */
+        private boolean _closed;
+    }
+
+    /** The Deflaters not in use. */
+    private static final ConcurrentLinkedQueue<Deflater> DEFLATERS =
+        new ConcurrentLinkedQueue<Deflater>();
+
+    /** The Inflaters not in use. */
+    private static final ConcurrentLinkedQueue<Inflater> INFLATERS =
+        new ConcurrentLinkedQueue<Inflater>();
+
+}
@@ -0,0 +1,148 @@
+package gitlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of the zlib-compressed object format of Compression.
+ * @author Ria Vora*/
+public class CompressionTest {
+
+    /** Makes an empty scratch folder.*/
+    @Before
+    public void setUp() {
+        _repo = new TestRepo();
+    }
+
+    /** Deletes the scratch folder.*/
+    @After
+    public void tearDown() {
+        _repo.delete();
+    }
+
+    /** Contents of every size round-trip, after the header, and text
+     * shrinks. */
+    @Test
+    public void roundTrips() {
+        for (byte[] contents: new byte[][] {new byte[0], bytes("a"),
+                randomBytes(Compression.BUFFER_SIZE * 3 + 1), text()}) {
+            byte[] compressed = Compression.deflate(contents);
+            assertTrue(Compression.isCompressed(compressed));
+            assertArrayEquals(contents, Compression.inflate(compressed));
+        }
+        assertTrue(Compression.deflate(text()).length < text().length / 2);
+    }
+
+    /** Files are compressed and inflated as streams, and hashing a
+     * file while compressing it gives the ID of its contents. */
+    @Test
+    public void streamsFiles() {
+        byte[] contents = text();
+        _repo.write("source", contents);
+        Compression.deflate(_repo.file("source"), _repo.file("packed"));
+        Compression.inflate(_repo.file("packed"), _repo.file("out"));
+        assertArrayEquals(contents, Utils.readContents(_repo.file("out")));
+        assertEquals(Utils.sha1(contents), ObjectStore.hash(
+                _repo.file("source"), _repo.file("hashed")));
+        assertArrayEquals(contents, Compression.inflate(
+                _repo.file("hashed")));
+    }
+
+    /** An opened file is inflated only as far as it is read. */
+    @Test
+    public void opensLazily() throws IOException {
+        byte[] contents = text();
+        _repo.write("packed", Compression.deflate(contents));
+        try (InputStream in = Compression.open(_repo.file("packed"))) {
+            byte[] start = new byte[100];
+            assertEquals(start.length, in.readNBytes(start, 0,
+                    start.length));
+            assertArrayEquals(Arrays.copyOf(contents, start.length),
+                    start);
+        }
+    }
+
+    /** Contents without the header, with an unknown version, or cut
+     * short are corrupt rather than read as they are. */
+    @Test
+    public void refusesCorrupt() {
+        byte[] compressed = Compression.deflate(text());
+        byte[] newer = compressed.clone();
+        newer[Compression.MAGIC.length] = Compression.VERSION + 1;
+        byte[][] corrupt = {text(), bytes("GL"), newer,
+                            Arrays.copyOf(compressed, compressed.length / 2)};
+        assertFalse(Compression.isCompressed(text()));
+        for (byte[] contents: corrupt) {
+            try {
+                Compression.inflate(contents);
+                fail("Read corrupt contents.");
+            } catch (GitletException excp) {
+                /* Expected. */
+            }
+        }
+    }
+
+    /** GITLET_COMPRESSION sets the level objects are stored at. */
+    @Test
+    public void setsLevel() {
+        long[] sizes = new long[2];
+        String[] levels = {"0", "9"};
+        _repo.run("init");
+        _repo.write("t.txt", text());
+        for (int i = 0; i < levels.length; i += 1) {
+            _repo.setEnvironment(Compression.LEVEL_VARIABLE, levels[i]);
+            _repo.run("add", "t.txt");
+            File staged = _repo.file(".gitlet/stage/" + Utils.sha1(text()));
+            sizes[i] = staged.length();
+            assertArrayEquals(text(), Compression.inflate(staged));
+            _repo.run("rm", "t.txt");
+        }
+        assertTrue(sizes[0] > text().length);
+        assertTrue(sizes[1] < text().length / 2);
+    }
+
+    /** Returns the UTF-8 bytes of the given string.
+     * @param s is the string
+     * @return byte[] is its bytes*/
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Returns the given number of random bytes, which do not
+     * compress.
+     * @param size is the number of bytes
+     * @return byte[] is the bytes*/
+    private static byte[] randomBytes(int size) {
+        byte[] result = new byte[size];
+        new Random(size).nextBytes(result);
+        return result;
+    }
+
+    /** Returns some lines of text like source code, which compress
+     * well.
+     * @return byte[] is the text*/
+    private static byte[] text() {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        for (int i = 0; i < TEXT_LINES; i += 1) {
+            result.writeBytes(bytes("    int value" + i + " = compute(value"
+                    + (i / 2) + ", " + (i % 7) + ");\n"));
+        }
+        return result.toByteArray();
+    }
+
+    /** The number of lines of text compressed. */
+    private static final int TEXT_LINES = 5000;
+
+    /** The scratch folder. */
+    private TestRepo _repo;
+
+}
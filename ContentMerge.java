@@ -0,0 +1,197 @@
+package gitlet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/** ContentMerge merges two versions of a file line by line against
+ * the version at their split point, in the manner of diff3. Regions
+ * changed in only one version are taken from that version, and only
+ * regions changed differently in both are written as conflicts. Files
+ * are handled as raw bytes, split after each newline.
+ * @author Ria Vora*/
+public class ContentMerge {
+
+    /** Starts a conflict region, followed by the current branch. */
+    static final byte[] HEAD_MARKER =
+        "<<<<<<< HEAD\n".getBytes(StandardCharsets.UTF_8);
+
+    /** Separates the current and given branch in a conflict region. */
+    static final byte[] SEPARATOR =
+        "=======\n".getBytes(StandardCharsets.UTF_8);
+
+    /** Ends a conflict region, after the given branch. */
+    static final byte[] END_MARKER =
+        ">>>>>>>\n".getBytes(StandardCharsets.UTF_8);
+
+    /** Merges the given versions of a file and writes the result.
+     * @param base is the contents at the split point
+     * @param head is the contents in the current branch
+     * @param other is the contents in the given branch
+     * @param out is the stream the merged contents are written to
+     * @return boolean is whether there was a merge conflict*/
+    public static boolean merge(byte[] base, byte[] head, byte[] other,
+                                OutputStream out) throws IOException {
+        HashMap<Line, Integer> ids = new HashMap<Line, Integer>();
+        ContentMerge o = new ContentMerge(base, ids);
+        ContentMerge a = new ContentMerge(head, ids);
+        ContentMerge b = new ContentMerge(other, ids);
+        int[] matchA = Diff.match(o._lines, a._lines);
+        int[] matchB = Diff.match(o._lines, b._lines);
+        boolean conflict = false;
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < o.size() || j < a.size() || k < b.size()) {
+            if (i < o.size() && matchA[i] == j && matchB[i] == k) {
+                o.write(i, i + 1, out);
+                i += 1;
+                j += 1;
+                k += 1;
+                continue;
+            }
+            int next = i;
+            while (next < o.size()
+                    && (matchA[next] < 0 || matchB[next] < 0)) {
+                next += 1;
+            }
+            int nextA = next < o.size() ? matchA[next] : a.size();
+            int nextB = next < o.size() ? matchB[next] : b.size();
+            if (a.same(j, nextA, o, i, next)) {
+                b.write(k, nextB, out);
+            } else if (b.same(k, nextB, o, i, next)
+                    || a.same(j, nextA, b, k, nextB)) {
+                a.write(j, nextA, out);
+            } else {
+                out.write(HEAD_MARKER);
+                a.write(j, nextA, out);
+                out.write(SEPARATOR);
+                b.write(k, nextB, out);
+                out.write(END_MARKER);
+                conflict = true;
+            }
+            i = next;
+            j = nextA;
+            k = nextB;
+        }
+        return conflict;
+    }
+
+    /** Splits the given contents into lines, numbering each distinct
+     * line through IDS.
+     * @param contents is the contents of one version of the file
+     * @param ids maps each distinct line to its number*/
+    private ContentMerge(byte[] contents, HashMap<Line, Integer> ids) {
+        _contents = contents;
+        ArrayList<Integer> starts = new ArrayList<Integer>();
+        for (int pos = 0; pos < contents.length; pos += 1) {
+            if (pos == 0 || contents[pos - 1] == '\n') {
+                starts.add(pos);
+            }
+        }
+        _starts = new int[starts.size() + 1];
+        _lines = new int[starts.size()];
+        for (int n = 0; n < starts.size(); n += 1) {
+            _starts[n] = starts.get(n);
+        }
+        _starts[starts.size()] = contents.length;
+        for (int n = 0; n < _lines.length; n += 1) {
+            Line line = new Line(contents, _starts[n], _starts[n + 1]);
+            Integer id = ids.get(line);
+            if (id == null) {
+                id = ids.size();
+                ids.put(line, id);
+            }
+            _lines[n] = id;
+        }
+    }
+
+    /** Returns the number of lines in this version.
+     * @return int is the number of lines*/
+    private int size() {
+        return _lines.length;
+    }
+
+    /** Writes lines FROM up to TO of this version.
+     * @param from is the first line written
+     * @param to is the line after the last line written
+     * @param out is the stream written to*/
+    private void write(int from, int to, OutputStream out)
+            throws IOException {
+        out.write(_contents, _starts[from], _starts[to] - _starts[from]);
+    }
+
+    /** Returns whether lines FROM up to TO of this version equal lines
+     * OTHERFROM up to OTHERTO of OTHER.
+     * @param from is the first line of this version
+     * @param to is the line after the last line of this version
+     * @param other is the other version
+     * @param otherFrom is the first line of the other version
+     * @param otherTo is the line after the last line of the other version
+     * @return boolean is whether the lines are equal*/
+    private boolean same(int from, int to, ContentMerge other,
+                         int otherFrom, int otherTo) {
+        return Arrays.equals(_lines, from, to,
+                other._lines, otherFrom, otherTo);
+    }
+
+    /** A line of a file, compared by its bytes. */
+    private static class Line {
+
+        /** A line made of bytes START up to END of CONTENTS.
+         * @param contents is the contents of the file
+         * @param start is the first byte of the line
+         * @param end is the byte after the line*/
+        Line(byte[] contents, int start, int end) {
+            _contents = contents;
+            _start = start;
+            _end = end;
+            int hash = 1;
+            for (int i = start; i < end; i += 1) {
+                hash = 31 * hash + contents[i];
+            }
+            _hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Line)) {
+                return false;
+            }
+            Line other = (Line) obj;
+            return Arrays.equals(_contents, _start, _end,
+                    other._contents, other._start, other._end);
+        }
+
+        @Override
+        public int hashCode() {
+            return _hash;
+        }
+
+        /** The contents of the file holding this line. */
+        private final byte[] _contents;
+
+        /** The first byte of this line. */
+        private final int _start;
+
+        /** The byte after this line. */
+        private final int _end;
+
+        /** The hash code of the bytes of this line. */
+        private final int _hash;
+    }
+
+    /** The contents of this version of the file. */
+    private byte[] _contents;
+
+    /** The byte each line starts at, followed by the length of
+     * _contents. */
+    private int[] _starts;
+
+    /** The number of each line, equal for equal lines. */
+    private int[] _lines;
+
+}
@@ -0,0 +1,159 @@
+package gitlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of the line matching of Diff and the line-by-line merges of
+ * ContentMerge.
+ * @author Ria Vora*/
+public class ContentMergeTest {
+
+    /** The matching is a longest common subsequence: matched elements
+     * are equal and in order, and as many as dynamic programming finds,
+     * for many random pairs of sequences. */
+    @Test
+    public void longestMatching() {
+        Random random = new Random(0);
+        for (int trial = 0; trial < 2000; trial += 1) {
+            int[] a = randomSequence(random);
+            int[] b = randomSequence(random);
+            int[] match = Diff.match(a, b);
+            assertEquals(a.length, match.length);
+            int matched = 0;
+            int last = -1;
+            for (int i = 0; i < a.length; i += 1) {
+                if (match[i] >= 0) {
+                    assertTrue(match[i] > last);
+                    assertEquals(a[i], b[match[i]]);
+                    last = match[i];
+                    matched += 1;
+                }
+            }
+            assertEquals(lcs(a, b), matched);
+        }
+    }
+
+    /** Equal, empty and disjoint sequences match as expected. */
+    @Test
+    public void edgeMatchings() {
+        assertArrayEquals(new int[] {0, 1, 2},
+                Diff.match(new int[] {5, 6, 7}, new int[] {5, 6, 7}));
+        assertArrayEquals(new int[0], Diff.match(new int[0],
+                new int[] {1}));
+        assertArrayEquals(new int[] {-1, -1},
+                Diff.match(new int[] {1, 2}, new int[0]));
+        assertArrayEquals(new int[] {-1, -1},
+                Diff.match(new int[] {1, 2}, new int[] {3, 4}));
+    }
+
+    /** Long files with few edits are matched quickly, in space linear
+     * in their length. */
+    @Test(timeout = 10000)
+    public void longSparseEdits() {
+        int n = 300000;
+        int[] a = new int[n];
+        int[] b = new int[n];
+        for (int i = 0; i < n; i += 1) {
+            a[i] = i;
+            b[i] = i % 50000 == 0 ? -1 - i : i;
+        }
+        int[] match = Diff.match(a, b);
+        int unmatched = 0;
+        for (int m: match) {
+            unmatched += m < 0 ? 1 : 0;
+        }
+        assertEquals(n / 50000, unmatched);
+    }
+
+    /** Changes to different lines in each branch merge cleanly. */
+    @Test
+    public void separateChanges() throws IOException {
+        assertMerge("A\nb\nc\nd\nE\n", false,
+                "a\nb\nc\nd\ne\n", "A\nb\nc\nd\ne\n", "a\nb\nc\nd\nE\n");
+    }
+
+    /** The same change in both branches is taken once. */
+    @Test
+    public void sameChange() throws IOException {
+        assertMerge("a\nX\nc\n", false,
+                "a\nb\nc\n", "a\nX\nc\n", "a\nX\nc\n");
+    }
+
+    /** Lines deleted in one branch and kept in the other are deleted,
+     * and lines inserted in one are inserted. */
+    @Test
+    public void deleteAndInsert() throws IOException {
+        assertMerge("a\nc\nd\nnew\n", false,
+                "a\nb\nc\nd\n", "a\nc\nd\n", "a\nb\nc\nd\nnew\n");
+    }
+
+    /** Lines changed differently in both branches conflict, marking
+     * only the region that differs. */
+    @Test
+    public void conflict() throws IOException {
+        assertMerge("a\n<<<<<<< HEAD\nhead\n=======\nother\n>>>>>>>\nc\n",
+                true, "a\nb\nc\n", "a\nhead\nc\n", "a\nother\nc\n");
+    }
+
+    /** A last line without a newline is merged like any other. */
+    @Test
+    public void noFinalNewline() throws IOException {
+        assertMerge("A\nb\nC", false, "a\nb\nc", "A\nb\nc", "a\nb\nC");
+    }
+
+    /** Asserts that merging the given versions gives EXPECTED, and
+     * whether it conflicts.
+     * @param expected is the expected merged contents
+     * @param conflict is whether a conflict is expected
+     * @param base is the contents at the split point
+     * @param head is the contents in the current branch
+     * @param other is the contents in the given branch*/
+    private static void assertMerge(String expected, boolean conflict,
+                                    String base, String head,
+                                    String other) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(conflict, ContentMerge.merge(bytes(base), bytes(head),
+                bytes(other), out));
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+    }
+
+    /** Returns the UTF-8 bytes of the given string.
+     * @param s is the string
+     * @return byte[] is its bytes*/
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Returns a short random sequence over a small alphabet.
+     * @param random is the source of randomness
+     * @return int[] is the sequence*/
+    private static int[] randomSequence(Random random) {
+        int[] result = new int[random.nextInt(30)];
+        for (int i = 0; i < result.length; i += 1) {
+            result[i] = random.nextInt(4);
+        }
+        return result;
+    }
+
+    /** Returns the length of the longest common subsequence of the two
+     * given sequences, by dynamic programming.
+     * @param a is the first sequence
+     * @param b is the second sequence
+     * @return int is the length*/
+    private static int lcs(int[] a, int[] b) {
+        int[][] table = new int[a.length + 1][b.length + 1];
+        for (int i = a.length - 1; i >= 0; i -= 1) {
+            for (int j = b.length - 1; j >= 0; j -= 1) {
+                table[i][j] = a[i] == b[j] ? table[i + 1][j + 1] + 1
+                        : Math.max(table[i + 1][j], table[i][j + 1]);
+            }
+        }
+        return table[0][0];
+    }
+
+}
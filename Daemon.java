@@ -0,0 +1,236 @@
+package gitlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/** Daemon is a long-lived gitlet server for one repository, started by
+ * the daemon command in the repository's folder. It listens on a
+ * Unix-domain socket in the .gitlet folder and runs each command sent
+ * to it through Main.run, one at a time, so the JVM, its compiled code
+ * and the repository state and object caches stay warm between
+ * commands, while the Watcher keeps track of the working tree.
+ * Main.main forwards its command to the daemon when one is running
+ * for the current folder, and runs it in-process otherwise.
+ * @author Ria Vora*/
+public class Daemon {
+
+    /** The status the daemon answers a client from another folder
+     * with, telling it to run the command in-process. */
+    static final int WRONG_FOLDER = -1;
+
+    /** Sends the given command to the daemon of the repository in the
+     * current folder and writes its output.
+     * @param args is user input of {command, operand, ...}
+     * @return Integer is the command's exit status, or null if no
+     * daemon is running here*/
+    public static Integer forward(String[] args) {
+        if (!SOCKET_FILE.exists()) {
+            return null;
+        }
+        try (SocketChannel channel = connect()) {
+            DataOutputStream out = new DataOutputStream(
+                    Channels.newOutputStream(channel));
+            out.writeUTF(new File(".").getCanonicalPath());
+            out.writeInt(args.length);
+            for (String arg: args) {
+                out.writeUTF(arg);
+            }
+            out.flush();
+            DataInputStream in = new DataInputStream(
+                    Channels.newInputStream(channel));
+            int status = in.readInt();
+            if (status == WRONG_FOLDER) {
+                return null;
+            }
+            System.out.write(readBlock(in));
+            System.out.flush();
+            System.err.write(readBlock(in));
+            System.err.flush();
+            return status;
+        } catch (IOException excp) {
+            return null;
+        }
+    }
+
+    /** The daemon command, which serves the repository in the current
+     * folder until it is sent {'daemon', 'stop'}.
+     * @param args is user input of {'daemon'} or {'daemon', 'stop'}*/
+    public static void daemon(String[] args) throws IOException {
+        Main.checkInit();
+        if (args.length == 2 && args[1].equals("stop")) {
+            Main.exitWithError("No daemon is running.", 0);
+        }
+        Main.validateNumArgs("daemon", args, 1);
+        if (SOCKET_FILE.exists()) {
+            try {
+                connect().close();
+                Main.exitWithError("A daemon is already running.", 0);
+            } catch (IOException excp) {
+                SOCKET_FILE.delete();
+            }
+        }
+        String folder = new File(".").getCanonicalPath();
+        try (ServerSocketChannel server = ServerSocketChannel.open(
+                StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(SOCKET_FILE.toPath()));
+            SOCKET_FILE.deleteOnExit();
+            Watcher.start();
+            boolean serving = true;
+            while (serving) {
+                try (SocketChannel channel = server.accept()) {
+                    serving = serve(channel, folder);
+                } catch (IOException excp) {
+                    /* The client went away; wait for the next. */
+                }
+            }
+        } finally {
+            SOCKET_FILE.delete();
+        }
+    }
+
+    /** Returns whether commands are being run by the daemon, in which
+     * case errors must not exit the JVM.
+     * @return boolean is whether the daemon is running a command*/
+    public static boolean serving() {
+        return _serving;
+    }
+
+    /** Runs the command sent over the given connection and sends back
+     * its exit status and output.
+     * @param channel is the connection to the client
+     * @param folder is the canonical pathway of the repository
+     * @return boolean is whether to keep serving*/
+    private static boolean serve(SocketChannel channel, String folder)
+            throws IOException {
+        DataInputStream in = new DataInputStream(
+                Channels.newInputStream(channel));
+        DataOutputStream out = new DataOutputStream(
+                Channels.newOutputStream(channel));
+        String clientFolder = in.readUTF();
+        String[] args = new String[in.readInt()];
+        for (int i = 0; i < args.length; i += 1) {
+            args[i] = in.readUTF();
+        }
+        if (!clientFolder.equals(folder)) {
+            out.writeInt(WRONG_FOLDER);
+            out.flush();
+            return true;
+        }
+        boolean stop = args.length == 2 && args[0].equals("daemon")
+                && args[1].equals("stop");
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        int status = 0;
+        if (!stop) {
+            status = run(args, stdout, stderr);
+        }
+        out.writeInt(status);
+        writeBlock(out, stdout.toByteArray());
+        writeBlock(out, stderr.toByteArray());
+        out.flush();
+        return !stop;
+    }
+
+    /** Runs the given command as Main.main would, capturing its output
+     * and turning the errors that would end the JVM into a status.
+     * @param args is user input of {command, operand, ...}
+     * @param stdout is where its standard output goes
+     * @param stderr is where its error output goes
+     * @return int is its exit status*/
+    private static int run(String[] args, ByteArrayOutputStream stdout,
+                           ByteArrayOutputStream stderr) {
+        PrintStream oldOut = System.out;
+        PrintStream oldErr = System.err;
+        System.setOut(new PrintStream(stdout, true));
+        System.setErr(new PrintStream(stderr, true));
+        _serving = true;
+        try {
+            Watcher.sync();
+            if (args.length > 0 && args[0].equals("daemon")) {
+                Main.exitWithError("A daemon is already running.", 0);
+            }
+            Main.run(args);
+            return 0;
+        } catch (Exit excp) {
+            return excp._status;
+        } catch (Exception | Error excp) {
+            Journal.abort();
+            System.err.print("Exception in thread \"main\" ");
+            excp.printStackTrace();
+            return 1;
+        } finally {
+            RepoLock.release();
+            _serving = false;
+            System.out.flush();
+            System.err.flush();
+            System.setOut(oldOut);
+            System.setErr(oldErr);
+        }
+    }
+
+    /** Returns a connection to the daemon's socket.
+     * @return SocketChannel is the connection*/
+    private static SocketChannel connect() throws IOException {
+        SocketChannel result = SocketChannel.open(
+                StandardProtocolFamily.UNIX);
+        try {
+            result.connect(UnixDomainSocketAddress.of(SOCKET_FILE.toPath()));
+        } catch (IOException excp) {
+            result.close();
+            throw excp;
+        }
+        return result;
+    }
+
+    /** Writes the given bytes with their length first.
+     * @param out is the stream written to
+     * @param bytes is the bytes*/
+    private static void writeBlock(DataOutputStream out, byte[] bytes)
+            throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /** Reads bytes written by writeBlock.
+     * @param in is the stream read from
+     * @return byte[] is the bytes*/
+    private static byte[] readBlock(DataInputStream in) throws IOException {
+        byte[] result = new byte[in.readInt()];
+        in.readFully(result);
+        return result;
+    }
+
+    /** Thrown in place of exiting the JVM when a command run by the
+     * daemon ends with an error. */
+    static class Exit extends RuntimeException {
+
+        /** The version of the serialized form of an Exit. */
+        private static final long serialVersionUID = 1L;
+
+        /** An Exit with the given exit status.
+         * @param status is the exit status*/
+        Exit(int status) {
+            super(null, null, false, false);
+            _status = status;
+        }
+
+        /** The exit status. */
+        private final int _status;
+    }
+
+    /** Whether the daemon is running a command. */
+    private static volatile boolean _serving;
+
+    /** The socket the daemon listens on. */
+    static final File SOCKET_FILE = new File(".gitlet/daemon.sock");
+
+}
@@ -0,0 +1,122 @@
+package gitlet;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of running commands through a Daemon.
+ * @author Ria Vora*/
+public class DaemonTest {
+
+    /** Makes two repositories, one with a daemon running.*/
+    @Before
+    public void setUp() {
+        _plain = new TestRepo();
+        _served = new TestRepo();
+        _plain.run("init");
+        _served.run("init");
+        _daemon = _served.daemon();
+        assertTrue(_served.file(Daemon.SOCKET_FILE.getPath()).exists());
+    }
+
+    /** Stops the daemon and deletes the repositories.*/
+    @After
+    public void tearDown() throws InterruptedException {
+        if (_daemon.isAlive()) {
+            _served.run("daemon", "stop");
+            if (!_daemon.waitFor(DAEMON_STOP, TimeUnit.SECONDS)) {
+                _daemon.destroyForcibly().waitFor();
+            }
+        }
+        _plain.delete();
+        _served.delete();
+    }
+
+    /** A session of commands, including failing ones, prints the same
+     * and exits the same through the daemon as in-process. */
+    @Test
+    public void matchesInProcess() {
+        String[][] session = {
+            {"status"}, {"add", "missing.txt"}, {"commit", "nothing"},
+            {"add", "a.txt", "d/b.txt"}, {"status"}, {"commit", "one"},
+            {"branch", "other"}, {"branch", "other"}, {"rm", "a.txt"},
+            {"status"}, {"commit", "two"}, {"checkout", "other"},
+            {"checkout", "nowhere"}, {"checkout", "--", "a.txt"},
+            {"merge", "master"}, {"status"}, {"find", "one"},
+            {"rm", "missing.txt"}, {"nonsense"},
+        };
+        for (TestRepo repo: new TestRepo[] {_plain, _served}) {
+            repo.write("a.txt", "a");
+            repo.write("d/b.txt", "b");
+        }
+        for (String[] command: session) {
+            String name = String.join(" ", command);
+            String expected = _plain.run(command);
+            int status = _plain.status();
+            assertEquals(name, expected.replaceAll(ID, "ID"),
+                    _served.run(command).replaceAll(ID, "ID"));
+            assertEquals(name, status, _served.status());
+        }
+        assertTrue(_daemon.isAlive());
+    }
+
+    /** The daemon sees commits made by another JVM while it ran, since
+     * it revalidates what it cached when it takes the lock. */
+    @Test
+    public void seesOtherWriters() {
+        _served.write("a.txt", "a");
+        _served.run("add", "a.txt");
+        _served.run("commit", "served");
+        assertTrue(_served.run("log").contains("served"));
+        File socket = _served.file(Daemon.SOCKET_FILE.getPath());
+        File hidden = _served.file(".gitlet/hidden.sock");
+        assertTrue(socket.renameTo(hidden));
+        _served.write("a.txt", "changed");
+        _served.write("new/b.txt", "b");
+        _served.run("add", "a.txt", "new/b.txt");
+        _served.run("commit", "in-process");
+        assertTrue(hidden.renameTo(socket));
+        String log = _served.run("log");
+        assertTrue(log.startsWith("===\ncommit "));
+        assertTrue(log.indexOf("in-process") < log.indexOf("served"));
+        _served.write("new/c.txt", "c");
+        _served.run("add", "new/c.txt");
+        _served.run("commit", "served again");
+        assertTrue(_served.file("new/b.txt").delete());
+        _served.run("checkout", "--", "new/b.txt");
+        assertEquals("b", _served.read("new/b.txt"));
+        assertTrue(_daemon.isAlive());
+    }
+
+    /** Only one daemon serves a repository, and it stops when told. */
+    @Test
+    public void stops() throws InterruptedException {
+        assertEquals("A daemon is already running.\n",
+                _served.run("daemon"));
+        assertEquals("", _served.run("daemon", "stop"));
+        assertTrue(_daemon.waitFor(DAEMON_STOP, TimeUnit.SECONDS));
+        assertFalse(_served.file(Daemon.SOCKET_FILE.getPath()).exists());
+        assertEquals("No daemon is running.\n",
+                _served.run("daemon", "stop"));
+    }
+
+    /** A full commit ID, which differs between the repositories. */
+    private static final String ID = "[0-9a-f]{40}";
+
+    /** The number of seconds to wait for a daemon to stop. */
+    private static final int DAEMON_STOP = 10;
+
+    /** The repository in which commands run in-process. */
+    private TestRepo _plain;
+
+    /** The repository in which commands run through the daemon. */
+    private TestRepo _served;
+
+    /** The daemon. */
+    private Process _daemon;
+
+}
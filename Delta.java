@@ -0,0 +1,154 @@
+package gitlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+/** Delta encodes one version of a file against another as a list of
+ * instructions that either copy a run of bytes from the base version
+ * or insert new bytes. Matches are found by indexing the base in
+ * BLOCK-byte blocks and looking each block of the target up in that
+ * index, then extending the match in both directions.
+ * @author Ria Vora*/
+public class Delta {
+
+    /** The instruction copying a run of bytes from the base. */
+    static final int COPY = 0;
+
+    /** The instruction inserting new bytes. */
+    static final int INSERT = 1;
+
+    /** The width in bytes of the blocks the base is indexed by. */
+    static final int BLOCK = 16;
+
+    /** Returns the delta turning BASE into TARGET.
+     * @param base is the base version
+     * @param target is the version to be encoded
+     * @return byte[] is the delta*/
+    public static byte[] create(byte[] base, byte[] target) {
+        HashMap<Integer, Integer> blocks = new HashMap<Integer, Integer>();
+        for (int i = 0; i + BLOCK <= base.length; i += BLOCK) {
+            blocks.putIfAbsent(hash(base, i), i);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            CommitCodec.writeVarint(out, base.length);
+            CommitCodec.writeVarint(out, target.length);
+            int inserted = 0;
+            int pos = 0;
+            while (pos + BLOCK <= target.length) {
+                Integer start = blocks.get(hash(target, pos));
+                if (start == null
+                        || !matches(base, start, target, pos, BLOCK)) {
+                    pos += 1;
+                    continue;
+                }
+                int from = start;
+                int to = pos;
+                while (from > 0 && to > inserted
+                        && base[from - 1] == target[to - 1]) {
+                    from -= 1;
+                    to -= 1;
+                }
+                int end = pos + BLOCK;
+                int baseEnd = start + BLOCK;
+                while (end < target.length && baseEnd < base.length
+                        && base[baseEnd] == target[end]) {
+                    end += 1;
+                    baseEnd += 1;
+                }
+                writeInsert(out, target, inserted, to);
+                out.writeByte(COPY);
+                CommitCodec.writeVarint(out, from);
+                CommitCodec.writeVarint(out, end - to);
+                inserted = end;
+                pos = end;
+            }
+            writeInsert(out, target, inserted, target.length);
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Returns the version encoded by DELTA against BASE.
+     * @param base is the base version
+     * @param delta is the delta
+     * @return byte[] is the encoded version*/
+    public static byte[] apply(byte[] base, byte[] delta) {
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(delta))) {
+            if (CommitCodec.readVarint(in) != base.length) {
+                throw new GitletException("Delta base does not match.");
+            }
+            byte[] result = new byte[CommitCodec.readVarint(in)];
+            int pos = 0;
+            while (pos < result.length) {
+                int op = in.readUnsignedByte();
+                if (op == COPY) {
+                    int from = CommitCodec.readVarint(in);
+                    int length = CommitCodec.readVarint(in);
+                    System.arraycopy(base, from, result, pos, length);
+                    pos += length;
+                } else if (op == INSERT) {
+                    int length = CommitCodec.readVarint(in);
+                    in.readFully(result, pos, length);
+                    pos += length;
+                } else {
+                    throw new GitletException("Corrupt delta.");
+                }
+            }
+            return result;
+        } catch (IOException | IndexOutOfBoundsException excp) {
+            throw new GitletException("Corrupt delta.");
+        }
+    }
+
+    /** Writes the instruction inserting the bytes of TARGET from FROM
+     * up to TO, if there are any.
+     * @param out is where the delta goes
+     * @param target is the version being encoded
+     * @param from is the first byte to insert
+     * @param to is the end of the bytes to insert*/
+    private static void writeInsert(DataOutputStream out, byte[] target,
+                                    int from, int to) throws IOException {
+        if (from < to) {
+            out.writeByte(INSERT);
+            CommitCodec.writeVarint(out, to - from);
+            out.write(target, from, to - from);
+        }
+    }
+
+    /** Returns the hash of the block of CONTENTS starting at START.
+     * @param contents is the contents
+     * @param start is the start of the block
+     * @return int is the hash*/
+    private static int hash(byte[] contents, int start) {
+        int result = 0;
+        for (int i = start; i < start + BLOCK; i += 1) {
+            result = 31 * result + contents[i];
+        }
+        return result;
+    }
+
+    /** Returns whether LENGTH bytes of A from I equal those of B from J.
+     * @param a is the first array
+     * @param i is the start in the first array
+     * @param b is the second array
+     * @param j is the start in the second array
+     * @param length is the number of bytes
+     * @return boolean is whether they are equal*/
+    private static boolean matches(byte[] a, int i, byte[] b, int j,
+                                   int length) {
+        for (int k = 0; k < length; k += 1) {
+            if (a[i + k] != b[j + k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,160 @@
+package gitlet;
+
+import java.util.Arrays;
+
+/** Diff finds a shortest edit script between two sequences of lines
+ * with the linear space variant of Myers' algorithm, where each line is
+ * given as an int that is equal for equal lines.
+ * @author Ria Vora*/
+public class Diff {
+
+    /** Returns, for each line of A, the index of the line of B it is
+     * kept as by a shortest edit script from A to B, or -1 if it is
+     * deleted. Matched indices are strictly increasing.
+     * @param a is the lines of the first sequence
+     * @param b is the lines of the second sequence
+     * @return int[] is the matching from A to B*/
+    public static int[] match(int[] a, int[] b) {
+        int n = a.length;
+        int m = b.length;
+        int[] result = new int[n];
+        Arrays.fill(result, -1);
+        int prefix = 0;
+        while (prefix < n && prefix < m && a[prefix] == b[prefix]) {
+            result[prefix] = prefix;
+            prefix += 1;
+        }
+        int suffix = 0;
+        while (suffix < n - prefix && suffix < m - prefix
+                && a[n - 1 - suffix] == b[m - 1 - suffix]) {
+            result[n - 1 - suffix] = m - 1 - suffix;
+            suffix += 1;
+        }
+        int max = (n + m + 1) / 2 + 1;
+        int[] forward = new int[2 * max + 3];
+        int[] backward = new int[2 * max + 3];
+        myers(a, prefix, n - suffix, b, prefix, m - suffix, result,
+                forward, backward);
+        return result;
+    }
+
+    /** Fills RESULT with a shortest edit script from A[ALO:AHI] to
+     * B[BLO:BHI] in linear space: the ranges are trimmed of the lines
+     * they begin and end with in common, then split at the middle
+     * snake of a shortest path, the run of matches that a search from
+     * both ends meets on, and each half is matched in turn.
+     * @param a is the lines of the first sequence
+     * @param aLo is the start of the range of A
+     * @param aHi is the end of the range of A
+     * @param b is the lines of the second sequence
+     * @param bLo is the start of the range of B
+     * @param bHi is the end of the range of B
+     * @param result is the matching from A to B
+     * @param forward is the furthest reaching paths from the start
+     * @param backward is the furthest reaching paths from the end*/
+    private static void myers(int[] a, int aLo, int aHi, int[] b, int bLo,
+                              int bHi, int[] result, int[] forward,
+                              int[] backward) {
+        while (aLo < aHi && bLo < bHi && a[aLo] == b[bLo]) {
+            result[aLo] = bLo;
+            aLo += 1;
+            bLo += 1;
+        }
+        while (aLo < aHi && bLo < bHi && a[aHi - 1] == b[bHi - 1]) {
+            aHi -= 1;
+            bHi -= 1;
+            result[aHi] = bHi;
+        }
+        if (aLo == aHi || bLo == bHi) {
+            return;
+        }
+        int[] snake = middleSnake(a, aLo, aHi, b, bLo, bHi, forward,
+                backward);
+        myers(a, aLo, snake[0], b, bLo, snake[1], result, forward,
+                backward);
+        for (int x = snake[0]; x < snake[2]; x += 1) {
+            result[x] = snake[1] + x - snake[0];
+        }
+        myers(a, snake[2], aHi, b, snake[3], bHi, result, forward,
+                backward);
+    }
+
+    /** Returns the middle snake of a shortest edit script from
+     * A[ALO:AHI] to B[BLO:BHI], found by extending the furthest
+     * reaching paths with D edits from the start and from the end,
+     * for each D in turn, until a path from one end overlaps a path
+     * from the other. Both ranges are non-empty and differ in their
+     * first and last lines.
+     * @param a is the lines of the first sequence
+     * @param aLo is the start of the range of A
+     * @param aHi is the end of the range of A
+     * @param b is the lines of the second sequence
+     * @param bLo is the start of the range of B
+     * @param bHi is the end of the range of B
+     * @param forward is the furthest reaching paths from the start
+     * @param backward is the furthest reaching paths from the end
+     * @return int[] is the start and end of the snake in A and B, as
+     * {start in A, start in B, end in A, end in B}*/
+    private static int[] middleSnake(int[] a, int aLo, int aHi, int[] b,
+                                     int bLo, int bHi, int[] forward,
+                                     int[] backward) {
+        int n = aHi - aLo;
+        int m = bHi - bLo;
+        int delta = n - m;
+        boolean odd = (delta & 1) != 0;
+        int off = forward.length / 2;
+        forward[off + 1] = 0;
+        backward[off + 1] = 0;
+        for (int d = 0; d <= (n + m + 1) / 2; d += 1) {
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d
+                        && forward[off + k - 1] < forward[off + k + 1])) {
+                    x = forward[off + k + 1];
+                } else {
+                    x = forward[off + k - 1] + 1;
+                }
+                int y = x - k;
+                int startX = x;
+                int startY = y;
+                while (x < n && y < m && a[aLo + x] == b[bLo + y]) {
+                    x += 1;
+                    y += 1;
+                }
+                forward[off + k] = x;
+                int c = delta - k;
+                if (odd && c >= -(d - 1) && c <= d - 1
+                        && x + backward[off + c] >= n) {
+                    return new int[] {aLo + startX, bLo + startY,
+                        aLo + x, bLo + y};
+                }
+            }
+            for (int c = -d; c <= d; c += 2) {
+                int x;
+                if (c == -d || (c != d
+                        && backward[off + c - 1] < backward[off + c + 1])) {
+                    x = backward[off + c + 1];
+                } else {
+                    x = backward[off + c - 1] + 1;
+                }
+                int y = x - c;
+                int startX = x;
+                int startY = y;
+                while (x < n && y < m
+                        && a[aHi - 1 - x] == b[bHi - 1 - y]) {
+                    x += 1;
+                    y += 1;
+                }
+                backward[off + c] = x;
+                int k = delta - c;
+                if (!odd && k >= -d && k <= d
+                        && x + forward[off + k] >= n) {
+                    return new int[] {aHi - x, bHi - y,
+                        aHi - startX, bHi - startY};
+                }
+            }
+        }
+        throw new GitletException("No middle snake.");
+    }
+
+}
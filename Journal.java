@@ -0,0 +1,625 @@
+package gitlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/** Journal makes the writes of each command one transaction. Writes to
+ * files that are rewritten in place, such as the branches, HEAD and the
+ * staging index, are held back until the command ends, while appends
+ * and renames happen at once, and new files named by their contents
+ * are written beside the repository and renamed into place. When the
+ * command ends, the files renamed into place are forced to disk, then
+ * every operation is appended to the journal file as a single
+ * checksummed record, which is forced too, and then the held-back
+ * writes are applied, each by renaming over its file. Whenever a
+ * command holds the RepoLock alone, recover redoes the writes of every
+ * record in the journal that did not all reach disk, and drops a torn
+ * record at its end, so a crash leaves either all of a command's
+ * writes or none of them. Once the journal grows past CHECKPOINT, or
+ * the tail of the CommitIndex grows too long, every file it names is
+ * forced to disk and it is emptied.
+ * @author Ria Vora*/
+public class Journal {
+
+    /** The bytes the journal file starts with. */
+    static final byte[] MAGIC = {'G', 'L', 'J'};
+
+    /** The current version of the journal file. */
+    static final int VERSION = 1;
+
+    /** The operation replacing the contents of a file. */
+    static final int WRITE = 0;
+
+    /** The operation writing bytes at an offset into a file. */
+    static final int APPEND = 1;
+
+    /** The operation renaming a file. */
+    static final int MOVE = 2;
+
+    /** The operation deleting a file. */
+    static final int DELETE = 3;
+
+    /** The size in bytes past which the journal is checkpointed. */
+    static final long CHECKPOINT = 256 << 10;
+
+    /** Replaces the contents of the given file when the command ends.
+     * @param f is the file
+     * @param contents is its new contents*/
+    public static void write(File f, byte[] contents) {
+        _pending.add(new Op(WRITE, f, null, 0, contents, true));
+    }
+
+    /** Replaces the contents of the given file with the given String
+     * when the command ends.
+     * @param f is the file
+     * @param contents is its new contents*/
+    public static void write(File f, String contents) {
+        write(f, contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Replaces the contents of the given ref, such as a branch or
+     * HEAD, when the command ends, provided that it still holds what
+     * the command read from it. Otherwise the whole command fails, so
+     * that concurrent commands never silently overwrite each other.
+     * @param ref is the ref
+     * @param expected is its contents as read, or null if it did not
+     * exist
+     * @param value is its new contents*/
+    public static void update(File ref, String expected, String value) {
+        _expected.putIfAbsent(ref, expected);
+        write(ref, value);
+    }
+
+    /** Deletes the given file when the command ends.
+     * @param f is the file*/
+    public static void delete(File f) {
+        _pending.add(new Op(DELETE, f, null, 0, null, true));
+    }
+
+    /** Deletes the given file once the command's writes are applied,
+     * without recording it, for files nothing refers to by then whose
+     * deletion need not survive a crash.
+     * @param f is the file*/
+    public static void release(File f) {
+        _released.add(f);
+    }
+
+    /** Writes the given file, named by its contents, at once, by
+     * writing it into the .gitlet folder and renaming it into place, so
+     * that the journal records only the rename.
+     * @param f is the file
+     * @param contents is its contents*/
+    public static void create(File f, byte[] contents) {
+        try {
+            File temp = File.createTempFile(f.getName(), ".lock",
+                    Main.GITLET_FOLDER);
+            Utils.writeContents(temp, contents);
+            move(temp, f);
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Appends the given bytes to the given file at once.
+     * @param f is the file
+     * @param bytes is the bytes*/
+    public static void append(File f, byte[] bytes) {
+        long offset = f.length();
+        writeAt(f, offset, bytes);
+        _pending.add(new Op(APPEND, f, null, offset, bytes, false));
+    }
+
+    /** Atomically renames the given file at once.
+     * @param from is the file
+     * @param to is its new pathway*/
+    public static void move(File from, File to) throws IOException {
+        Files.move(from.toPath(), to.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        _pending.add(new Op(MOVE, from, to, 0, null, false));
+    }
+
+    /** Ends the command's transaction: checks the refs it updates,
+     * records its operations in the journal, forces the journal to
+     * disk and applies the held-back writes, then checkpoints the
+     * journal if it has grown past CHECKPOINT or the commit index
+     * needs merging.*/
+    public static void commit() {
+        for (Map.Entry<File, String> entry: _expected.entrySet()) {
+            File ref = entry.getKey();
+            String found = ref.exists()
+                    ? Utils.readContentsAsString(ref) : null;
+            if (!Objects.equals(found, entry.getValue())) {
+                Main.exitWithError("Another gitlet process updated "
+                        + Main.removeTXT(ref.getName())
+                        + "; nothing was changed.", 1);
+            }
+        }
+        _expected.clear();
+        if (_pending.isEmpty()) {
+            releaseAll();
+            return;
+        }
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+            for (Op op: _pending) {
+                op.write(out);
+            }
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        forceMoved();
+        byte[] record = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + record.length);
+        buffer.putInt(record.length).putLong(crc.getValue()).put(record);
+        buffer.flip();
+        long length;
+        boolean created = !JOURNAL_FILE.exists();
+        try (FileChannel channel = FileChannel.open(JOURNAL_FILE.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (channel.size() < START) {
+                channel.truncate(0);
+                channel.write(ByteBuffer.wrap(start()));
+            }
+            channel.position(channel.size());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            length = channel.size();
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        if (created) {
+            force(Main.GITLET_FOLDER);
+        }
+        for (Op op: _pending) {
+            if (op._deferred) {
+                op.apply();
+            }
+        }
+        _pending.clear();
+        releaseAll();
+        if (length > CHECKPOINT || CommitIndex.tailFull()) {
+            checkpoint();
+        }
+        _stamp = Stamp.of(JOURNAL_FILE);
+    }
+
+    /** Ends the command's transaction after an error: the held-back
+     * writes are dropped, and those already made are recorded.*/
+    public static void abort() {
+        _pending.removeIf(op -> op._deferred);
+        _released.clear();
+        _expected.clear();
+        if (!_pending.isEmpty() && Main.GITLET_FOLDER.exists()) {
+            commit();
+        }
+    }
+
+    /** Returns whether recover would change the repository, because
+     * the journal ends in a torn record or holds writes that did not
+     * reach disk. Only reads, so that a command sharing the RepoLock
+     * can tell whether it must hold the lock alone instead.
+     * @return boolean is whether the journal needs recovering*/
+    public static boolean damaged() {
+        if (JOURNAL_FILE.length() <= START) {
+            return false;
+        }
+        ArrayList<Op> ops = new ArrayList<Op>();
+        return read(ops) < JOURNAL_FILE.length() || !lost(ops).isEmpty();
+    }
+
+    /** Redoes the writes of every record in the journal, repairing only
+     * the files that do not already hold them, and drops a torn record
+     * at its end. Stored commits repaired make the commit index and
+     * commit graph be rebuilt. Runs once per process, and only while
+     * the RepoLock is held alone, since a command sharing it was only
+     * given it because the journal was not damaged.*/
+    public static void recover() {
+        if (_recovered) {
+            return;
+        }
+        _recovered = true;
+        if (RepoLock.shared() || JOURNAL_FILE.length() <= START) {
+            _stamp = Stamp.of(JOURNAL_FILE);
+            return;
+        }
+        ArrayList<Op> ops = new ArrayList<Op>();
+        long end = read(ops);
+        if (end < JOURNAL_FILE.length()) {
+            try (RandomAccessFile file = new RandomAccessFile(JOURNAL_FILE,
+                    "rw")) {
+                file.setLength(end);
+                file.getFD().sync();
+            } catch (IOException excp) {
+                throw new GitletException(excp.getMessage());
+            }
+        }
+        boolean commits = false;
+        for (Op op: lost(ops)) {
+            if (op._kind == WRITE) {
+                op._file.getParentFile().mkdirs();
+                commits |= op._file.getPath().startsWith(
+                        Main.COMMITS_FOLDER.getPath());
+            }
+            op.apply();
+        }
+        if (commits) {
+            CommitIndex.INDEX_FILE.delete();
+            CommitGraph.GRAPH_FILE.delete();
+        }
+        _stamp = Stamp.of(JOURNAL_FILE);
+    }
+
+    /** Forces every file the journal names to disk, along with the
+     * folders holding them, then empties the journal. The commit index
+     * and commit graph are merged only once the journal is empty, since
+     * the appends recorded in it are at offsets into the unmerged
+     * files.*/
+    public static void checkpoint() {
+        if (JOURNAL_FILE.length() <= START) {
+            CommitIndex.merge();
+            CommitGraph.merge();
+            return;
+        }
+        ArrayList<Op> ops = new ArrayList<Op>();
+        read(ops);
+        LinkedHashSet<File> files = new LinkedHashSet<File>();
+        LinkedHashSet<File> folders = new LinkedHashSet<File>();
+        for (Op op: ops) {
+            File f = op._to == null ? op._file : op._to;
+            files.add(f);
+            folders.add(f.getAbsoluteFile().getParentFile());
+            if (op._to != null) {
+                folders.add(op._file.getAbsoluteFile().getParentFile());
+            }
+        }
+        for (File f: files) {
+            force(f);
+        }
+        for (File folder: folders) {
+            force(folder);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(JOURNAL_FILE,
+                "rw")) {
+            file.setLength(START);
+            file.getFD().sync();
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        CommitIndex.merge();
+        CommitGraph.merge();
+        _stamp = Stamp.of(JOURNAL_FILE);
+    }
+
+    /** Makes the next recover read the journal again if another
+     * process has written to it since this one last did.*/
+    public static void revalidate() {
+        if (!Stamp.of(JOURNAL_FILE).equals(_stamp)) {
+            _recovered = false;
+        }
+    }
+
+    /** Forces the given file or folder to disk, if it exists.
+     * @param f is the file or folder*/
+    public static void force(File f) {
+        if (!f.exists()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(f.toPath(),
+                StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException excp) {
+            /* Some platforms cannot force folders. */
+        }
+    }
+
+    /** Returns the operations among OPS whose writes are not on disk,
+     * in the order they are redone: the appends and renames in the
+     * order they were made, then the last write or deletion of each
+     * file. An append is lost only if its file ends within it, counting
+     * the appends redone before it, since appends only ever lengthen a
+     * file: a file at least as long either holds it or has since been
+     * rewritten whole, as the commit index and commit graph are when
+     * merged, and a file ending before it has since been replaced or
+     * deleted, and is rebuilt rather than patched.
+     * @param ops is the operations of the journal
+     * @return the list of lost operations*/
+    private static ArrayList<Op> lost(ArrayList<Op> ops) {
+        ArrayList<Op> result = new ArrayList<Op>();
+        LinkedHashMap<File, Op> last = new LinkedHashMap<File, Op>();
+        HashMap<File, Long> lengths = new HashMap<File, Long>();
+        for (Op op: ops) {
+            if (op._kind == WRITE || op._kind == DELETE) {
+                last.remove(op._file);
+                last.put(op._file, op);
+            } else if (op._kind == APPEND) {
+                long length = lengths.computeIfAbsent(op._file, File::length);
+                long end = op._offset + op._data.length;
+                if (op._offset <= length && length < end) {
+                    result.add(op);
+                    lengths.put(op._file, end);
+                }
+            } else if (!op._to.exists() && op._file.exists()) {
+                result.add(op);
+            }
+        }
+        for (Op op: last.values()) {
+            File f = op._file;
+            if (op._kind == DELETE ? f.exists()
+                    : (!holds(f, 0, op._data)
+                    || f.length() != op._data.length)) {
+                result.add(op);
+            }
+        }
+        return result;
+    }
+
+    /** Forces every file renamed into place by the command to disk,
+     * along with the folders holding them, before its record is
+     * written, so that the journal never names a file whose contents
+     * were lost.*/
+    private static void forceMoved() {
+        LinkedHashSet<File> folders = new LinkedHashSet<File>();
+        for (Op op: _pending) {
+            if (op._kind == MOVE) {
+                force(op._to);
+                folders.add(op._to.getAbsoluteFile().getParentFile());
+            }
+        }
+        for (File folder: folders) {
+            force(folder);
+        }
+    }
+
+    /** Reads the operations of every whole record in the journal.
+     * @param ops is the list the operations are added to
+     * @return long is the offset at which the whole records end*/
+    private static long read(ArrayList<Op> ops) {
+        byte[] contents = Utils.readContents(JOURNAL_FILE);
+        if (contents.length < START
+                || !Arrays.equals(Arrays.copyOf(contents, START), start())) {
+            throw new GitletException("Corrupt journal.");
+        }
+        int end = START;
+        while (end + HEADER <= contents.length) {
+            ByteBuffer header = ByteBuffer.wrap(contents, end, HEADER);
+            int length = header.getInt();
+            long checksum = header.getLong();
+            int data = end + HEADER;
+            if (length < 0 || length > contents.length - data) {
+                break;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(contents, data, length);
+            if (crc.getValue() != checksum) {
+                break;
+            }
+            try (DataInputStream in = new DataInputStream(
+                    new ByteArrayInputStream(contents, data, length))) {
+                while (in.available() > 0) {
+                    ops.add(Op.read(in));
+                }
+            } catch (IOException excp) {
+                throw new GitletException(excp.getMessage());
+            }
+            end = data + length;
+        }
+        return end;
+    }
+
+    /** Returns whether the given file holds the given bytes at the
+     * given offset.
+     * @param f is the file
+     * @param offset is the offset
+     * @param bytes is the bytes
+     * @return boolean is whether they are there*/
+    private static boolean holds(File f, long offset, byte[] bytes) {
+        if (f.length() < offset + bytes.length) {
+            return false;
+        }
+        byte[] found = new byte[bytes.length];
+        try (RandomAccessFile file = new RandomAccessFile(f, "r")) {
+            file.seek(offset);
+            file.readFully(found);
+        } catch (IOException excp) {
+            return false;
+        }
+        return Arrays.equals(found, bytes);
+    }
+
+    /** Writes the given bytes into the given file at the given offset.
+     * @param f is the file
+     * @param offset is the offset
+     * @param bytes is the bytes*/
+    private static void writeAt(File f, long offset, byte[] bytes) {
+        try (RandomAccessFile file = new RandomAccessFile(f, "rw")) {
+            file.seek(offset);
+            file.write(bytes);
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Atomically replaces the contents of the given file by writing
+     * them into the .gitlet folder and renaming them over it. The file
+     * written has a name of its own, since readers sharing the
+     * RepoLock may recover the same file at once, and lies outside
+     * the folders that are listed, such as the branches folder.
+     * @param f is the file
+     * @param contents is its new contents*/
+    private static void replace(File f, byte[] contents) {
+        try {
+            File temp = File.createTempFile(f.getName(), ".lock",
+                    Main.GITLET_FOLDER);
+            Utils.writeContents(temp, contents);
+            Files.move(temp.toPath(), f.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Deletes the released files.*/
+    private static void releaseAll() {
+        for (File f: _released) {
+            f.delete();
+        }
+        _released.clear();
+    }
+
+    /** Returns the bytes the journal file starts with.
+     * @return byte[] is MAGIC followed by VERSION*/
+    private static byte[] start() {
+        byte[] result = Arrays.copyOf(MAGIC, START);
+        result[MAGIC.length] = VERSION;
+        return result;
+    }
+
+    /** One operation of a transaction. */
+    private static class Op {
+
+        /** An operation of the given KIND on the file F, renaming it to
+         * TO for a MOVE, with DATA written at OFFSET for a WRITE or
+         * APPEND, held back until the command ends if DEFERRED.
+         * @param kind is WRITE, APPEND, MOVE or DELETE
+         * @param f is the file
+         * @param to is the file's new pathway, or null
+         * @param offset is the offset DATA is written at
+         * @param data is the bytes written, or null
+         * @param deferred is whether it is held back*/
+        Op(int kind, File f, File to, long offset, byte[] data,
+           boolean deferred) {
+            _kind = kind;
+            _file = f;
+            _to = to;
+            _offset = offset;
+            _data = data;
+            _deferred = deferred;
+        }
+
+        /** Makes the operation.*/
+        void apply() {
+            if (_kind == WRITE) {
+                replace(_file, _data);
+            } else if (_kind == DELETE) {
+                _file.delete();
+            } else if (_kind == APPEND) {
+                writeAt(_file, _offset, _data);
+            } else {
+                try {
+                    _to.getParentFile().mkdirs();
+                    Files.move(_file.toPath(), _to.toPath(),
+                            StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException excp) {
+                    throw new GitletException(excp.getMessage());
+                }
+            }
+        }
+
+        /** Writes the operation into a journal record.
+         * @param out is the record*/
+        void write(DataOutputStream out) throws IOException {
+            out.writeByte(_kind);
+            CommitCodec.writeString(out, _file.getPath());
+            if (_kind == MOVE) {
+                CommitCodec.writeString(out, _to.getPath());
+            } else if (_kind == APPEND) {
+                out.writeLong(_offset);
+            }
+            if (_kind == WRITE || _kind == APPEND) {
+                CommitCodec.writeVarint(out, _data.length);
+                out.write(_data);
+            }
+        }
+
+        /** Reads an operation written by write.
+         * @param in is the record
+         * @return Op is the operation*/
+        static Op read(DataInputStream in) throws IOException {
+            int kind = in.readUnsignedByte();
+            File f = new File(CommitCodec.readString(in));
+            File to = null;
+            long offset = 0;
+            byte[] data = null;
+            if (kind == MOVE) {
+                to = new File(CommitCodec.readString(in));
+            } else if (kind == APPEND) {
+                offset = in.readLong();
+            }
+            if (kind == WRITE || kind == APPEND) {
+                data = new byte[CommitCodec.readVarint(in)];
+                in.readFully(data);
+            }
+            return new Op(kind, f, to, offset, data, false);
+        }
+
+        /** WRITE, APPEND, MOVE or DELETE. */
+        private final int _kind;
+
+        /** The file. */
+        private final File _file;
+
+        /** The file's new pathway for a MOVE, or null. */
+        private final File _to;
+
+        /** The offset DATA is written at for an APPEND. */
+        private final long _offset;
+
+        /** The bytes written by a WRITE or APPEND, or null. */
+        private final byte[] _data;
+
+        /** Whether the operation is held back until the command ends. */
+        private final boolean _deferred;
+    }
+
+    /** The size in bytes of MAGIC and VERSION. */
+    private static final int START = MAGIC.length + 1;
+
+    /** The size in bytes of a record's length and checksum. */
+    private static final int HEADER = Integer.BYTES + Long.BYTES;
+
+    /** The operations of the command's transaction so far. */
+    private static final ArrayList<Op> _pending = new ArrayList<Op>();
+
+    /** The contents each ref updated by the command held when it was
+     * read, or null where it did not exist. */
+    private static final LinkedHashMap<File, String> _expected =
+        new LinkedHashMap<File, String>();
+
+    /** The files deleted once the command's writes are applied. */
+    private static final ArrayList<File> _released = new ArrayList<File>();
+
+    /** Whether the journal has been recovered by this process. */
+    private static boolean _recovered;
+
+    /** The stamp of the journal as this process last left it. */
+    private static Stamp _stamp;
+
+    /** The journal file. */
+    static final File JOURNAL_FILE = new File(".gitlet/journal");
+
+}
@@ -1,11 +1,24 @@
 package gitlet;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /** Driver class for Gitlet, the tiny stupid version-control system.
  *  @author Ria Vora
@@ -13,11 +26,24 @@ import java.util.HashMap;
 public class Main {
 
     /** Usage: java gitlet.Main ARGS, where ARGS contains
-     *  <COMMAND> <OPERAND> .... */
+     *  <COMMAND> <OPERAND> .... The command is sent to the
+     *  repository's Daemon if one is running, and run here
+     *  otherwise. */
     public static void main(String... args) throws IOException {
+        Integer status = Daemon.forward(args);
+        if (status != null) {
+            System.exit(status);
+        }
+        run(args);
+    }
+
+    /** Runs the given command in this JVM.
+     * @param args is user input of {command, operand, ...}*/
+    public static void run(String... args) throws IOException {
         if (args.length == 0) {
             exitWithError("Please enter a command.", 0);
         }
+        RepoLock.acquire(args[0]);
         switch (args[0]) {
         case "init":
             init(args);
@@ -57,6 +83,12 @@ public class Main {
             break;
         case "merge":
             merge(args); break;
+        case "repack":
+            repack(args);
+            break;
+        case "daemon":
+            Daemon.daemon(args);
+            break;
         case "print":
             if (new File(".", args[1]).exists()) {
                 pln(Utils.readContentsAsString(new File(".", args[1])));
@@ -67,6 +99,10 @@ public class Main {
         default:
             exitWithError("No command with that name exists.", 0);
         }
+        Journal.commit();
+        StatCache.save();
+        RepoLock.release();
+        ObjectCache.printStats();
     }
 
 
@@ -77,7 +113,10 @@ public class Main {
         if (!checkFolders()) {
             exitWithError("Not in an initialized Gitlet directory.", 0);
         }
-
+        Journal.recover();
+        ObjectStore.migrate();
+        CommitIndex.rebuildIfMissing();
+        StagingIndex.migrate();
     }
 
     /** Checks that all of the necessary folders exist
@@ -86,8 +125,7 @@ public class Main {
     public static boolean checkFolders() {
         return GITLET_FOLDER.exists() && COMMITS_FOLDER.exists()
                 && HEAD_FILE.exists() && STAGE_FOLDER.exists()
-                && OBJECTS_FOLDER.exists() && CURRENT_COMMIT_FILE.exists()
-                && BRANCHES_FOLDER.exists();
+                && OBJECTS_FOLDER.exists() && BRANCHES_FOLDER.exists();
     }
 
 
@@ -114,18 +152,18 @@ public class Main {
         COMMITS_FOLDER.mkdir();
         STAGE_FOLDER.mkdir();
         OBJECTS_FOLDER.mkdir();
+        Utils.writeContents(ObjectStore.COMPRESSED_FILE, new byte[0]);
 
         Commit firstCommit = new Commit(true);
-        File commitFile = Utils.join(COMMITS_FOLDER,
-                firstCommit.getID() + ".txt");
-        Utils.writeObject(commitFile, firstCommit);
+        firstCommit.setTree(Tree.write(new HashMap<String, String>()));
+        ObjectStore.writeCommit(firstCommit);
 
         File master = Utils.join(BRANCHES_FOLDER, "master.txt");
-        Utils.writeContents(master, firstCommit.getID());
+        Journal.write(master, firstCommit.getID());
 
-        Utils.writeContents(HEAD_FILE, "branches/master.txt");
+        Journal.write(HEAD_FILE, "branches/master.txt");
 
-        Utils.writeObject(CURRENT_COMMIT_FILE, new Commit());
+        StagingIndex.save();
     }
 
 
@@ -134,39 +172,97 @@ public class Main {
 
 
 
-    /** The add method called when the user adds a file
-     * to be committed, which updates the .gitlet folder
-     * of stage and adds the file pathway to the current commit.
-     * @param args is user input of {'add', file}*/
+    /** The add method called when the user adds files or
+     * directories to be committed, which updates the .gitlet folder
+     * of stage and adds the file pathways to the staging index.
+     * Files are hashed and compressed into the stage in parallel, and the
+     * staging index is written once.
+     * @param args is user input of {'add', file, ...}*/
     public static void add(String[] args) throws IOException {
 
         checkInit();
 
-        validateNumArgs("add", args, 2);
+        if (args.length < 2) {
+            validateNumArgs("add", args, 2);
+        }
 
-        File add = Utils.join(".", args[1]);
-        if (!add.exists()) {
-            exitWithError("File does not exist.", 0);
+        ArrayList<File> files = new ArrayList<File>();
+        for (int i = 1; i < args.length; i += 1) {
+            File add = Utils.join(".", args[i]);
+            if (!add.exists()) {
+                exitWithError("File does not exist.", 0);
+            } else if (!Tree.inRepository(canonicalPath(add))
+                    && !add.getCanonicalFile().equals(
+                            new File(".").getCanonicalFile())) {
+                exitWithError("File is outside the repository.", 0);
+            } else if (add.isDirectory()) {
+                files.addAll(workingFiles(add));
+            } else {
+                files.add(add);
+            }
         }
 
-        Commit currentCommit = Utils.readObject(CURRENT_COMMIT_FILE,
-                Commit.class);
-        String contents = Utils.readContentsAsString(add);
-        File stage = Utils.join(STAGE_FOLDER, Utils.sha1(contents));
-        Commit headCommit = getHeadCommit();
-        if (currentCommit.getFileToID().containsKey(
-                add.getCanonicalPath())) {
-            File removedFile = getFile(currentCommit.getIDFromFile(
-                    add.getCanonicalPath()), STAGE_FOLDER.listFiles());
-            removedFile.delete();
-            currentCommit.getFileToID().remove(add.getCanonicalPath());
-
-        } else if (!headCommit.getIDFromFile(add.getCanonicalPath())
-                .equals(Utils.sha1(contents))) {
-            Utils.writeContents(stage, contents);
-            currentCommit.addFile(add);
-        }
-        Utils.writeObject(CURRENT_COMMIT_FILE, currentCommit);
+        String headTree = getTree(getHeadCommit());
+        ConcurrentHashMap<String, String> ids =
+            new ConcurrentHashMap<String, String>();
+        ConcurrentHashMap<String, String> headIDs =
+            new ConcurrentHashMap<String, String>();
+        Set<String> staged = ConcurrentHashMap.newKeySet();
+        Workers.invoke(() -> {
+            files.parallelStream().forEach(file -> {
+                String filePath = canonicalPath(file);
+                String headID = Tree.lookup(headTree, filePath);
+                ids.put(filePath, stageContents(file, headID, staged));
+                headIDs.put(filePath, headID);
+            });
+            return null;
+        });
+        for (Map.Entry<String, String> entry
+                : new TreeMap<String, String>(ids).entrySet()) {
+            String filePath = entry.getKey();
+            StagingIndex.unstage(filePath);
+            if (!headIDs.get(filePath).equals(entry.getValue())) {
+                StagingIndex.stage(filePath, entry.getValue());
+            }
+        }
+        StagingIndex.save();
+    }
+
+
+
+    /** Hashes the given file and, if its contents differ from HEADID
+     * and are not stored yet, writes them compressed into the stage.
+     * A file not known to the StatCache is compressed into a temporary
+     * file as it is hashed, which becomes its stage file if needed, so
+     * that it is read only once.
+     * @param file is the file being added
+     * @param headID is the ID of its contents in the head commit
+     * @param staged is the IDs already written into the stage
+     * @return String is the SHA-1 ID of its contents*/
+    private static String stageContents(File file, String headID,
+                                        Set<String> staged) {
+        File temp = null;
+        try {
+            temp = File.createTempFile("stage", ".lock", GITLET_FOLDER);
+            String id = StatCache.hash(file, temp);
+            File dest = Utils.join(STAGE_FOLDER, id);
+            if (!id.equals(headID) && !ObjectStore.hasObject(id)
+                    && !dest.exists() && staged.add(id)) {
+                if (temp.length() > 0) {
+                    Files.move(temp.toPath(), dest.toPath(),
+                            StandardCopyOption.ATOMIC_MOVE);
+                } else {
+                    Compression.deflate(file, dest);
+                }
+            }
+            return id;
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        } finally {
+            if (temp != null) {
+                temp.delete();
+            }
+        }
     }
 
 
@@ -177,7 +273,7 @@ public class Main {
 
     /** The commit method called when the user commits,
      * which updates the .gitlet folders of objects, stage,
-     * commits, branches, and the file commit.txt for the
+     * commits, branches, and the staging index for the
      * new commit based off of the added files.
      * @param args is user input of {'commit'} or
      * {'commit', '-m', message}*/
@@ -185,7 +281,8 @@ public class Main {
 
         checkInit();
 
-        Commit commit = Utils.readObject(CURRENT_COMMIT_FILE, Commit.class);
+        Commit commit = new Commit();
+        commit.getFileToID().putAll(StagingIndex.entries());
 
         String secondParent = "";
         if (args.length == 3 && args[0].equals("commit-merge")) {
@@ -196,31 +293,27 @@ public class Main {
         commit.setMessage(args[1]);
 
 
-        File[] files = STAGE_FOLDER.listFiles();
-
-        if (files.length == 0) {
+        if (StagingIndex.isEmpty()) {
             exitWithError("No changes added to the commit.", 0);
         }
 
-        for (File file: files) {
-            addToObjects(file);
+        for (String id: new TreeSet<String>(
+                StagingIndex.additions().values())) {
+            addToObjects(Utils.join(STAGE_FOLDER, id));
         }
 
         saveCommit(commit, secondParent);
 
-        Utils.writeObject(CURRENT_COMMIT_FILE, new Commit());
+        StagingIndex.clear();
+        StagingIndex.save();
 
     }
 
-    /** A helper method to duplicate a file's contents
-     * into the objects folder and delete its current
-     * position.
+    /** A helper method to move a staged file into the
+     * objects folder, unless its blob is already there.
      * @param file is the file in the stage folder*/
     public static void addToObjects(File file) {
-        File object = Utils.join(OBJECTS_FOLDER, file.getName());
-        Utils.writeContents(object, Utils.readContents(file));
-
-        file.delete();
+        ObjectStore.promote(file, file.getName());
     }
 
     /** A helper method to update the parent of the current commit,
@@ -238,12 +331,11 @@ public class Main {
         } else {
             c.setParent(pastCommit.getID() + " " + secondParent);
         }
+        c.setTree(Tree.update(getTree(pastCommit), getChanges(c)));
 
+        ObjectStore.writeCommit(c);
 
-        Utils.writeContents(getHeadBranch(), c.getID());
-
-        File newCommit = Utils.join(COMMITS_FOLDER, c.getID() + ".txt");
-        Utils.writeObject(newCommit, c);
+        Journal.update(getHeadBranch(), pastCommit.getID(), c.getID());
     }
 
     /** Returns the file/pathway corresponding to the head branch from the
@@ -260,14 +352,14 @@ public class Main {
     public static Commit getHeadCommit() {
         File branchFile = getHeadBranch();
         String commitID = Utils.readContentsAsString(branchFile);
-        File commitFile = Utils.join(COMMITS_FOLDER, commitID + ".txt");
+        Commit commit = ObjectStore.readCommit(commitID);
 
-        if (getFile(commitID + ".txt", COMMITS_FOLDER.listFiles()) == null) {
+        if (commit == null) {
             exitWithError("the commit in ur branch "
                     + branchFile.getName() + " does not exist", -1);
         }
 
-        return Utils.readObject(commitFile, Commit.class);
+        return commit;
     }
 
 
@@ -287,21 +379,14 @@ public class Main {
             File file = Utils.join(new File("."), args[2]);
             revertFile(file, headCommit);
         } else if (args.length == 4 && args[2].equals("--")) {
-            File commitFile;
-            if (args[1].length() < Utils.UID_LENGTH) {
-                commitFile = getFileShort(args[1],
-                        COMMITS_FOLDER.listFiles());
-            } else {
-                commitFile = getFile(args[1] + ".txt",
-                        COMMITS_FOLDER.listFiles());
-            }
-            if (commitFile == null) {
+            Commit commit = getCommit(args[1]);
+            if (commit == null) {
                 exitWithError("No commit with that id exists.", 0);
             }
-            Commit commit = Utils.readObject(commitFile, Commit.class);
             File file = Utils.join(new File("."), args[3]);
             revertFile(file, commit);
         } else if (args.length == 2) {
+            String head = Utils.readContentsAsString(HEAD_FILE);
             File branchFile = getFile(args[1] + ".txt",
                     BRANCHES_FOLDER.listFiles());
             if (branchFile == null) {
@@ -310,44 +395,68 @@ public class Main {
                 exitWithError("No need to checkout the current branch.", 0);
             }
             String commitID = Utils.readContentsAsString(branchFile);
-            File commitFile = Utils.join(COMMITS_FOLDER, commitID + ".txt");
-            Commit commit = Utils.readObject(commitFile, Commit.class);
-            Commit headCommit = getHeadCommit();
-            untrackedFileError(commit, headCommit);
-            for (String filePath: commit.getFileToID().keySet()) {
-                revertFile(Utils.join(new File(filePath)), commit);
-            }
-            for (String filePath: headCommit.getFileToID().keySet()) {
-                if (!commit.getFileToID().containsKey(filePath)) {
-                    (new File(filePath)).delete();
-                }
-            } resetStagingArea();
-            Utils.writeContents(HEAD_FILE,
-                    "branches/" + args[1] + ".txt");
+            checkoutCommit(ObjectStore.readCommit(commitID));
+            Journal.update(HEAD_FILE, head, "branches/" + args[1] + ".txt");
         } else {
             exitWithError("Incorrect operands.", 0);
         }
     }
 
-    /** Reverts a file back to its version in the given commit.
+    /** Checks out the full snapshot of the given commit and clears
+     * the staging area, without moving the head. Only files whose
+     * contents differ from the head commit's tree are written, in
+     * parallel on the Workers pool, and files the commit does not
+     * track are deleted.
+     * @param commit is the commit to check out*/
+    public static void checkoutCommit(Commit commit) {
+        TreeMap<String, String[]> changes = Tree.diff(
+                getTree(getHeadCommit()), getTree(commit));
+        untrackedFileError(changes);
+        Workers.invoke(() -> {
+            changes.entrySet().parallelStream()
+                    .filter(entry -> entry.getValue()[1] != null)
+                    .forEach(entry -> {
+                        String id = entry.getValue()[1];
+                        File f = new File(entry.getKey());
+                        f.getParentFile().mkdirs();
+                        ObjectStore.extract(id, f);
+                        StatCache.record(f, id);
+                    });
+            return null;
+        });
+        for (Map.Entry<String, String[]> entry: changes.entrySet()) {
+            if (entry.getValue()[1] == null) {
+                deleteFile(new File(entry.getKey()));
+            }
+        }
+        resetStagingArea();
+    }
+
+    /** Deletes the given working file, along with any directories
+     * left empty by deleting it.
+     * @param f is the file*/
+    public static void deleteFile(File f) {
+        f.delete();
+        File root = new File(canonicalPath(new File(".")));
+        File dir = new File(canonicalPath(f)).getParentFile();
+        while (dir != null && !dir.equals(root) && dir.delete()) {
+            dir = dir.getParentFile();
+        }
+    }
+
+    /** Reverts a file back to its version in the given commit,
+     * found in the commit's tree.
      * @param f is the name of the file
      * @param c is the commit that holds the desired version of
      * the file.*/
     public static void revertFile(File f, Commit c) throws IOException {
-        if (!c.getFileToID().containsKey(f.getCanonicalPath())) {
+        String contentsID = Tree.lookup(getTree(c), f.getCanonicalPath());
+        if (contentsID.isEmpty() || !ObjectStore.hasObject(contentsID)) {
             exitWithError("File does not exist in that commit.", 0);
         }
-        String contentsID = c.getIDFromFile(f.getCanonicalPath());
-        if (contentsID.substring(0, 7).equals("remove*")) {
-            f.delete();
-        } else {
-            File file = getFile(contentsID, OBJECTS_FOLDER.listFiles());
-            if (file == null) {
-                exitWithError("File does not exist in that commit.", 0);
-            }
-            String contents = Utils.readContentsAsString(file);
-            Utils.writeContents(f, contents);
-        }
+        f.getParentFile().mkdirs();
+        ObjectStore.extract(contentsID, f);
+        StatCache.record(f, contentsID);
     }
 
     /** Returns the file matching the given name from
@@ -369,48 +478,39 @@ public class Main {
         return null;
     }
 
-    /** Returns the file that's first characters match the given name
-     * from a given list of files, used to search through a
-     * directory for a desired file.
-     * @param name is the name of the desired file
-     * @param files is an array of all the files in
-     *              that directory
-     * @return File is the desired file*/
-    public static File getFileShort(String name, File[] files) {
-        if (name.isEmpty()) {
-            return null;
-        }
-        for (File file: files) {
-            if (file.getName().substring(0, name.length()).equals(name)) {
-                return file;
+    /** Returns the commit matching the given full or abbreviated ID,
+     * resolving abbreviations through the commit index.
+     * @param id is the full or abbreviated commit ID
+     * @return Commit is the matching commit, or null*/
+    public static Commit getCommit(String id) {
+        if (id.length() < Utils.UID_LENGTH) {
+            id = CommitIndex.resolve(id);
+            if (id == null) {
+                return null;
             }
         }
-        return null;
+        return ObjectStore.readCommit(id);
     }
-    /** Resets the staging area by clearing the stage
-     * folder and setting a new commit.*/
+    /** Resets the staging area by clearing the staging index, whose
+     * saving releases the stage folder.*/
     public static void resetStagingArea() {
-        for (File file: STAGE_FOLDER.listFiles()) {
-            file.delete();
-        }
-        Utils.writeObject(CURRENT_COMMIT_FILE, new Commit());
+        StagingIndex.clear();
+        StagingIndex.save();
     }
-    /** A helper method to check for an untracked file error.
-     * @param commit is given commit
-     * @param headCommit is the given head commit*/
-    public static void untrackedFileError(Commit commit, Commit headCommit) {
-        for (String filePath: commit.getFileToID().keySet()) {
-            if (new File(filePath).exists()) {
-                String currentContents = Utils.sha1(
-                        Utils.readContentsAsString(new File(filePath)));
-                if (!headCommit.getFileToID().containsKey(filePath)
-                        && !currentContents.equals(commit.getIDFromFile(
-                        filePath))
-                        && !(commit.getIDFromFile(filePath)).substring(0, 7).
-                        equals("remove*")) {
-                    exitWithError("There is an untracked file in the way; "
-                            + "delete it, or add and commit it first.", 0);
-                }
+    /** A helper method to check for an untracked file error,
+     * where a file about to be written exists in the working
+     * directory with other contents but is not tracked by the head.
+     * @param changes is the files that differ from the head commit,
+     * mapped to their IDs in the head commit and after the change*/
+    public static void untrackedFileError(
+            TreeMap<String, String[]> changes) {
+        for (Map.Entry<String, String[]> entry: changes.entrySet()) {
+            String[] ids = entry.getValue();
+            File f = new File(entry.getKey());
+            if (ids[0] == null && ids[1] != null && Watcher.exists(f)
+                    && !StatCache.hash(f).equals(ids[1])) {
+                exitWithError("There is an untracked file in the way; "
+                        + "delete it, or add and commit it first.", 0);
             }
         }
     }
@@ -436,7 +536,7 @@ public class Main {
         if (newBranch.exists()) {
             exitWithError("A branch with that name already exists.", 0);
         }
-        Utils.writeContents(newBranch, getHeadCommit().getID());
+        Journal.update(newBranch, null, getHeadCommit().getID());
     }
 
 
@@ -468,23 +568,15 @@ public class Main {
         pln(commit.getMessage() + "\n");
     }
 
-    /** Iterates through the commit using its
-     * parent.
+    /** Iterates through the commit using its first
+     * parent from the commit graph.
      * @param commit is the commit*/
     public static void iterateCommits(Commit commit) {
-        while (commit != null) {
-            printCommit(commit);
-            String parent = commit.getParent();
-            if (parent.length() > Utils.UID_LENGTH) {
-                parent = parent.substring(0, Utils.UID_LENGTH);
-            }
-            File parentFile = getFile(parent + ".txt",
-                    COMMITS_FOLDER.listFiles());
-            if (parentFile != null) {
-                commit = Utils.readObject(parentFile, Commit.class);
-            } else {
-                commit = null;
-            }
+        printCommit(commit);
+        String id = CommitGraph.firstParent(commit.getID());
+        while (id != null) {
+            printCommit(ObjectStore.readCommit(id));
+            id = CommitGraph.firstParent(id);
         }
     }
 
@@ -503,8 +595,8 @@ public class Main {
 
         validateNumArgs("add", args, 1);
 
-        for (File commitFile: COMMITS_FOLDER.listFiles()) {
-            Commit commit = Utils.readObject(commitFile, Commit.class);
+        for (File commitFile: ObjectStore.commitFiles()) {
+            Commit commit = ObjectStore.readCommit(commitFile);
             printCommit(commit);
         }
     }
@@ -525,8 +617,8 @@ public class Main {
         validateNumArgs("add", args, 2);
 
         ArrayList<String> matchingCommits = new ArrayList<String>();
-        for (File commitFile: COMMITS_FOLDER.listFiles()) {
-            Commit commit = Utils.readObject(commitFile, Commit.class);
+        for (File commitFile: ObjectStore.commitFiles()) {
+            Commit commit = ObjectStore.readCommit(commitFile);
             if (commit.getMessage().equals(args[1])) {
                 matchingCommits.add(commit.getID());
             }
@@ -565,7 +657,7 @@ public class Main {
         } else if (getHeadBranch().getName().equals(branchFile.getName())) {
             exitWithError("Cannot remove the current branch.", 0);
         } else {
-            branchFile.delete();
+            Journal.delete(branchFile);
         }
     }
 
@@ -586,33 +678,22 @@ public class Main {
         validateNumArgs("add", args, 2);
 
         boolean notIn = true;
-        Commit currentCommit = Utils.readObject(CURRENT_COMMIT_FILE,
-                Commit.class);
         File removeFile = Utils.join(".", args[1]);
         String removeFilePathway = removeFile.getCanonicalPath();
 
-        if (currentCommit.getFileToID().containsKey(removeFilePathway)) {
-            Utils.join(STAGE_FOLDER, currentCommit.getIDFromFile(
-                    removeFilePathway)).delete();
-            currentCommit.getFileToID().remove(removeFilePathway);
+        if (StagingIndex.contains(removeFilePathway)) {
+            StagingIndex.unstage(removeFilePathway);
             notIn = false;
         }
 
-        if (getHeadCommit().getFileToID().containsKey(removeFilePathway)) {
-            currentCommit.addRemoveFile(removeFile);
-            File stageFile = Utils.join(STAGE_FOLDER,
-                    currentCommit.getIDFromFile(removeFilePathway));
-            if (removeFile.exists()) {
-                Utils.writeContents(stageFile,
-                        Utils.readContentsAsString(removeFile));
-                removeFile.delete();
-            } else {
-                Utils.writeContents(stageFile, "");
-            }
+        if (!Tree.lookup(getTree(getHeadCommit()),
+                removeFilePathway).isEmpty()) {
+            StagingIndex.stageRemoval(removeFilePathway);
+            removeFile.delete();
             notIn = false;
         }
 
-        Utils.writeObject(CURRENT_COMMIT_FILE, currentCommit);
+        StagingIndex.save();
 
         if (notIn) {
             exitWithError("No reason to remove the file.", 0);
@@ -648,21 +729,14 @@ public class Main {
         pln("");
 
         printTitle("Staged Files");
-        files = STAGE_FOLDER.listFiles();
-        ArrayList<File> removedFiles = new ArrayList<File>();
-        Arrays.sort(files);
-        for (File file: files) {
-            if (!file.getName().substring(0, 7).equals("remove*")) {
-                printFile(file);
-            } else {
-                removedFiles.add(file);
-            }
+        for (String filePath: StagingIndex.additions().keySet()) {
+            pln(Tree.relativePath(filePath));
         }
         pln("");
 
         printTitle("Removed Files");
-        for (File file: removedFiles) {
-            printFile(file);
+        for (String filePath: StagingIndex.removals()) {
+            pln(Tree.relativePath(filePath));
         }
         pln("");
 
@@ -673,7 +747,7 @@ public class Main {
                 ArrayList<File>(modifiedNotStaged.keySet());
         Collections.sort(sortedFiles);
         for (File file: sortedFiles) {
-            pln(file.getName() + " ("
+            pln(displayName(file) + " ("
                     + modifiedNotStaged.get(file) + ")");
         }
         pln("");
@@ -682,7 +756,7 @@ public class Main {
         ArrayList<File> untracked = untracked();
         Collections.sort(untracked);
         for (File file: untracked) {
-            pln(file.getName());
+            pln(displayName(file));
         }
     }
 
@@ -699,53 +773,64 @@ public class Main {
         return fileName.substring(0, fileName.length() - 4);
     }
 
-    /** Prints the file name from the given file ID using
-     * the current commit.
-     * @param file is the array of files*/
-    public static void printFile(File file) {
-        Commit commit = Utils.readObject(CURRENT_COMMIT_FILE, Commit.class);
-        File foundFile = new File(commit.getFileFromID(file.getName()));
-        pln(foundFile.getName());
+    /** Returns the name a working file is shown by, its path
+     * relative to the repository.
+     * @param file is the file
+     * @return String is the relative path*/
+    public static String displayName(File file) {
+        return Tree.relativePath(canonicalPath(file));
     }
 
     /** Stores the files that fit the description of
-     * modified and not staged in an Arraylist.
+     * modified and not staged in an Arraylist. The files
+     * that need hashing are hashed in parallel first.
      * @return the ArrayList of modified and not
      * staged files*/
     public static HashMap<File, String> modifiedNotStaged() {
         HashMap<File, String> result = new HashMap<File, String>();
-        Commit currentCommit = Utils.readObject(CURRENT_COMMIT_FILE,
-                Commit.class);
-        Commit headCommit = getHeadCommit();
-        for (String filePath: headCommit.getFileToID().keySet()) {
+        HashMap<String, String> staged = StagingIndex.entries();
+        HashMap<String, String> headSnapshot = getSnapshot(getHeadCommit());
+        ArrayList<File> toHash = new ArrayList<File>();
+        for (String filePath: headSnapshot.keySet()) {
+            if (!staged.containsKey(filePath)) {
+                toHash.add(new File(filePath));
+            }
+        }
+        for (String filePath: staged.keySet()) {
+            if (!staged.get(filePath).
+                    substring(0, 7).equals("remove*")) {
+                toHash.add(new File(filePath));
+            }
+        }
+        toHash.removeIf(f -> !Watcher.exists(f));
+        HashMap<String, String> ids = StatCache.hashAll(toHash);
+        for (String filePath: headSnapshot.keySet()) {
             File f = new File(filePath);
-            if (f.exists()) {
-                if (!headCommit.getIDFromFile(filePath).equals(
-                        Utils.sha1(Utils.readContentsAsString(f)))
-                    && !currentCommit.getFileToID().containsKey(filePath)) {
+            if (Watcher.exists(f)) {
+                if (!headSnapshot.get(filePath).equals(ids.get(filePath))
+                    && !staged.containsKey(filePath)) {
                     result.put(f, "modified");
                 }
-            } else if (currentCommit.getFileToID().containsKey(filePath)) {
-                if (!currentCommit.getIDFromFile(filePath).
+            } else if (staged.containsKey(filePath)) {
+                if (!staged.get(filePath).
                         substring(0, 7).equals("remove*")) {
                     result.put(f, "deleted");
                 }
-            } else if (!headCommit.getIDFromFile(filePath).
-                    substring(0, 7).equals("remove*")) {
+            } else {
                 result.put(f, "deleted");
             }
         }
 
-        for (String filePath: currentCommit.getFileToID().keySet()) {
+        for (String filePath: staged.keySet()) {
             File f = new File(filePath);
-            if (!currentCommit.getIDFromFile(filePath).
-                    substring(0, 7).equals("remove*") && f.exists()) {
-                if (!currentCommit.getIDFromFile(filePath).
-                        equals(Utils.sha1(Utils.readContentsAsString(f)))) {
+            if (!staged.get(filePath).
+                    substring(0, 7).equals("remove*") && Watcher.exists(f)) {
+                if (!staged.get(filePath).
+                        equals(ids.get(filePath))) {
                     result.put(f, "modified");
                 }
-            } else if (!currentCommit.getIDFromFile(filePath).
-                    substring(0, 7).equals("remove*") && !f.exists()) {
+            } else if (!staged.get(filePath).
+                    substring(0, 7).equals("remove*") && !Watcher.exists(f)) {
                 result.put(f, "deleted");
             }
         }
@@ -754,34 +839,75 @@ public class Main {
     }
 
     /** Stores the files that fit the description of
-     * untracked in an Arraylist.
+     * untracked in an Arraylist, checking the files of the
+     * working tree in parallel.
      * @return the ArrayList of untracked files*/
     public static ArrayList<File> untracked() throws IOException {
+        HashMap<String, String> staged = StagingIndex.entries();
+        HashMap<String, String> headSnapshot = getSnapshot(getHeadCommit());
+        ArrayList<File> files = workingFiles();
+        return Workers.invoke(() -> files.parallelStream().filter(f -> {
+            String filePath = canonicalPath(f);
+            if (headSnapshot.containsKey(filePath)) {
+                return false;
+            }
+            return !staged.containsKey(filePath)
+                    || staged.get(filePath)
+                    .substring(0, 7).equals("remove*");
+        }).collect(Collectors.toCollection(ArrayList::new)));
+    }
+
+    /** Returns every file of the working tree, in all of its
+     * directories, other than those in the .gitlet folder.
+     * @return the ArrayList of files*/
+    public static ArrayList<File> workingFiles() throws IOException {
+        return workingFiles(new File("."));
+    }
+
+    /** Returns every file in the given directory of the working tree
+     * and the directories below it, other than those in the .gitlet
+     * folder, taken from the Watcher without a scan while it is active.
+     * @param dir is the directory
+     * @return the ArrayList of files*/
+    public static ArrayList<File> workingFiles(File dir) throws IOException {
+        if (Watcher.active()) {
+            return Watcher.files(dir);
+        }
         ArrayList<File> result = new ArrayList<File>();
-        File currentDirectory = new File(".");
-        Commit currentCommit = Utils.readObject(CURRENT_COMMIT_FILE,
-                Commit.class);
-        Commit headCommit = getHeadCommit();
-        for (File f: currentDirectory.listFiles()) {
-            if (!headCommit.getFileToID().containsKey(
-                    f.getCanonicalPath())
-                    && !f.getName().equals(".gitlet")) {
-                if (!currentCommit.getFileToID().containsKey(
-                        f.getCanonicalPath())) {
-
-                    result.add(f);
-                } else if (currentCommit.getIDFromFile(
-                        f.getCanonicalPath()).substring(0, 7).
-                        equals("remove*")
-                    && f.exists()) {
-                    result.add(f);
+        Path gitlet = GITLET_FOLDER.toPath();
+        Files.walkFileTree(dir.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir,
+                    BasicFileAttributes attrs) {
+                if (dir.normalize().equals(gitlet)) {
+                    return FileVisitResult.SKIP_SUBTREE;
                 }
+                return FileVisitResult.CONTINUE;
             }
-        }
-        result.remove(GITLET_FOLDER);
+
+            @Override
+            public FileVisitResult visitFile(Path file,
+                    BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    result.add(file.toFile());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
         return result;
     }
 
+    /** Returns the canonical path of the given file.
+     * @param f is the file
+     * @return String is its canonical path*/
+    static String canonicalPath(File f) {
+        try {
+            return f.getCanonicalPath();
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
     /* RESET COMMAND */
 
 
@@ -793,38 +919,82 @@ public class Main {
 
         checkInit();
 
-        if (getFile(args[1]  + ".txt",
-                COMMITS_FOLDER.listFiles()) == null) {
+        validateNumArgs("add", args, 2);
+
+        Commit commit = getCommit(args[1]);
+        String headID = getHeadCommit().getID();
+        if (commit == null) {
             exitWithError("No commit with that id exists.", 0);
-        } else if (getHeadCommit().getID().equals(args[1])) {
+        } else if (headID.equals(commit.getID())) {
             exitWithError("No need to reset to the current commit.", 0);
         }
 
+        checkoutCommit(commit);
 
-        validateNumArgs("add", args, 2);
+        Journal.update(getHeadBranch(), headID, commit.getID());
+    }
 
-        String pastPathway = Utils.readContentsAsString(HEAD_FILE);
 
-        String branchName = Utils.sha1("branchToBeUsedForCheckout");
 
-        String[] input = {"branch", branchName};
+    /* REPACK COMMAND */
 
-        branch(input);
 
-        Utils.writeContents(Utils.join(BRANCHES_FOLDER,
-                branchName + ".txt"), args[1]);
 
-        input[0] = "checkout";
+    /** repack is called when the user wants to consolidate
+     * every blob in the objects folder into one packfile,
+     * where each version of a file may be stored as a delta
+     * against the version of the same file before it.
+     * @param args is user input of {'repack'}*/
+    public static void repack(String[] args) {
 
-        checkout(input);
+        checkInit();
 
-        Utils.writeContents(HEAD_FILE, pastPathway);
+        validateNumArgs("repack", args, 1);
 
-        Utils.writeContents(getHeadBranch(), args[1]);
+        ArrayList<Commit> commits = new ArrayList<Commit>();
+        for (File commitFile: ObjectStore.commitFiles()) {
+            commits.add(ObjectStore.readCommit(commitFile));
+        }
+        commits.sort((a, b) -> Integer.compare(
+                CommitGraph.generation(a.getID()),
+                CommitGraph.generation(b.getID())));
+
+        HashMap<String, String> bases = new HashMap<String, String>();
+        for (Commit commit: commits) {
+            String parent = CommitGraph.firstParent(commit.getID());
+            if (parent == null) {
+                continue;
+            }
+            TreeMap<String, String[]> changes = Tree.diff(
+                    getTree(ObjectStore.readCommit(parent)),
+                    getTree(commit));
+            for (String[] ids: changes.values()) {
+                if (ids[0] != null && ids[1] != null
+                        && !bases.containsKey(ids[1])
+                        && !isDeltaOf(ids[0], ids[1], bases)) {
+                    bases.put(ids[1], ids[0]);
+                }
+            }
+        }
 
+        Pack.repack(bases);
+    }
 
-        input[0] = "rm-branch";
-        removeBranch(input);
+    /** Returns whether the blob with ID BASE already has TARGET in its
+     * chain of delta bases, so that storing TARGET against BASE would
+     * make a cycle.
+     * @param base is the ID of the candidate base
+     * @param target is the ID of the blob to be stored
+     * @param bases maps blob IDs to their chosen bases
+     * @return boolean is whether BASE is stored against TARGET*/
+    public static boolean isDeltaOf(String base, String target,
+                                    HashMap<String, String> bases) {
+        for (String id = base; id != null; id = bases.get(id)) {
+            if (id.equals(target)) {
+                return true;
+            }
+        }
+        return false;
     }
 
 
@@ -848,17 +1018,13 @@ public class Main {
             exitWithError("Cannot merge a branch with"
                     + " itself.", 0);
         }
-        if (STAGE_FOLDER.listFiles().length != 0) {
+        if (!StagingIndex.isEmpty()) {
             exitWithError("You have uncommitted changes.",
                     0);
         }
         String commitID = Utils.readContentsAsString(branchFile);
-        File commitFile = getFile(commitID + ".txt",
-                COMMITS_FOLDER.listFiles());
-        Commit commit = Utils.readObject(commitFile,
-                Commit.class);
+        Commit commit = getCommit(commitID);
         Commit headCommit = getHeadCommit();
-        untrackedFileError(commit, headCommit);
         Commit splitCommit = findSplitPoint(commit, headCommit);
         if (splitCommit == null) {
             exitWithError("Unknown error, split commit not found",
@@ -870,17 +1036,23 @@ public class Main {
             String[] input = {"checkout", args[1]};
             checkout(input);
             pln("Current branch fast-forwarded.");
+            return;
         }
-        checkCommit(commit, headCommit, splitCommit);
-        for (String filePath: headCommit.getFileToID().keySet()) {
-            if (!commit.getFileToID().containsKey(filePath)
-                    && !splitCommit.getFileToID().containsKey(filePath)) {
-                stageFile(new File(filePath), Utils.readContentsAsString
-                        (new File(filePath)), false);
+        HashMap<String, String> splitSnapshot = new HashMap<String, String>();
+        HashMap<String, String> headSnapshot = new HashMap<String, String>();
+        HashMap<String, String> otherSnapshot = new HashMap<String, String>();
+        mergeSnapshots(splitCommit, headCommit, commit, splitSnapshot,
+                headSnapshot, otherSnapshot);
+        MergePlan plan = new MergePlan(splitSnapshot, headSnapshot,
+                otherSnapshot);
+        for (String filePath: plan.getTouched()) {
+            if (!headSnapshot.containsKey(filePath)
+                    && new File(filePath).exists()) {
+                exitWithError("There is an untracked file in the way; "
+                        + "delete it, or add and commit it first.", 0);
             }
         }
-        checkSplitCommit(commit, headCommit, splitCommit);
-        boolean conflict = checkMergeConflict(commit, headCommit);
+        boolean conflict = applyMergePlan(plan);
         String[] input = {"commit-merge", "Merged " + args[1]
                 + " into "
                 + removeTXT(getHeadBranch().getName()) + ".", commitID};
@@ -890,198 +1062,196 @@ public class Main {
         }
     }
 
-    /** The merge method merges the files of both the
-     * current branch and the given branch.
-     * @param f is given file
-     * @param contents is the String contents to be put
-     * in the staged file
-     * @param remove is a boolean telling whether the file
-     * should be staged for removal or addition*/
-    public static void stageFile(File f, String contents,
-                                 boolean remove) throws IOException {
-        File stage = Utils.join(STAGE_FOLDER, Utils.sha1(contents));
-        if (remove) {
-            stage = Utils.join(STAGE_FOLDER,
-                    "remove*" + f.getName());
-        }
-        Utils.writeContents(stage, contents);
-        Commit currentCommit = Utils.readObject(CURRENT_COMMIT_FILE,
-                Commit.class);
-        if (remove) {
-            currentCommit.addRemoveFile(f);
+    /** Returns the full snapshot of the given commit, mapping every
+     * file it tracks to the SHA-1 ID of its contents. The snapshot is
+     * read from the commit's tree, or, for commits saved by older
+     * versions of gitlet without one, built by replaying the staged
+     * files of its first-parent history onto the nearest ancestor
+     * with a tree.
+     * @param commit is the given commit
+     * @return the mapping of file pathways to content IDs*/
+    public static HashMap<String, String> getSnapshot(Commit commit) {
+        ArrayList<Commit> history = new ArrayList<Commit>();
+        history.add(commit);
+        String id = CommitGraph.firstParent(commit.getID());
+        while (commit.getTree().isEmpty() && id != null) {
+            commit = ObjectStore.readCommit(id);
+            history.add(commit);
+            id = CommitGraph.firstParent(id);
+        }
+        HashMap<String, String> result;
+        int start = history.size() - 1;
+        if (commit.getTree().isEmpty()) {
+            result = new HashMap<String, String>();
         } else {
-            currentCommit.addFile(f);
+            result = Tree.read(commit.getTree());
+            start -= 1;
         }
-        Utils.writeObject(CURRENT_COMMIT_FILE, currentCommit);
-    }
-
-    /** A helper method to find the split point between the
-     * two branches by iterating through the parents of the
-     * commits.
-     * @param branch1Commit is head commit of the given branch
-     * @param branch2Commit is the head commit of the current branch
-     * @return is the split commit*/
-    public static Commit findSplitPoint(Commit branch1Commit,
-                                        Commit branch2Commit) {
-        Commit commit1 = branch1Commit;
-        Commit commit2 = branch2Commit;
-        while (commit1 != null && commit2 != null) {
-            if (commit1.getID().equals(commit2.getID())
-                    || commit2.getParent().equals(commit1.getID())) {
-                return commit1;
-            } else if (commit1.getParent().equals(commit2.getID())) {
-                return commit2;
-            }
-
-            if (commit1.getParent().isEmpty()) {
-                commit1 = null;
-            } else {
-                commit1 = Utils.readObject(getFile(
-                        commit1.getParent() + ".txt",
-                        COMMITS_FOLDER.listFiles()), Commit.class);
+        for (int i = start; i >= 0; i -= 1) {
+            for (Map.Entry<String, String> entry
+                    : getChanges(history.get(i)).entrySet()) {
+                if (entry.getValue() == null) {
+                    result.remove(entry.getKey());
+                } else {
+                    result.put(entry.getKey(), entry.getValue());
+                }
             }
+        }
+        return result;
+    }
 
-            if (commit2.getParent().isEmpty()) {
-                commit2 = null;
+    /** Returns the files staged in the given commit, mapped to the
+     * IDs of their contents, or to null for files staged for removal.
+     * @param commit is the given commit
+     * @return the mapping of file pathways to content IDs*/
+    public static HashMap<String, String> getChanges(Commit commit) {
+        HashMap<String, String> result = new HashMap<String, String>();
+        for (Map.Entry<String, String> entry
+                : commit.getFileToID().entrySet()) {
+            if (entry.getValue().startsWith("remove*")) {
+                result.put(entry.getKey(), null);
             } else {
-                commit2 = Utils.readObject(getFile(
-                        commit2.getParent() + ".txt",
-                        COMMITS_FOLDER.listFiles()), Commit.class);
+                result.put(entry.getKey(), entry.getValue());
             }
         }
-
-        return null;
-
+        return result;
     }
 
-    /** A helper method to check whether a file has been modified
-     * between two commit.
-     * @param filePath is the pathway of the file
-     * @param currentContentsID is contents of the file in
-     * the start commit
-     * @param start is the starting head commit
-     * @param end is the ending commit, usually the split poijt
-     * @return is whether the file has been modifiedt*/
-    public static boolean checkFileModified(String filePath,
-                                            String currentContentsID,
-                                            Commit start, Commit end) {
-        Commit current = start;
-        while (!current.getID().equals(end.getID())) {
-            if (current.getFileToID().containsKey(filePath)
-                && !current.getIDFromFile(filePath).equals(currentContentsID)) {
-                return true;
-            }
-            current = Utils.readObject(getFile(current.getParent()
-                    + ".txt", COMMITS_FOLDER.listFiles()), Commit.class);
+    /** Returns the ID of the root tree of the given commit, writing
+     * one from its snapshot if it was saved by an older version of
+     * gitlet without a tree.
+     * @param commit is the given commit
+     * @return String is the ID of its root tree*/
+    public static String getTree(Commit commit) {
+        if (commit.getTree().isEmpty()) {
+            return Tree.write(getSnapshot(commit));
         }
-        return false;
+        return commit.getTree();
     }
 
-    /** A helper method to check on the files
-     * in the split commit.
-     * @param commit is the given commit.
-     * @param headCommit is given head commit
-     * @param splitCommit is the given split commit*/
-    public static void checkSplitCommit(Commit commit,
-                                        Commit headCommit,
-                                        Commit splitCommit) throws IOException {
-        for (String filePath : splitCommit.getFileToID().keySet()) {
-            File f = new File(filePath);
-            if (!commit.getFileToID().containsKey(filePath)
-                    && !checkFileModified(filePath, splitCommit.getIDFromFile(
-                    filePath), headCommit, splitCommit)) {
-                f.delete();
-                Commit curr = Utils.readObject(CURRENT_COMMIT_FILE,
-                        Commit.class);
-                if (curr.getFileToID().containsKey(filePath)) {
-                    Utils.join(STAGE_FOLDER, curr.getIDFromFile(
-                            filePath)).delete();
-                    curr.getFileToID().remove(filePath);
-                }
-            } else if (!headCommit.getFileToID().containsKey(filePath)
-                    && checkFileModified(filePath, splitCommit.getIDFromFile(
-                    filePath), commit, splitCommit)) {
-                stageFile(f, "", true);
-                f.delete();
+    /** Fills the given snapshots of the split point, current branch
+     * and given branch of a merge with the files changed between the
+     * split point and either branch, found by diffing their trees
+     * without reading unchanged subtrees. Files changed in neither
+     * branch are left out, since the merge does not touch them.
+     * @param split is the split commit
+     * @param head is the head commit of the current branch
+     * @param other is the head commit of the given branch
+     * @param splitSnapshot is filled with the split point's IDs
+     * @param headSnapshot is filled with the current branch's IDs
+     * @param otherSnapshot is filled with the given branch's IDs*/
+    public static void mergeSnapshots(Commit split, Commit head,
+                                      Commit other,
+                                      HashMap<String, String> splitSnapshot,
+                                      HashMap<String, String> headSnapshot,
+                                      HashMap<String, String>
+                                              otherSnapshot) {
+        String splitTree = getTree(split);
+        TreeMap<String, String[]> headChanges =
+                Tree.diff(splitTree, getTree(head));
+        TreeMap<String, String[]> otherChanges =
+                Tree.diff(splitTree, getTree(other));
+        TreeMap<String, String[]> changes =
+                new TreeMap<String, String[]>();
+        for (Map.Entry<String, String[]> entry: headChanges.entrySet()) {
+            String[] ids = entry.getValue();
+            changes.put(entry.getKey(), new String[] {ids[0], ids[1], ids[0]});
+        }
+        for (Map.Entry<String, String[]> entry: otherChanges.entrySet()) {
+            String[] ids = entry.getValue();
+            String[] merged = changes.computeIfAbsent(entry.getKey(),
+                    k -> new String[] {ids[0], ids[0], null});
+            merged[2] = ids[1];
+        }
+        for (Map.Entry<String, String[]> entry: changes.entrySet()) {
+            String[] ids = entry.getValue();
+            if (ids[0] != null) {
+                splitSnapshot.put(entry.getKey(), ids[0]);
+            }
+            if (ids[1] != null) {
+                headSnapshot.put(entry.getKey(), ids[1]);
+            }
+            if (ids[2] != null) {
+                otherSnapshot.put(entry.getKey(), ids[2]);
             }
         }
     }
 
-    /** A helper method to check for a merge conflict
-     * and updated files accordingly.
-     * @param commit is the given commit.
-     * @param headCommit is given head commit
+    /** Applies the given merge plan to the working directory and
+     * stages every change it makes, writing the staging index once.
+     * Files modified in both branches are merged line by line.
+     * @param plan is the merge plan
      * @return is a boolean showing whether there was a
      * merge conflict*/
-    public static boolean checkMergeConflict(
-            Commit commit,
-            Commit headCommit) throws IOException {
+    public static boolean applyMergePlan(MergePlan plan) throws IOException {
         boolean conflict = false;
-        for (String filePath: commit.getFileToID().keySet()) {
-            if (headCommit.getFileToID().containsKey(filePath)
-                    && !commit.getIDFromFile(filePath).equals(
-                    headCommit.getIDFromFile(filePath))) {
-                File headFileContents = getFile(headCommit.
-                        getIDFromFile(filePath), OBJECTS_FOLDER.listFiles());
-                File fileContents = getFile(commit.getIDFromFile(filePath),
-                        OBJECTS_FOLDER.listFiles());
-                String headContents = Utils.readContentsAsString(
-                        headFileContents);
-                String contents = Utils.readContentsAsString(fileContents);
-                if (headFileContents.getName().substring(0, 7).
-                        equals("remove*")) {
-                    headContents = "";
-                } else if (fileContents.getName().substring(0, 7).
-                        equals("remove*")) {
-                    contents = "";
-                }
-                String combined = "<<<<<<< HEAD\n" + headContents
-                        + "=======\n" + contents + ">>>>>>>\n";
-                Utils.writeContents(new File(filePath), combined);
-                stageFile(new File(filePath), combined, false);
-                conflict = true;
+        for (Map.Entry<String, String> entry
+                : plan.getCheckouts().entrySet()) {
+            new File(entry.getKey()).getParentFile().mkdirs();
+            ObjectStore.extract(entry.getValue(), new File(entry.getKey()));
+            StatCache.record(new File(entry.getKey()), entry.getValue());
+            StagingIndex.stage(entry.getKey(), entry.getValue());
+        }
+        for (String filePath: plan.getRemovals()) {
+            StagingIndex.stageRemoval(filePath);
+            deleteFile(new File(filePath));
+        }
+        for (Map.Entry<String, String[]> entry
+                : plan.getConflicts().entrySet()) {
+            String[] ids = entry.getValue();
+            ByteArrayOutputStream merged = new ByteArrayOutputStream();
+            conflict |= ContentMerge.merge(readBlob(ids[0]),
+                    readBlob(ids[1]), readBlob(ids[2]), merged);
+            byte[] contents = merged.toByteArray();
+            String id = Utils.sha1(contents);
+            new File(entry.getKey()).getParentFile().mkdirs();
+            Utils.writeContents(new File(entry.getKey()), contents);
+            StatCache.record(new File(entry.getKey()), id);
+            if (!ObjectStore.hasObject(id)) {
+                Utils.writeContents(Utils.join(STAGE_FOLDER, id),
+                        Compression.deflate(contents));
             }
+            StagingIndex.stage(entry.getKey(), id);
         }
+        StagingIndex.save();
         return conflict;
     }
 
-
-    /** A helper method that iterates through the commit
-     * and checks if files need to be changed or updated.
-     * @param commit is the given commit.
-     * @param headCommit is given head commit
-     * @param splitCommit is the given split commit*/
-    public static void checkCommit(Commit commit, Commit
-            headCommit, Commit splitCommit) throws IOException {
-        for (String filePath: commit.getFileToID().keySet()) {
-            File f = new File(filePath);
-            boolean cond1 = splitCommit.getFileToID().containsKey(filePath)
-                    && !commit.getIDFromFile(filePath).
-                    equals(splitCommit.getIDFromFile(filePath))
-                    && !checkFileModified(filePath,
-                    splitCommit.getIDFromFile(filePath),
-                    headCommit, splitCommit);
-            boolean cond2 = !splitCommit.getFileToID().containsKey(filePath)
-                    && !headCommit.getFileToID().containsKey(filePath)
-                    && !f.exists();
-            if (cond1 || cond2) {
-                revertFile(f, commit);
-                if (commit.getIDFromFile(filePath).substring(0, 7).
-                        equals("remove*")) {
-                    stageFile(f, "", true);
-                } else {
-                    stageFile(f, Utils.readContentsAsString(f), false);
-                }
-            }
+    /** Returns the contents of the blob with the given ID, treating a
+     * missing file as empty.
+     * @param id is the SHA-1 ID of the blob, or null
+     * @return byte[] is the contents of the blob*/
+    public static byte[] readBlob(String id) {
+        if (id == null) {
+            return new byte[0];
         }
+        return ObjectStore.readObject(id);
+    }
+
+    /** A helper method to find the split point between the
+     * two branches, the latest common ancestor of their head
+     * commits found by MergeBase.
+     * @param branch1Commit is head commit of the given branch
+     * @param branch2Commit is the head commit of the current branch
+     * @return is the split commit*/
+    public static Commit findSplitPoint(Commit branch1Commit,
+                                        Commit branch2Commit) {
+        String splitID = MergeBase.find(branch2Commit.getID(),
+                branch1Commit.getID());
+        return ObjectStore.readCommit(splitID);
     }
 
     /** A helper method to print an error statement and exit
-     * from the program.
+     * from the program, or end just the command when it is run
+     * by the Daemon.
      * @param args is the error statement
      * @param exitCode is the exit Code*/
     public static void exitWithError(String args, int exitCode) {
         pln(args);
+        Journal.abort();
+        if (Daemon.serving()) {
+            throw new Daemon.Exit(exitCode);
+        }
         System.exit(exitCode);
     }
 
@@ -1124,7 +1294,8 @@ public class Main {
     /** The objects folder containing all committed blobs (files). */
     static final File OBJECTS_FOLDER = new File(".gitlet/objects");
 
-    /** The current commit file containing the serialized current commit. */
+    /** The staging commit file of older versions of gitlet, read only
+     * to move its contents into the staging index. */
     static final File CURRENT_COMMIT_FILE = new File(".gitlet/commit.txt");
 
 
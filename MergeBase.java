@@ -0,0 +1,154 @@
+package gitlet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+
+/** MergeBase finds the latest common ancestor of two commits over the
+ * commit graph, following both parents of merge commits. Commits are
+ * painted with the side (or sides) they are reachable from, visiting
+ * the highest generation first so the walk stops as soon as every
+ * remaining commit lies below a common ancestor already found, or
+ * only one side's paint is still spreading.
+ * @author Ria Vora*/
+public class MergeBase {
+
+    /** Paint flag for commits reachable from the first commit. */
+    static final int PARENT1 = 1;
+
+    /** Paint flag for commits reachable from the second commit. */
+    static final int PARENT2 = 2;
+
+    /** Paint flag for commits below a common ancestor already found. */
+    static final int STALE = 4;
+
+    /** Paint flag for commits found to be common ancestors. */
+    static final int RESULT = 8;
+
+    /** Returns the ID of the latest common ancestor of the two given
+     * commits. If there are several, returns the one reachable from
+     * HEAD by the fewest parent pointers.
+     * @param head is the ID of the head commit of the current branch
+     * @param other is the ID of the head commit of the given branch
+     * @return String is the ID of the split point, or null*/
+    public static String find(String head, String other) {
+        ArrayList<String> candidates = findAll(head, other);
+        if (candidates.size() <= 1) {
+            return candidates.isEmpty() ? null : candidates.get(0);
+        }
+        return closest(head, new HashSet<String>(candidates));
+    }
+
+    /** Returns the IDs of every latest common ancestor of the two
+     * given commits, none of which is an ancestor of another.
+     * @param id1 is the ID of the first commit
+     * @param id2 is the ID of the second commit
+     * @return the ArrayList of common ancestor IDs*/
+    public static ArrayList<String> findAll(String id1, String id2) {
+        ArrayList<String> result = new ArrayList<String>();
+        if (id1.equals(id2)) {
+            result.add(id1);
+            return result;
+        }
+        HashMap<String, Integer> flags = new HashMap<String, Integer>();
+        HashMap<String, Integer> generations = new HashMap<String, Integer>();
+        HashSet<String> queued = new HashSet<String>();
+        PriorityQueue<String> queue = new PriorityQueue<String>(
+            (a, b) -> Integer.compare(generations.get(b),
+                    generations.get(a)));
+        int[] unstale = new int[2];
+        String[] ids = {id1, id2};
+        for (int i = 0; i < ids.length; i += 1) {
+            String id = ids[i];
+            int paint = i == 0 ? PARENT1 : PARENT2;
+            flags.put(id, paint);
+            generations.put(id, CommitGraph.generation(id));
+            queue.add(id);
+            queued.add(id);
+            count(unstale, paint, 1);
+        }
+        while (unstale[0] > 0 && unstale[1] > 0) {
+            String id = queue.poll();
+            queued.remove(id);
+            int paint = flags.get(id);
+            count(unstale, paint, -1);
+            int sides = paint & (PARENT1 | PARENT2 | STALE);
+            if (sides == (PARENT1 | PARENT2)) {
+                if ((paint & RESULT) == 0) {
+                    flags.put(id, paint | RESULT);
+                    result.add(id);
+                }
+                sides |= STALE;
+            }
+            for (String parent: CommitGraph.parents(id)) {
+                int old = flags.getOrDefault(parent, 0);
+                if ((old & sides) == sides) {
+                    continue;
+                }
+                flags.put(parent, old | sides);
+                if (queued.contains(parent)) {
+                    count(unstale, old, -1);
+                } else {
+                    generations.computeIfAbsent(parent,
+                            CommitGraph::generation);
+                    queue.add(parent);
+                    queued.add(parent);
+                }
+                count(unstale, old | sides, 1);
+            }
+        }
+        ArrayList<String> latest = new ArrayList<String>();
+        for (String id: result) {
+            if ((flags.get(id) & STALE) == 0) {
+                latest.add(id);
+            }
+        }
+        return latest;
+    }
+
+    /** Adds DELTA to the count in UNSTALE of queued commits painted
+     * with each side that the given paint holds, unless it is STALE.
+     * A common ancestor is only found where both sides' paint meets,
+     * so the walk ends once either count reaches zero.
+     * @param unstale is the counts for PARENT1 and PARENT2
+     * @param paint is the paint of a commit joining or leaving the
+     * queue
+     * @param delta is 1 or -1*/
+    private static void count(int[] unstale, int paint, int delta) {
+        if ((paint & STALE) == 0) {
+            if ((paint & PARENT1) != 0) {
+                unstale[0] += delta;
+            }
+            if ((paint & PARENT2) != 0) {
+                unstale[1] += delta;
+            }
+        }
+    }
+
+    /** Returns whichever of the given candidates is reachable from
+     * START by the fewest parent pointers.
+     * @param start is the ID of the commit searched from
+     * @param candidates is the set of candidate commit IDs
+     * @return String is the closest candidate, or null*/
+    private static String closest(String start, HashSet<String> candidates) {
+        ArrayDeque<String> fringe = new ArrayDeque<String>();
+        HashSet<String> visited = new HashSet<String>();
+        fringe.add(start);
+        visited.add(start);
+        while (!fringe.isEmpty()) {
+            String id = fringe.poll();
+            if (candidates.contains(id)) {
+                return id;
+            }
+            for (String parent: CommitGraph.parents(id)) {
+                if (visited.add(parent)) {
+                    fringe.add(parent);
+                }
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,111 @@
+package gitlet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of the split points MergeBase finds, seen through merge.
+ * @author Ria Vora*/
+public class MergeBaseTest {
+
+    /** Makes a repository with a committed file and a branch named
+     * other.*/
+    @Before
+    public void setUp() {
+        _repo = new TestRepo();
+        _repo.run("init");
+        commit("f.txt", "base");
+        _repo.run("branch", "other");
+    }
+
+    /** Deletes the repository.*/
+    @After
+    public void tearDown() {
+        _repo.delete();
+    }
+
+    /** A branch behind the current one is an ancestor of it. */
+    @Test
+    public void ancestor() {
+        commit("f.txt", "ahead");
+        assertEquals("Given branch is an ancestor of the current branch.\n",
+                _repo.run("merge", "other"));
+    }
+
+    /** A branch ahead of the current one is fast-forwarded to. */
+    @Test
+    public void fastForward() {
+        _repo.run("checkout", "other");
+        commit("f.txt", "ahead");
+        _repo.run("checkout", "master");
+        assertEquals("Current branch fast-forwarded.\n",
+                _repo.run("merge", "other"));
+        assertEquals("ahead", _repo.read("f.txt"));
+    }
+
+    /** A branch already merged is an ancestor of the merge, reached
+     * through its second parent. */
+    @Test
+    public void alreadyMerged() {
+        diverge();
+        _repo.run("merge", "other");
+        assertEquals("Given branch is an ancestor of the current branch.\n",
+                _repo.run("merge", "other"));
+    }
+
+    /** After a merge, the split point with the merged branch is its
+     * head as it was merged, not the older split point, so that later
+     * changes on it merge without conflict. */
+    @Test
+    public void splitThroughMerge() {
+        diverge();
+        _repo.run("merge", "other");
+        _repo.run("checkout", "other");
+        commit("g.txt", "changed on other");
+        _repo.run("checkout", "master");
+        assertEquals("", _repo.run("merge", "other"));
+        assertEquals("changed on other", _repo.read("g.txt"));
+        assertEquals("master", _repo.read("f.txt"));
+    }
+
+    /** A criss-cross history has two latest common ancestors, and
+     * merging it still takes the changes of both sides. */
+    @Test
+    public void crissCross() {
+        diverge();
+        _repo.run("branch", "master-side");
+        _repo.run("merge", "other");
+        _repo.run("checkout", "other");
+        _repo.run("merge", "master-side");
+        commit("h.txt", "other");
+        _repo.run("checkout", "master");
+        commit("i.txt", "master");
+        assertEquals("", _repo.run("merge", "other"));
+        assertEquals("other", _repo.read("h.txt"));
+        assertEquals("master", _repo.read("i.txt"));
+        assertEquals("other side", _repo.read("g.txt"));
+    }
+
+    /** Commits f.txt on master and a new g.txt on other, leaving
+     * master checked out.*/
+    private void diverge() {
+        commit("f.txt", "master");
+        _repo.run("checkout", "other");
+        commit("g.txt", "other side");
+        _repo.run("checkout", "master");
+    }
+
+    /** Commits a new version of a file.
+     * @param name is the name of the file
+     * @param contents is the new contents*/
+    private void commit(String name, String contents) {
+        _repo.write(name, contents);
+        _repo.run("add", name);
+        _repo.run("commit", name + " " + contents);
+    }
+
+    /** The repository. */
+    private TestRepo _repo;
+
+}
@@ -0,0 +1,93 @@
+package gitlet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/** MergePlan holds the changes a merge makes to the working directory
+ * and staging area, found in one pass over the snapshots of the split
+ * point, the head of the current branch and the head of the given
+ * branch. A snapshot maps each tracked file's canonical pathway to the
+ * SHA-1 ID of its contents.
+ * @author Ria Vora*/
+public class MergePlan {
+
+    /** Compares the three given snapshots of a merge.
+     * @param split is the snapshot of the split point
+     * @param head is the snapshot of the current branch
+     * @param other is the snapshot of the given branch*/
+    public MergePlan(HashMap<String, String> split,
+                     HashMap<String, String> head,
+                     HashMap<String, String> other) {
+        _checkouts = new TreeMap<String, String>();
+        _removals = new ArrayList<String>();
+        _conflicts = new TreeMap<String, String[]>();
+        TreeSet<String> filePaths = new TreeSet<String>(split.keySet());
+        filePaths.addAll(head.keySet());
+        filePaths.addAll(other.keySet());
+        for (String filePath: filePaths) {
+            String splitID = split.get(filePath);
+            String headID = head.get(filePath);
+            String otherID = other.get(filePath);
+            if (Objects.equals(headID, otherID)
+                    || Objects.equals(splitID, otherID)) {
+                continue;
+            } else if (Objects.equals(splitID, headID)) {
+                if (otherID == null) {
+                    _removals.add(filePath);
+                } else {
+                    _checkouts.put(filePath, otherID);
+                }
+            } else {
+                _conflicts.put(filePath,
+                        new String[] {splitID, headID, otherID});
+            }
+        }
+    }
+
+    /** Getter method, returns the files to be checked out from the
+     * given branch and staged.
+     * @return the mapping of file pathways to content IDs*/
+    public TreeMap<String, String> getCheckouts() {
+        return _checkouts;
+    }
+
+    /** Getter method, returns the files to be removed and staged
+     * for removal.
+     * @return the ArrayList of file pathways*/
+    public ArrayList<String> getRemovals() {
+        return _removals;
+    }
+
+    /** Getter method, returns the files modified in different ways in
+     * both branches, each mapped to the content IDs at the split point,
+     * in the current branch and in the given branch (null if absent).
+     * @return the mapping of file pathways to content IDs*/
+    public TreeMap<String, String[]> getConflicts() {
+        return _conflicts;
+    }
+
+    /** Returns every file pathway the merge writes to or deletes.
+     * @return the ArrayList of file pathways*/
+    public ArrayList<String> getTouched() {
+        ArrayList<String> result = new ArrayList<String>(_checkouts.keySet());
+        result.addAll(_removals);
+        result.addAll(_conflicts.keySet());
+        return result;
+    }
+
+    /** Files to be checked out from the given branch, mapped to the
+     * IDs of their contents. */
+    private TreeMap<String, String> _checkouts;
+
+    /** Files present at the split point, unmodified in the current
+     * branch and absent in the given branch. */
+    private ArrayList<String> _removals;
+
+    /** Files modified in different ways in the two branches, which
+     * are merged line by line and may conflict. */
+    private TreeMap<String, String[]> _conflicts;
+
+}
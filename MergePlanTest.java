@@ -0,0 +1,75 @@
+package gitlet;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of the three-way snapshot comparison of MergePlan.
+ * @author Ria Vora*/
+public class MergePlanTest {
+
+    /** Files unchanged in the given branch, or changed the same way in
+     * both, are left alone. */
+    @Test
+    public void leavesAlone() {
+        MergePlan plan = new MergePlan(
+                snapshot("a", "1", "b", "1", "c", "1"),
+                snapshot("a", "2", "b", "2", "c", "1"),
+                snapshot("a", "1", "b", "2", "c", "1"));
+        assertTrue(plan.getTouched().isEmpty());
+    }
+
+    /** Files changed or added only in the given branch are checked
+     * out from it. */
+    @Test
+    public void checksOut() {
+        MergePlan plan = new MergePlan(snapshot("a", "1"),
+                snapshot("a", "1"), snapshot("a", "2", "new", "3"));
+        assertEquals(snapshot("a", "2", "new", "3"),
+                new HashMap<String, String>(plan.getCheckouts()));
+        assertTrue(plan.getRemovals().isEmpty());
+        assertTrue(plan.getConflicts().isEmpty());
+    }
+
+    /** Files removed only in the given branch are removed. */
+    @Test
+    public void removes() {
+        MergePlan plan = new MergePlan(snapshot("a", "1", "b", "1"),
+                snapshot("a", "1", "b", "1"), snapshot("b", "1"));
+        assertEquals(Arrays.asList("a"), plan.getRemovals());
+        assertTrue(plan.getCheckouts().isEmpty());
+    }
+
+    /** Files changed differently in both branches, including removed in
+     * one and changed in the other, or added differently in both,
+     * conflict, with their IDs in each snapshot. */
+    @Test
+    public void conflicts() {
+        MergePlan plan = new MergePlan(
+                snapshot("both", "1", "gone", "1"),
+                snapshot("both", "2", "gone", "2", "added", "4"),
+                snapshot("both", "3", "added", "5"));
+        assertArrayEquals(new String[] {"1", "2", "3"},
+                plan.getConflicts().get("both"));
+        assertArrayEquals(new String[] {"1", "2", null},
+                plan.getConflicts().get("gone"));
+        assertArrayEquals(new String[] {null, "4", "5"},
+                plan.getConflicts().get("added"));
+        assertEquals(3, plan.getTouched().size());
+    }
+
+    /** Returns the snapshot mapping each even-numbered string to the
+     * string after it.
+     * @param pairs is the file pathways and IDs
+     * @return the snapshot*/
+    private static HashMap<String, String> snapshot(String... pairs) {
+        HashMap<String, String> result = new HashMap<String, String>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            result.put(pairs[i], pairs[i + 1]);
+        }
+        return result;
+    }
+
+}
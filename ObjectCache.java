@@ -0,0 +1,203 @@
+package gitlet;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** ObjectCache holds recently read commits, tree nodes and blob
+ * contents, keyed by their IDs, so that reading the same object again
+ * within a command, or across the commands of the Daemon, decodes
+ * nothing. Every kind of object is immutable once stored, so entries
+ * never go stale. The
+ * cache is a least-recently-used map bounded by the approximate size
+ * of what it holds; blob contents are held through soft references,
+ * so the garbage collector may also drop them under memory pressure.
+ * Hits and misses are counted for diagnostics, printed after each
+ * command when the GITLET_CACHE_STATS environment variable is set.
+ * @author Ria Vora*/
+public class ObjectCache {
+
+    /** The environment variable asking for the counters to be printed. */
+    static final String STATS_VARIABLE = "GITLET_CACHE_STATS";
+
+    /** The largest total size in bytes of the cached objects. */
+    static final long CAPACITY = 64L << 20;
+
+    /** The largest blob in bytes that is cached. */
+    static final int MAX_BLOB = 8 << 20;
+
+    /** The approximate size in bytes of a commit, not counting its
+     * files. */
+    static final int COMMIT_SIZE = 256;
+
+    /** The approximate size in bytes of each file a commit records. */
+    static final int FILE_SIZE = 128;
+
+    /** Returns the cached commit with the given ID, or null.
+     * @param id is the full SHA-1 ID of the commit
+     * @return Commit is the commit*/
+    public static synchronized Commit commit(String id) {
+        Object result = get(id);
+        if (result instanceof Commit) {
+            _commitHits += 1;
+            return (Commit) result;
+        }
+        _commitMisses += 1;
+        return null;
+    }
+
+    /** Caches the given commit.
+     * @param c is the commit*/
+    public static synchronized void putCommit(Commit c) {
+        put(c.getID(), c, COMMIT_SIZE
+                + FILE_SIZE * c.getFileToID().size());
+    }
+
+    /** Returns the cached tree node with the given ID, or null.
+     * @param id is the SHA-1 ID of the node
+     * @return Tree.Node is the decoded node*/
+    static synchronized Tree.Node node(String id) {
+        Object result = get(id);
+        if (result instanceof Tree.Node) {
+            _nodeHits += 1;
+            return (Tree.Node) result;
+        }
+        _nodeMisses += 1;
+        return null;
+    }
+
+    /** Caches the given tree node.
+     * @param id is the SHA-1 ID of the node
+     * @param node is the decoded node
+     * @param width is the number of entries or buckets it holds*/
+    static synchronized void putNode(String id, Tree.Node node,
+                                     int width) {
+        put(id, node, COMMIT_SIZE + FILE_SIZE * width);
+    }
+
+    /** Returns the cached contents of the blob with the given ID, or
+     * null.
+     * @param id is the SHA-1 ID of the blob
+     * @return byte[] is its contents*/
+    public static synchronized byte[] blob(String id) {
+        Object result = get(id);
+        if (result instanceof SoftReference) {
+            byte[] contents = (byte[]) ((SoftReference<?>) result).get();
+            if (contents != null) {
+                _blobHits += 1;
+                return contents;
+            }
+            remove(id);
+        }
+        _blobMisses += 1;
+        return null;
+    }
+
+    /** Caches the contents of the blob with the given ID, unless it is
+     * larger than MAX_BLOB.
+     * @param id is the SHA-1 ID of the blob
+     * @param contents is its contents*/
+    public static synchronized void putBlob(String id, byte[] contents) {
+        if (contents.length <= MAX_BLOB) {
+            put(id, new SoftReference<byte[]>(contents), contents.length);
+        }
+    }
+
+    /** Returns the hit and miss counters.
+     * @return String is the counters, ready to print*/
+    public static synchronized String stats() {
+        return String.format("object cache: commits %d hits %d misses, "
+                + "nodes %d hits %d misses, blobs %d hits %d misses, "
+                + "%d objects %d bytes", _commitHits, _commitMisses,
+                _nodeHits, _nodeMisses, _blobHits, _blobMisses,
+                _entries.size(), _size);
+    }
+
+    /** Prints the counters to standard error if STATS_VARIABLE is set.*/
+    public static void printStats() {
+        if (System.getenv(STATS_VARIABLE) != null) {
+            System.err.println(stats());
+        }
+    }
+
+    /** Returns the cached object with the given ID, marking it most
+     * recently used.
+     * @param id is the ID
+     * @return Object is the commit, node or soft reference, or null*/
+    private static Object get(String id) {
+        Entry entry = _entries.get(id);
+        return entry == null ? null : entry._value;
+    }
+
+    /** Caches the given object, evicting the least recently used
+     * objects until the cache is within CAPACITY.
+     * @param id is the ID
+     * @param value is the commit, node or soft reference
+     * @param size is its approximate size in bytes*/
+    private static void put(String id, Object value, long size) {
+        remove(id);
+        _entries.put(id, new Entry(value, size));
+        _size += size;
+        Iterator<Map.Entry<String, Entry>> eldest =
+            _entries.entrySet().iterator();
+        while (_size > CAPACITY && eldest.hasNext()) {
+            _size -= eldest.next().getValue()._size;
+            eldest.remove();
+        }
+    }
+
+    /** Drops the object with the given ID.
+     * @param id is the ID*/
+    private static void remove(String id) {
+        Entry old = _entries.remove(id);
+        if (old != null) {
+            _size -= old._size;
+        }
+    }
+
+    /** One cached object and its approximate size. */
+    private static class Entry {
+
+        /** An entry holding VALUE of approximately SIZE bytes.
+         * @param value is the commit, node or soft reference
+         * @param size is its approximate size in bytes*/
+        Entry(Object value, long size) {
+            _value = value;
+            _size = size;
+        }
+
+        /** The commit, the node, or the soft reference to blob
+         * contents. */
+        private final Object _value;
+
+        /** The approximate size in bytes. */
+        private final long _size;
+    }
+
+    /** The cached objects, least recently used first. */
+    private static final LinkedHashMap<String, Entry> _entries =
+        new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    /** The approximate total size in bytes of the cached objects. */
+    private static long _size;
+
+    /** The number of commit reads answered from the cache. */
+    private static long _commitHits;
+
+    /** The number of commit reads not answered from the cache. */
+    private static long _commitMisses;
+
+    /** The number of tree node reads answered from the cache. */
+    private static long _nodeHits;
+
+    /** The number of tree node reads not answered from the cache. */
+    private static long _nodeMisses;
+
+    /** The number of blob reads answered from the cache. */
+    private static long _blobHits;
+
+    /** The number of blob reads not answered from the cache. */
+    private static long _blobMisses;
+
+}
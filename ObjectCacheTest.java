@@ -0,0 +1,161 @@
+package gitlet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of the ObjectCache of decoded commits, tree nodes and blobs,
+ * and of its counters.
+ * @author Ria Vora*/
+public class ObjectCacheTest {
+
+    /** A cached commit is a hit, and an uncached one a miss. */
+    @Test
+    public void countsCommits() {
+        Commit c = commit(new HashMap<String, String>());
+        long[] before = counters(ObjectCache.stats());
+        assertNull(ObjectCache.commit(c.getID()));
+        ObjectCache.putCommit(c);
+        assertSame(c, ObjectCache.commit(c.getID()));
+        long[] after = counters(ObjectCache.stats());
+        assertEquals(before[COMMIT_HITS] + 1, after[COMMIT_HITS]);
+        assertEquals(before[COMMIT_HITS + 1] + 1, after[COMMIT_HITS + 1]);
+    }
+
+    /** Blobs are cached unless larger than MAX_BLOB. */
+    @Test
+    public void limitsBlobs() {
+        Random random = new Random(0);
+        String small = Benchmark.randomID(random);
+        String large = Benchmark.randomID(random);
+        byte[] contents = new byte[10];
+        ObjectCache.putBlob(small, contents);
+        ObjectCache.putBlob(large, new byte[ObjectCache.MAX_BLOB + 1]);
+        assertSame(contents, ObjectCache.blob(small));
+        assertNull(ObjectCache.blob(large));
+    }
+
+    /** Past CAPACITY, the least recently used objects are evicted
+     * first. */
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        HashMap<String, String> files = new HashMap<String, String>();
+        for (int i = 0; i < BIG_COMMIT; i += 1) {
+            files.put("/f" + i, "");
+        }
+        long size = ObjectCache.COMMIT_SIZE
+                + ObjectCache.FILE_SIZE * (long) BIG_COMMIT;
+        ArrayList<Commit> commits = new ArrayList<Commit>();
+        for (long filled = 0; filled <= ObjectCache.CAPACITY;
+             filled += size) {
+            Commit c = commit(files);
+            commits.add(c);
+            ObjectCache.putCommit(c);
+            assertNotNull(ObjectCache.commit(commits.get(0).getID()));
+        }
+        assertNotNull(ObjectCache.commit(commits.get(0).getID()));
+        assertNull(ObjectCache.commit(commits.get(1).getID()));
+        assertNotNull(ObjectCache.commit(
+                commits.get(commits.size() - 1).getID()));
+    }
+
+    /** log decodes each commit once, and counts it as one miss. */
+    @Test
+    public void countsEachCommitOnce() {
+        TestRepo repo = new TestRepo();
+        try {
+            repo.run("init");
+            for (int i = 0; i < 3; i += 1) {
+                repo.write("a.txt", "version " + i);
+                repo.run("add", "a.txt");
+                repo.run("commit", "version " + i);
+            }
+            assertFalse(repo.run("log").contains("object cache"));
+            repo.setEnvironment(ObjectCache.STATS_VARIABLE, "1");
+            long[] counters = counters(repo.run("log"));
+            assertEquals(0, counters[COMMIT_HITS]);
+            assertEquals(4, counters[COMMIT_HITS + 1]);
+        } finally {
+            repo.delete();
+        }
+    }
+
+    /** A merge reads the tree nodes its split point and heads share
+     * from the cache. */
+    @Test
+    public void sharesNodes() {
+        TestRepo repo = new TestRepo();
+        try {
+            repo.run("init");
+            repo.write("d/a.txt", "a");
+            repo.write("e/b.txt", "b");
+            repo.run("add", ".");
+            repo.run("commit", "one");
+            repo.run("branch", "other");
+            repo.write("top.txt", "top");
+            repo.run("add", "top.txt");
+            repo.run("commit", "two");
+            repo.run("checkout", "other");
+            repo.write("e/c.txt", "c");
+            repo.run("add", "e/c.txt");
+            repo.run("commit", "three");
+            repo.run("checkout", "master");
+            repo.setEnvironment(ObjectCache.STATS_VARIABLE, "1");
+            assertTrue(counters(repo.run("merge", "other"))[NODE_HITS] > 0);
+        } finally {
+            repo.delete();
+        }
+    }
+
+    /** Returns a new commit with a random ID holding the given files.
+     * @param files is the mapping of its files to content IDs
+     * @return Commit is the commit*/
+    private static Commit commit(HashMap<String, String> files) {
+        return new Commit(Benchmark.randomID(_random), "", "cached",
+                "Thu Jan 01 00:00:00 1970 +0000", files);
+    }
+
+    /** Returns the counters in the given output, in the order
+     * ObjectCache.stats prints them.
+     * @param output is output holding a line of stats
+     * @return long[] is the counters*/
+    private static long[] counters(String output) {
+        Matcher line = STATS_LINE.matcher(output);
+        assertTrue(output, line.find());
+        Matcher number = NUMBER.matcher(line.group());
+        long[] result = new long[COUNTERS];
+        for (int i = 0; i < COUNTERS && number.find(); i += 1) {
+            result[i] = Long.parseLong(number.group());
+        }
+        return result;
+    }
+
+    /** The index of the commit hits among the counters, followed by
+     * the commit misses. */
+    private static final int COMMIT_HITS = 0;
+
+    /** The index of the node hits among the counters. */
+    private static final int NODE_HITS = 2;
+
+    /** The number of counters in a line of stats. */
+    private static final int COUNTERS = 8;
+
+    /** The number of files in each commit filling the cache. */
+    private static final int BIG_COMMIT = 100000;
+
+    /** A line of stats printed by ObjectCache. */
+    private static final Pattern STATS_LINE =
+        Pattern.compile("^object cache: .*$", Pattern.MULTILINE);
+
+    /** A number in a line of stats. */
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+
+    /** The source of commit IDs. */
+    private static Random _random = new Random(0);
+
+}
@@ -0,0 +1,434 @@
+package gitlet;
+
+import java.io.File;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/** ObjectStore resolves commits and blobs stored in the .gitlet
+ * folder. Both are sharded into fan-out subdirectories named by the
+ * first two characters of their SHA-1 ID, so every lookup is a direct
+ * path instead of a scan over one ever-growing directory, and both are
+ * stored compressed by Compression. Blobs consolidated by the repack
+ * command are read from their Pack instead. Commits and blobs read are
+ * kept in the ObjectCache.
+ * @author Ria Vora*/
+public class ObjectStore {
+
+    /** The number of leading ID characters naming a shard folder. */
+    static final int FAN_OUT = 2;
+
+    /** The size in bytes from which files are memory-mapped to be
+     * hashed. */
+    static final long MAP_THRESHOLD = 1 << 20;
+
+    /** The largest region of a file mapped at once while hashing. */
+    static final long MAP_CHUNK = 1 << 28;
+
+    /** The size in bytes of the buffer small files are hashed with. */
+    static final int READ_CHUNK = 1 << 16;
+
+    /** The digits of a hexadecimal SHA-1 ID. */
+    private static final char[] HEX_DIGITS =
+        "0123456789abcdef".toCharArray();
+
+    /** Returns the shard folder name for the given ID or name.
+     * @param id is the SHA-1 ID (or staged name) of the object
+     * @return the name of the shard folder*/
+    static String shard(String id) {
+        return id.substring(0, FAN_OUT);
+    }
+
+    /** Returns the file holding the commit with the given ID,
+     * whether or not it exists.
+     * @param id is the full SHA-1 ID of the commit
+     * @return File is the commit's pathway*/
+    public static File commitFile(String id) {
+        return Utils.join(Main.COMMITS_FOLDER, shard(id), id + ".txt");
+    }
+
+    /** Returns the file holding the blob with the given ID,
+     * whether or not it exists.
+     * @param id is the SHA-1 ID of the blob's contents
+     * @return File is the blob's pathway*/
+    public static File objectFile(String id) {
+        return Utils.join(Main.OBJECTS_FOLDER, shard(id), id);
+    }
+
+    /** Returns whether a blob with the given ID exists, loose or
+     * packed.
+     * @param id is the SHA-1 ID of the blob's contents
+     * @return boolean is whether the blob exists*/
+    public static boolean hasObject(String id) {
+        return objectFile(id).exists() || Pack.contains(id);
+    }
+
+    /** Returns whether a commit with the given full ID exists.
+     * @param id is the full SHA-1 ID of the commit
+     * @return boolean is whether the commit exists*/
+    public static boolean hasCommit(String id) {
+        return id != null && id.length() >= FAN_OUT
+                && commitFile(id).exists();
+    }
+
+    /** Returns the commit with the given full ID, or null if
+     * there is no such commit.
+     * @param id is the full SHA-1 ID of the commit
+     * @return Commit is the stored commit*/
+    public static Commit readCommit(String id) {
+        Commit cached = id == null ? null : ObjectCache.commit(id);
+        if (cached != null) {
+            return cached;
+        } else if (!hasCommit(id)) {
+            return null;
+        }
+        return decodeCommit(commitFile(id));
+    }
+
+    /** Returns the commit stored in the given commit file.
+     * @param file is the commit file
+     * @return Commit is the stored commit*/
+    public static Commit readCommit(File file) {
+        Commit cached = ObjectCache.commit(Main.removeTXT(file.getName()));
+        return cached != null ? cached : decodeCommit(file);
+    }
+
+    /** Decodes the commit stored in the given commit file with
+     * CommitCodec or, for commits saved by older versions of gitlet,
+     * with Java serialization, and caches it. The cache is checked
+     * by the callers, so that each read is counted once.
+     * @param file is the commit file
+     * @return Commit is the stored commit*/
+    private static Commit decodeCommit(File file) {
+        Commit result;
+        byte[] contents = Compression.inflate(Utils.readContents(file));
+        if (CommitCodec.isEncoded(contents)) {
+            result = CommitCodec.decode(contents);
+        } else {
+            try (ObjectInputStream in = new ObjectInputStream(
+                    new ByteArrayInputStream(contents))) {
+                result = Commit.class.cast(in.readObject());
+            } catch (IOException | ClassNotFoundException
+                     | ClassCastException excp) {
+                throw new GitletException(excp.getMessage());
+            }
+        }
+        ObjectCache.putCommit(result);
+        return result;
+    }
+
+    /** Writes the given commit into its shard of the commits folder
+     * and records it in the commit index and commit graph.
+     * @param c is the commit to be saved*/
+    public static void writeCommit(Commit c) {
+        File file = commitFile(c.getID());
+        file.getParentFile().mkdirs();
+        Journal.create(file, Compression.deflate(CommitCodec.encode(c)));
+        CommitIndex.add(c.getID());
+        CommitGraph.add(c);
+        ObjectCache.putCommit(c);
+    }
+
+    /** Returns the file a blob with the given ID should be written
+     * to, creating its shard folder if needed.
+     * @param id is the SHA-1 ID of the blob's contents
+     * @return File is the blob's pathway*/
+    public static File newObjectFile(String id) {
+        File file = objectFile(id);
+        file.getParentFile().mkdirs();
+        return file;
+    }
+
+    /** Returns the uncompressed contents of the blob with the given ID.
+     * @param id is the SHA-1 ID of the blob's contents
+     * @return byte[] is its contents*/
+    public static byte[] readObject(String id) {
+        byte[] result = ObjectCache.blob(id);
+        if (result != null) {
+            return result;
+        }
+        File file = objectFile(id);
+        result = file.exists() ? Compression.inflate(file) : Pack.read(id);
+        ObjectCache.putBlob(id, result);
+        return result;
+    }
+
+    /** Returns a stream of the contents of the blob with the given ID,
+     * decompressed only as far as it is read if it is loose.
+     * @param id is the SHA-1 ID of the blob's contents
+     * @return InputStream is the stream, to be closed by the caller*/
+    public static InputStream openObject(String id) throws IOException {
+        File file = objectFile(id);
+        if (!file.exists()) {
+            return new ByteArrayInputStream(readObject(id));
+        }
+        return Compression.open(file);
+    }
+
+    /** Writes the given contents compressed as the blob with the given
+     * ID, unless it is already in the store.
+     * @param id is the SHA-1 ID of the contents
+     * @param contents is the uncompressed contents*/
+    public static void writeObject(String id, byte[] contents) {
+        if (!hasObject(id)) {
+            Journal.create(newObjectFile(id), Compression.deflate(contents));
+        }
+    }
+
+    /** Writes the contents of the blob with the given ID into the
+     * given file, decompressing it as it is streamed.
+     * @param id is the SHA-1 ID of the blob's contents
+     * @param dest is the file to be written*/
+    public static void extract(String id, File dest) {
+        File file = objectFile(id);
+        if (!file.exists()) {
+            Utils.writeContents(dest, readObject(id));
+        } else {
+            Compression.inflate(file, dest);
+        }
+    }
+
+    /** Moves the given staged file into the objects folder as the
+     * blob with the given ID. It is renamed in place where the stage
+     * and objects folders share a filesystem, and otherwise copied
+     * with transferTo beside the blob and renamed over it. A blob
+     * already in the store is not written again, and the staged file
+     * is released either way. The rename is recorded in the Journal.
+     * @param staged is the staged file, which may already be gone
+     * @param id is the SHA-1 ID of its contents*/
+    public static void promote(File staged, String id) {
+        File object = objectFile(id);
+        if (hasObject(id) || !staged.exists()) {
+            Journal.release(staged);
+            return;
+        }
+        object.getParentFile().mkdirs();
+        try {
+            try {
+                Journal.move(staged, object);
+            } catch (AtomicMoveNotSupportedException excp) {
+                File temp = new File(object.getPath() + ".tmp");
+                copy(staged, temp);
+                Journal.move(temp, object);
+                Journal.release(staged);
+            }
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Returns the files of every commit in the repository.
+     * @return the ArrayList of commit files*/
+    public static ArrayList<File> commitFiles() {
+        ArrayList<File> result = new ArrayList<File>();
+        for (File shard: Main.COMMITS_FOLDER.listFiles()) {
+            if (shard.isDirectory()) {
+                for (File file: shard.listFiles()) {
+                    result.add(file);
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Returns the SHA-1 ID of the contents of the given file,
+     * reading it in chunks, or memory-mapping it if it is at least
+     * MAP_THRESHOLD bytes, so it is never held in memory whole.
+     * @param file is the file
+     * @return String is the SHA-1 ID of its contents*/
+    public static String hash(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.READ)) {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD) {
+                for (long pos = 0; pos < size; pos += MAP_CHUNK) {
+                    md.update(channel.map(FileChannel.MapMode.READ_ONLY,
+                            pos, Math.min(MAP_CHUNK, size - pos)));
+                }
+            } else {
+                ByteBuffer buffer = ByteBuffer.allocate(READ_CHUNK);
+                while (channel.read(buffer) > 0) {
+                    buffer.flip();
+                    md.update(buffer);
+                    buffer.clear();
+                }
+            }
+            return toHex(md.digest());
+        } catch (IOException | NoSuchAlgorithmException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Returns the SHA-1 ID of the contents of SOURCE, writing them
+     * compressed into DEST as they are read, so that a file that is
+     * to be stored is read only once.
+     * @param source is the file
+     * @param dest is the file its compressed contents are written to
+     * @return String is the SHA-1 ID of its contents*/
+    public static String hash(File source, File dest) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            try (InputStream in = new DigestInputStream(
+                    new FileInputStream(source), md);
+                 OutputStream out = new FileOutputStream(dest)) {
+                Compression.deflate(in, out);
+            }
+            return toHex(md.digest());
+        } catch (IOException | NoSuchAlgorithmException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Copies the contents of SOURCE into DEST, replacing DEST, by
+     * transferring between the two file channels.
+     * @param source is the file copied from
+     * @param dest is the file copied to*/
+    public static void copy(File source, File dest) {
+        try (FileChannel in = FileChannel.open(source.toPath(),
+                StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(dest.toPath(),
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long pos = 0;
+            while (pos < size) {
+                pos += in.transferTo(pos, size - pos, out);
+            }
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Returns the raw bytes of the given hexadecimal SHA-1 ID.
+     * @param id is the hexadecimal ID
+     * @return byte[] is the ID as UID_LENGTH / 2 bytes*/
+    public static byte[] toBytes(String id) {
+        byte[] result = new byte[id.length() / 2];
+        for (int i = 0; i < result.length; i += 1) {
+            result[i] = (byte) (Character.digit(id.charAt(2 * i), 16) << 4
+                    | Character.digit(id.charAt(2 * i + 1), 16));
+        }
+        return result;
+    }
+
+    /** Returns the hexadecimal form of the given raw SHA-1 ID.
+     * @param id is the ID as raw bytes
+     * @return String is the hexadecimal ID*/
+    public static String toHex(byte[] id) {
+        char[] result = new char[id.length * 2];
+        for (int i = 0; i < id.length; i += 1) {
+            result[2 * i] = HEX_DIGITS[(id[i] >> 4) & 0xf];
+            result[2 * i + 1] = HEX_DIGITS[id[i] & 0xf];
+        }
+        return new String(result);
+    }
+
+    /** Returns whether migrate has nothing left to do, reading only.
+     * @return boolean is whether every object is sharded and
+     * compressed*/
+    public static boolean migrated() {
+        if (!COMPRESSED_FILE.exists()) {
+            return false;
+        }
+        for (File folder: new File[] {Main.COMMITS_FOLDER,
+                                       Main.OBJECTS_FOLDER}) {
+            for (File file: folder.listFiles()) {
+                if (file.isFile()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Moves commits and blobs saved by older versions of gitlet,
+     * which kept every object directly in the commits and objects
+     * folders, into their shard folders, then compresses those they
+     * saved uncompressed.*/
+    public static void migrate() {
+        for (File file: Main.COMMITS_FOLDER.listFiles()) {
+            if (file.isFile()) {
+                File moved = commitFile(Main.removeTXT(file.getName()));
+                moved.getParentFile().mkdirs();
+                file.renameTo(moved);
+            }
+        }
+        for (File file: Main.OBJECTS_FOLDER.listFiles()) {
+            if (file.isFile()) {
+                file.renameTo(newObjectFile(file.getName()));
+            }
+        }
+        if (!COMPRESSED_FILE.exists()) {
+            compressAll();
+        }
+    }
+
+    /** Compresses every commit, blob and staged file saved
+     * uncompressed by older versions of gitlet, then writes
+     * COMPRESSED_FILE so that this is done once. A blob or staged file
+     * is uncompressed exactly when its contents hash to its name, so
+     * user files that happen to start as compressed files do are never
+     * mistaken for them. Commit files start with the header of
+     * CommitCodec or of Java serialization when uncompressed.*/
+    private static void compressAll() {
+        for (File file: commitFiles()) {
+            byte[] contents = Utils.readContents(file);
+            if (!Compression.isCompressed(contents)) {
+                compress(file);
+            }
+        }
+        ArrayList<File> blobs = new ArrayList<File>();
+        for (File shard: Main.OBJECTS_FOLDER.listFiles()) {
+            if (shard.isDirectory()) {
+                blobs.addAll(Arrays.asList(shard.listFiles()));
+            }
+        }
+        blobs.addAll(Arrays.asList(Main.STAGE_FOLDER.listFiles()));
+        for (File file: blobs) {
+            if (file.isFile() && hash(file).equals(file.getName())) {
+                compress(file);
+            }
+        }
+        Journal.force(Main.GITLET_FOLDER);
+        Utils.writeContents(COMPRESSED_FILE, new byte[0]);
+        Journal.force(COMPRESSED_FILE);
+    }
+
+    /** Replaces the given uncompressed file with its compressed form,
+     * forcing it to disk before it is renamed over the file.
+     * @param file is the file*/
+    private static void compress(File file) {
+        try {
+            File temp = File.createTempFile(file.getName(), ".lock",
+                    Main.GITLET_FOLDER);
+            Compression.deflate(file, temp);
+            Journal.force(temp);
+            Files.move(temp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            Journal.force(file.getParentFile());
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** The file marking that every stored object is compressed. */
+    static final File COMPRESSED_FILE = new File(".gitlet/compressed");
+
+}
@@ -0,0 +1,79 @@
+package gitlet;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of the fan-out layout of the ObjectStore.
+ * @author Ria Vora*/
+public class ObjectStoreTest {
+
+    /** Makes a repository with one commit of one file.*/
+    @Before
+    public void setUp() {
+        _repo = new TestRepo();
+        _repo.run("init");
+        _repo.write("a.txt", "a\n");
+        _repo.run("add", "a.txt");
+        _repo.run("commit", "one");
+    }
+
+    /** Deletes the repository.*/
+    @After
+    public void tearDown() {
+        _repo.delete();
+    }
+
+    /** Every commit and blob is in the shard folder named by the first
+     * characters of its ID. */
+    @Test
+    public void shardsObjects() {
+        String head = _repo.head();
+        String shard = head.substring(0, ObjectStore.FAN_OUT);
+        assertTrue(_repo.file(".gitlet/commits/" + shard + "/" + head
+                + ".txt").isFile());
+        for (String folder: new String[] {".gitlet/commits",
+                                          ".gitlet/objects"}) {
+            for (File f: _repo.file(folder).listFiles()) {
+                assertTrue(f.getPath(), f.isDirectory());
+                assertEquals(ObjectStore.FAN_OUT, f.getName().length());
+                for (File object: f.listFiles()) {
+                    assertTrue(object.getName().startsWith(f.getName()));
+                }
+            }
+        }
+    }
+
+    /** A commit is read straight from its shard by its full ID. */
+    @Test
+    public void readsByID() {
+        String head = _repo.head();
+        _repo.write("a.txt", "changed\n");
+        _repo.run("checkout", head, "--", "a.txt");
+        assertEquals(0, _repo.status());
+        assertEquals("a\n", _repo.read("a.txt"));
+    }
+
+    /** Commits and blobs left directly in the commits and objects
+     * folders by older versions of gitlet are moved into their shards
+     * by the next command. */
+    @Test
+    public void migratesFlatFolders() {
+        String head = _repo.head();
+        String shard = head.substring(0, ObjectStore.FAN_OUT);
+        File sharded = _repo.file(".gitlet/commits/" + shard + "/" + head
+                + ".txt");
+        File flat = _repo.file(".gitlet/commits/" + head + ".txt");
+        assertTrue(sharded.renameTo(flat));
+        assertTrue(_repo.run("log").contains("one"));
+        assertTrue(sharded.isFile());
+        assertFalse(flat.exists());
+    }
+
+    /** The repository. */
+    private TestRepo _repo;
+
+}
@@ -0,0 +1,506 @@
+package gitlet;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/** Pack holds objects consolidated out of the objects folder by the
+ * repack command. A packfile is a sequence of entries, each either a
+ * whole object, stored as Compression stores loose objects, or a
+ * compressed Delta against a base object. Packs of version 1 could hold
+ * whole objects uncompressed, which are told apart by hashing to their
+ * IDs, and are written compressed by the next repack. Beside each
+ * packfile is an index of its object IDs in sorted order, with a
+ * fan-out table by first byte and each object's offset, which is
+ * memory-mapped so an object is found with a binary search.
+ * @author Ria Vora*/
+public class Pack {
+
+    /** The bytes a packfile starts with. */
+    static final byte[] MAGIC = {'G', 'L', 'K'};
+
+    /** The bytes a pack index starts with. */
+    static final byte[] INDEX_MAGIC = {'G', 'L', 'X'};
+
+    /** The current version of packfiles and pack indexes. */
+    static final int VERSION = 2;
+
+    /** The kind of an entry holding a whole object. */
+    static final int FULL = 0;
+
+    /** The kind of an entry holding a delta against a base object. */
+    static final int DELTA = 1;
+
+    /** The longest chain of deltas an object is read through. */
+    static final int MAX_DEPTH = 50;
+
+    /** The width in bytes of one SHA-1 ID. */
+    static final int ID = Utils.UID_LENGTH / 2;
+
+    /** The width in bytes of a pack index header: its magic, version
+     * and count, then the fan-out table. */
+    static final int HEADER = INDEX_MAGIC.length + 1 + Integer.BYTES
+            + 256 * Integer.BYTES;
+
+    /** Returns whether any pack holds the object with the given ID.
+     * @param id is the SHA-1 ID of the object
+     * @return boolean is whether it is packed*/
+    public static boolean contains(String id) {
+        return find(id) != null;
+    }
+
+    /** Returns the uncompressed contents of the packed object with the
+     * given ID, applying its chain of deltas.
+     * @param id is the SHA-1 ID of the object
+     * @return byte[] is its contents*/
+    public static byte[] read(String id) {
+        PackFile pack = find(id);
+        if (pack == null) {
+            throw new GitletException("No object " + id + ".");
+        }
+        Entry entry = pack.entry(id);
+        if (entry._kind == FULL) {
+            return pack.uncompressed(id, entry._data) ? entry._data
+                    : Compression.inflate(entry._data);
+        }
+        return Delta.apply(ObjectStore.readObject(entry._base),
+                Compression.inflate(entry._data));
+    }
+
+    /** Returns the IDs of every packed object.
+     * @return the TreeSet of IDs*/
+    public static TreeSet<String> ids() {
+        TreeSet<String> result = new TreeSet<String>();
+        for (PackFile pack: load()) {
+            for (int i = 0; i < pack._count; i += 1) {
+                result.add(pack.id(i));
+            }
+        }
+        return result;
+    }
+
+    /** Writes every loose and packed object into one new packfile,
+     * storing an object as a delta against its entry in BASES where
+     * that is less than half its size and keeps its delta chain within
+     * MAX_DEPTH, then forces it to disk and deletes the loose objects
+     * and the old packs. The Journal is checkpointed first, so that
+     * recovery never writes back the loose objects deleted.
+     * @param bases maps object IDs to the IDs of earlier versions of
+     * the same file, with no cycles*/
+    public static void repack(Map<String, String> bases) {
+        Journal.checkpoint();
+        TreeMap<String, File> loose = looseObjects();
+        TreeSet<String> ids = ids();
+        ids.addAll(loose.keySet());
+        if (ids.isEmpty()) {
+            return;
+        }
+        PACK_FOLDER.mkdirs();
+        HashMap<String, Integer> depths = new HashMap<String, Integer>();
+        TreeMap<String, Long> offsets = new TreeMap<String, Long>();
+        File temp = new File(PACK_FOLDER, "pack.lock");
+        MessageDigest digest = sha1();
+        try (DigestOutputStream hashed = new DigestOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp)), digest);
+             DataOutputStream out = new DataOutputStream(hashed)) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            long offset = MAGIC.length + 1;
+            for (String id: ids) {
+                offsets.put(id, offset);
+                String base = bases.get(id);
+                byte[] delta = null;
+                if (base != null && ids.contains(base)
+                        && depth(base, bases, ids, depths) < MAX_DEPTH) {
+                    byte[] contents = ObjectStore.readObject(id);
+                    delta = Delta.create(ObjectStore.readObject(base),
+                            contents);
+                    if (delta.length >= contents.length / 2) {
+                        delta = null;
+                    }
+                }
+                byte[] data;
+                if (delta != null) {
+                    depths.put(id, depth(base, bases, ids, depths) + 1);
+                    data = Compression.deflate(delta);
+                    out.writeByte(DELTA);
+                    CommitCodec.writeID(out, base);
+                    offset += 1 + ID;
+                } else {
+                    depths.put(id, 0);
+                    data = stored(id, loose);
+                    out.writeByte(FULL);
+                    offset += 1;
+                }
+                out.writeInt(data.length);
+                out.write(data);
+                offset += Integer.BYTES + data.length;
+            }
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        String name = "pack-" + ObjectStore.toHex(digest.digest());
+        move(temp, new File(PACK_FOLDER, name + ".pack"));
+        writeIndex(offsets, new File(PACK_FOLDER, name + ".idx"));
+        Journal.force(new File(PACK_FOLDER, name + ".pack"));
+        Journal.force(new File(PACK_FOLDER, name + ".idx"));
+        Journal.force(PACK_FOLDER);
+        for (File file: PACK_FOLDER.listFiles()) {
+            if (!file.getName().startsWith(name)) {
+                file.delete();
+            }
+        }
+        for (File file: loose.values()) {
+            file.delete();
+            file.getParentFile().delete();
+        }
+        _packs = null;
+    }
+
+    /** Returns the compressed contents of the loose or packed object
+     * with the given ID as a FULL entry holds them.
+     * @param id is the SHA-1 ID of the object
+     * @param loose is every loose object by ID
+     * @return byte[] is its compressed contents*/
+    private static byte[] stored(String id, TreeMap<String, File> loose) {
+        if (loose.containsKey(id)) {
+            return Utils.readContents(loose.get(id));
+        }
+        PackFile pack = find(id);
+        byte[] data = pack.entry(id)._data;
+        if (pack.uncompressed(id, data)) {
+            return Compression.deflate(data);
+        }
+        return data;
+    }
+
+    /** Returns the length of the delta chain the object with the given
+     * ID will be read through once packed, working it out from BASES
+     * for objects not yet written.
+     * @param id is the SHA-1 ID of the object
+     * @param bases maps object IDs to their candidate bases
+     * @param ids is the IDs of every object being packed
+     * @param depths maps the IDs already written to their depths
+     * @return int is the depth, 0 for a whole object*/
+    private static int depth(String id, Map<String, String> bases,
+                             TreeSet<String> ids,
+                             HashMap<String, Integer> depths) {
+        int result = 0;
+        while (!depths.containsKey(id) && bases.containsKey(id)
+                && ids.contains(bases.get(id)) && result <= MAX_DEPTH) {
+            id = bases.get(id);
+            result += 1;
+        }
+        return result + depths.getOrDefault(id, 0);
+    }
+
+    /** Returns every loose object in the objects folder by ID.
+     * @return the mapping of IDs to object files*/
+    private static TreeMap<String, File> looseObjects() {
+        TreeMap<String, File> result = new TreeMap<String, File>();
+        for (File shard: Main.OBJECTS_FOLDER.listFiles()) {
+            if (shard.isDirectory()) {
+                for (File file: shard.listFiles()) {
+                    if (file.getName().length() == Utils.UID_LENGTH) {
+                        result.put(file.getName(), file);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Writes the index of a packfile holding the objects at the given
+     * offsets.
+     * @param offsets maps each object ID to its offset in the pack
+     * @param file is the index file*/
+    private static void writeIndex(TreeMap<String, Long> offsets,
+                                   File file) {
+        ByteBuffer index = ByteBuffer.allocate(HEADER
+                + offsets.size() * (ID + Long.BYTES));
+        index.put(INDEX_MAGIC);
+        index.put((byte) VERSION);
+        index.putInt(offsets.size());
+        int[] fanOut = new int[256];
+        for (String id: offsets.keySet()) {
+            fanOut[Integer.parseInt(id.substring(0, 2), 16)] += 1;
+        }
+        int total = 0;
+        for (int count: fanOut) {
+            total += count;
+            index.putInt(total);
+        }
+        for (String id: offsets.keySet()) {
+            index.put(ObjectStore.toBytes(id));
+        }
+        for (long offset: offsets.values()) {
+            index.putLong(offset);
+        }
+        File temp = new File(file.getPath() + ".lock");
+        Utils.writeContents(temp, index.array());
+        move(temp, file);
+    }
+
+    /** Atomically renames SOURCE to DEST.
+     * @param source is the file
+     * @param dest is its new pathway*/
+    private static void move(File source, File dest) {
+        try {
+            Files.move(source.toPath(), dest.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Returns a new SHA-1 digest.
+     * @return MessageDigest is the digest*/
+    private static MessageDigest sha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException excp) {
+            throw new IllegalArgumentException("System does not support "
+                    + "SHA-1");
+        }
+    }
+
+    /** Returns the pack holding the object with the given ID, or null
+     * if it is not packed.
+     * @param id is the SHA-1 ID of the object
+     * @return PackFile is the pack*/
+    private static PackFile find(String id) {
+        for (PackFile pack: load()) {
+            if (pack.position(id) >= 0) {
+                return pack;
+            }
+        }
+        return null;
+    }
+
+    /** Drops the packs read into memory if another process has added
+     * or removed packs since, so that they are read again when next
+     * used.*/
+    static synchronized void revalidate() {
+        if (_packs != null && !Stamp.of(PACK_FOLDER).equals(_stamp)) {
+            _packs = null;
+        }
+    }
+
+    /** Memory-maps the index of every pack, if not done yet.
+     * @return the ArrayList of packs*/
+    private static synchronized ArrayList<PackFile> load() {
+        if (_packs != null) {
+            return _packs;
+        }
+        _stamp = Stamp.of(PACK_FOLDER);
+        _packs = new ArrayList<PackFile>();
+        File[] files = PACK_FOLDER.listFiles();
+        if (files == null) {
+            return _packs;
+        }
+        for (File file: files) {
+            String name = file.getName();
+            if (name.endsWith(".idx")) {
+                _packs.add(new PackFile(new File(PACK_FOLDER,
+                        name.substring(0, name.length() - 4) + ".pack"),
+                        file));
+            }
+        }
+        return _packs;
+    }
+
+    /** One packfile and its memory-mapped index. */
+    private static class PackFile {
+
+        /** The pack with the given packfile and index.
+         * @param pack is the packfile
+         * @param index is its index file*/
+        PackFile(File pack, File index) {
+            _pack = pack;
+            try (RandomAccessFile file = new RandomAccessFile(index, "r")) {
+                _index = file.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                        0, file.length());
+            } catch (IOException excp) {
+                throw new GitletException(excp.getMessage());
+            }
+            for (byte b: INDEX_MAGIC) {
+                if (_index.get() != b) {
+                    throw new GitletException("Corrupt pack index.");
+                }
+            }
+            _version = _index.get();
+            if (_version < 1 || _version > VERSION) {
+                throw new GitletException("Unknown pack index version.");
+            }
+            _count = _index.getInt();
+        }
+
+        /** Returns whether DATA, the data of the FULL entry of the
+         * object with the given ID, is stored uncompressed, as only
+         * packs of version 1 may hold it.
+         * @param id is the SHA-1 ID of the object
+         * @param data is the data of its entry
+         * @return boolean is whether it is uncompressed*/
+        boolean uncompressed(String id, byte[] data) {
+            return _version == 1 && Utils.sha1(data).equals(id);
+        }
+
+        /** Returns the position of the given ID in the index, found by
+         * a binary search within its fan-out range, or -1.
+         * @param id is the SHA-1 ID of the object
+         * @return int is its position*/
+        int position(String id) {
+            byte[] key = ObjectStore.toBytes(id);
+            int first = key[0] & 0xff;
+            int low = first == 0 ? 0 : fanOut(first - 1);
+            int high = fanOut(first);
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compare(mid, key);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        /** Returns the ID at the given position of the index.
+         * @param i is the position
+         * @return String is the hexadecimal ID*/
+        String id(int i) {
+            byte[] result = new byte[ID];
+            ByteBuffer index = _index.duplicate();
+            index.position(HEADER + i * ID);
+            index.get(result);
+            return ObjectStore.toHex(result);
+        }
+
+        /** Reads the entry of the object with the given ID.
+         * @param id is the SHA-1 ID of a packed object
+         * @return Entry is its entry*/
+        Entry entry(String id) {
+            long offset = _index.getLong(HEADER + _count * ID
+                    + position(id) * Long.BYTES);
+            try (FileChannel pack = FileChannel.open(_pack.toPath(),
+                    StandardOpenOption.READ)) {
+                ByteBuffer head = ByteBuffer.allocate(1 + ID);
+                pack.read(head, offset);
+                int kind = head.get(0);
+                String base = null;
+                long pos = offset + 1;
+                if (kind == DELTA) {
+                    byte[] baseID = new byte[ID];
+                    head.position(1);
+                    head.get(baseID);
+                    base = ObjectStore.toHex(baseID);
+                    pos += ID;
+                }
+                ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+                pack.read(length, pos);
+                ByteBuffer data = ByteBuffer.allocate(length.getInt(0));
+                pos += Integer.BYTES;
+                while (data.hasRemaining()) {
+                    int read = pack.read(data, pos + data.position());
+                    if (read < 0) {
+                        throw new GitletException("Corrupt pack.");
+                    }
+                }
+                return new Entry(kind, base, data.array());
+            } catch (IOException excp) {
+                throw new GitletException(excp.getMessage());
+            }
+        }
+
+        /** Returns the cumulative count of IDs whose first byte is at
+         * most the given byte.
+         * @param b is the first byte
+         * @return int is the count*/
+        private int fanOut(int b) {
+            return _index.getInt(INDEX_MAGIC.length + 1 + Integer.BYTES
+                    + b * Integer.BYTES);
+        }
+
+        /** Compares the ID at the given position with KEY.
+         * @param i is the position
+         * @param key is the raw ID
+         * @return int is negative, zero or positive*/
+        private int compare(int i, byte[] key) {
+            int start = HEADER + i * ID;
+            for (int k = 0; k < ID; k += 1) {
+                int cmp = Integer.compare(_index.get(start + k) & 0xff,
+                        key[k] & 0xff);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return 0;
+        }
+
+        /** The packfile. */
+        private final File _pack;
+
+        /** The memory-mapped index. */
+        private final MappedByteBuffer _index;
+
+        /** The version of the pack. */
+        private final int _version;
+
+        /** The number of objects in the pack. */
+        private final int _count;
+    }
+
+    /** One entry of a packfile. */
+    private static class Entry {
+
+        /** An entry with the given fields.
+         * @param kind is FULL or DELTA
+         * @param base is the ID of the delta's base, or null
+         * @param data is the stored object or compressed delta*/
+        Entry(int kind, String base, byte[] data) {
+            _kind = kind;
+            _base = base;
+            _data = data;
+        }
+
+        /** Whether the entry is FULL or a DELTA. */
+        private final int _kind;
+
+        /** The ID of the delta's base, or null. */
+        private final String _base;
+
+        /** The stored object or compressed delta. */
+        private final byte[] _data;
+    }
+
+    /** Every pack, or null if not loaded yet. */
+    private static ArrayList<PackFile> _packs;
+
+    /** The stamp of the pack folder as last read. */
+    private static Stamp _stamp;
+
+    /** The folder holding packfiles and their indexes. */
+    static final File PACK_FOLDER = new File(".gitlet/packs");
+
+}
@@ -0,0 +1,154 @@
+package gitlet;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of Delta encoding and of packing objects with repack.
+ * @author Ria Vora*/
+public class PackTest {
+
+    /** Targets made by random edits of a base are rebuilt exactly from
+     * their deltas, which are much smaller than the targets. */
+    @Test
+    public void deltaRoundTrips() {
+        Random random = new Random(0);
+        for (int trial = 0; trial < TRIALS; trial += 1) {
+            byte[] base = randomBytes(random, random.nextInt(EDIT_SIZE));
+            byte[] target = edit(random, base);
+            byte[] delta = Delta.create(base, target);
+            assertArrayEquals(target, Delta.apply(base, delta));
+            if (base.length >= EDIT_SIZE / 5) {
+                assertTrue(delta.length < target.length / 2);
+            }
+        }
+    }
+
+    /** Empty and unrelated contents have deltas too. */
+    @Test
+    public void deltaEdges() {
+        Random random = new Random(1);
+        byte[] a = randomBytes(random, 1000);
+        byte[] b = randomBytes(random, 1000);
+        byte[][] pairs = {new byte[0], new byte[0], new byte[0], a,
+                          a, new byte[0], a, b, a, a};
+        for (int i = 0; i < pairs.length; i += 2) {
+            assertArrayEquals(pairs[i + 1], Delta.apply(pairs[i],
+                    Delta.create(pairs[i], pairs[i + 1])));
+        }
+    }
+
+    /** Repack moves every loose object into one pack, from which every
+     * version of every file is still checked out exactly, and packing
+     * again changes nothing that is read. */
+    @Test
+    public void repacks() {
+        TestRepo repo = new TestRepo();
+        try {
+            repo.run("init");
+            ArrayList<String> versions = new ArrayList<String>();
+            ArrayList<String> commits = new ArrayList<String>();
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < VERSIONS; i += 1) {
+                for (int line = 0; line < LINES; line += 1) {
+                    text.append("version ").append(i).append(" line ")
+                            .append(line).append('\n');
+                }
+                versions.add(text.toString());
+                repo.write("a.txt", text.toString());
+                repo.write("d/b.txt", "b " + i);
+                repo.run("add", "a.txt", "d/b.txt");
+                repo.run("commit", "version " + i);
+                commits.add(repo.head());
+            }
+            String log = repo.run("log");
+            long loose = size(repo, ".gitlet/objects");
+            assertEquals("", repo.run("repack"));
+            assertEquals(0, size(repo, ".gitlet/objects"));
+            assertEquals(2, repo.file(".gitlet/packs").list().length);
+            assertTrue(size(repo, ".gitlet/packs") < loose);
+            repo.run("repack");
+            for (int i = 0; i < VERSIONS; i += 1) {
+                repo.run("checkout", commits.get(i), "--", "a.txt");
+                assertEquals(versions.get(i), repo.read("a.txt"));
+            }
+            repo.run("checkout", "--", "a.txt");
+            assertEquals(log, repo.run("log"));
+            assertFalse(repo.run("status").contains(".txt"));
+        } finally {
+            repo.delete();
+        }
+    }
+
+    /** Returns a copy of BASE with a few random bytes replaced, inserted
+     * and deleted.
+     * @param random is the source of randomness
+     * @param base is the contents edited
+     * @return byte[] is the edited contents*/
+    private static byte[] edit(Random random, byte[] base) {
+        byte[] result = base.clone();
+        for (int i = random.nextInt(EDITS); i > 0 && result.length > 0;
+             i -= 1) {
+            int at = random.nextInt(result.length);
+            byte[] inserted = randomBytes(random, random.nextInt(20));
+            int deleted = Math.min(random.nextInt(20), result.length - at);
+            byte[] next = new byte[result.length + inserted.length
+                    - deleted];
+            System.arraycopy(result, 0, next, 0, at);
+            System.arraycopy(inserted, 0, next, at, inserted.length);
+            System.arraycopy(result, at + deleted, next,
+                    at + inserted.length, result.length - at - deleted);
+            result = next;
+        }
+        return result;
+    }
+
+    /** Returns the given number of random letters.
+     * @param random is the source of randomness
+     * @param size is the number of letters
+     * @return byte[] is the letters*/
+    private static byte[] randomBytes(Random random, int size) {
+        byte[] result = new byte[size];
+        for (int i = 0; i < size; i += 1) {
+            result[i] = (byte) ('a' + random.nextInt(26));
+        }
+        return result;
+    }
+
+    /** Returns the total size of the files below the given folder of
+     * the repository.
+     * @param repo is the repository
+     * @param folder is the path of the folder
+     * @return long is the size in bytes*/
+    private static long size(TestRepo repo, String folder) {
+        try (Stream<Path> files = Files.walk(
+                repo.file(folder).toPath())) {
+            return files.filter(Files::isRegularFile)
+                    .mapToLong(path -> path.toFile().length()).sum();
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** The number of random deltas made. */
+    private static final int TRIALS = 300;
+
+    /** One more than the largest base a random delta is made from. */
+    private static final int EDIT_SIZE = 5000;
+
+    /** One more than the most edits in a random delta. */
+    private static final int EDITS = 10;
+
+    /** The number of versions committed before repacking. */
+    private static final int VERSIONS = 6;
+
+    /** The number of lines added by each version. */
+    private static final int LINES = 200;
+
+}
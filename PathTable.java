@@ -0,0 +1,161 @@
+package gitlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/** PathTable numbers every repository-relative file path stored in a
+ * commit, so commits record a small integer for each file instead of
+ * its full canonical pathway. The table is an append-only file in
+ * which each path is front-coded against the path before it: the
+ * length of the prefix they share, then the rest of the path. Decoded
+ * commits share one canonical pathway String per path.
+ * @author Ria Vora*/
+public class PathTable {
+
+    /** The bytes the table file starts with. */
+    static final byte[] MAGIC = {'G', 'L', 'P'};
+
+    /** The current version of the table file. */
+    static final int VERSION = 1;
+
+    /** Returns the number of the given canonical pathway, adding it to
+     * the table if it is new.
+     * @param filePath is the canonical pathway of a file
+     * @return int is the number of its relative path*/
+    public static synchronized int id(String filePath) {
+        load();
+        String path = Tree.relativePath(filePath);
+        Integer result = _ids.get(path);
+        if (result == null) {
+            result = _paths.size();
+            append(path);
+            _paths.add(path);
+            _canonical.add(filePath);
+            _ids.put(path, result);
+            _stamp = Stamp.of(TABLE_FILE);
+        }
+        return result;
+    }
+
+    /** Returns the canonical pathway of the path with the given number.
+     * @param id is the number of a path
+     * @return String is its canonical pathway*/
+    public static synchronized String canonicalPath(int id) {
+        load();
+        if (id < 0 || id >= _paths.size()) {
+            throw new GitletException("Unknown path " + id + ".");
+        }
+        String result = _canonical.get(id);
+        if (result == null) {
+            result = Tree.canonicalPath(_paths.get(id));
+            _canonical.set(id, result);
+        }
+        return result;
+    }
+
+    /** Drops the table read into memory if another process has
+     * changed its file since, so that it is read again when next
+     * used.*/
+    static synchronized void revalidate() {
+        if (_paths != null && !Stamp.of(TABLE_FILE).equals(_stamp)) {
+            _paths = null;
+            _canonical = null;
+            _ids = null;
+        }
+    }
+
+    /** Reads the table file, if it has not been read yet.*/
+    private static void load() {
+        if (_paths != null) {
+            return;
+        }
+        _stamp = Stamp.of(TABLE_FILE);
+        _paths = new ArrayList<String>();
+        _canonical = new ArrayList<String>();
+        _ids = new HashMap<String, Integer>();
+        if (!TABLE_FILE.exists()) {
+            return;
+        }
+        byte[] contents = Utils.readContents(TABLE_FILE);
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(contents))) {
+            for (byte b: MAGIC) {
+                if (in.readByte() != b) {
+                    throw new GitletException("Corrupt path table.");
+                }
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new GitletException("Unknown path table version "
+                        + version + ".");
+            }
+            byte[] previous = new byte[0];
+            while (in.available() > 0) {
+                int shared = CommitCodec.readVarint(in);
+                byte[] path = new byte[shared + CommitCodec.readVarint(in)];
+                System.arraycopy(previous, 0, path, 0, shared);
+                in.readFully(path, shared, path.length - shared);
+                String decoded = new String(path, StandardCharsets.UTF_8);
+                _ids.put(decoded, _paths.size());
+                _paths.add(decoded);
+                _canonical.add(null);
+                previous = path;
+            }
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Appends the given path to the table file through the Journal,
+     * front-coded against the last path in the table.
+     * @param path is the relative path*/
+    private static void append(String path) {
+        byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+        byte[] previous = _paths.isEmpty() ? new byte[0]
+                : _paths.get(_paths.size() - 1)
+                .getBytes(StandardCharsets.UTF_8);
+        int shared = 0;
+        while (shared < bytes.length && shared < previous.length
+                && bytes[shared] == previous[shared]) {
+            shared += 1;
+        }
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(record)) {
+            if (!TABLE_FILE.exists()) {
+                out.write(MAGIC);
+                out.writeByte(VERSION);
+            }
+            CommitCodec.writeVarint(out, shared);
+            CommitCodec.writeVarint(out, bytes.length - shared);
+            out.write(bytes, shared, bytes.length - shared);
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        Journal.append(TABLE_FILE, record.toByteArray());
+    }
+
+    /** Every relative path in the table by number, or null if the
+     * table has not been read yet. */
+    private static ArrayList<String> _paths;
+
+    /** The canonical pathway of each path by number, or null where
+     * it has not been needed yet. */
+    private static ArrayList<String> _canonical;
+
+    /** Maps each relative path to its number. */
+    private static HashMap<String, Integer> _ids;
+
+    /** The stamp of the table file as last read or written. */
+    private static Stamp _stamp;
+
+    /** The path table file. */
+    static final File TABLE_FILE = new File(".gitlet/paths");
+
+}
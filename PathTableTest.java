@@ -0,0 +1,136 @@
+package gitlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of the PathTable numbering the paths of committed files.
+ * @author Ria Vora*/
+public class PathTableTest {
+
+    /** Makes a repository with files sharing long prefixes committed.*/
+    @Before
+    public void setUp() {
+        _repo = new TestRepo();
+        _repo.run("init");
+        for (String path: PATHS) {
+            _repo.write(path, path);
+        }
+        _repo.run("add", "src");
+        _repo.run("commit", "paths");
+    }
+
+    /** Deletes the repository.*/
+    @After
+    public void tearDown() {
+        _repo.delete();
+    }
+
+    /** Each path is in the table once, relative to the repository, and
+     * front-coded against the path before it. */
+    @Test
+    public void frontCodesPaths() {
+        _repo.write(PATHS[0], "changed");
+        _repo.run("add", PATHS[0]);
+        _repo.run("commit", "again");
+        ArrayList<String> paths = new ArrayList<String>();
+        int stored = readTable(paths);
+        paths.sort(null);
+        assertEquals(Arrays.asList(PATHS), paths);
+        int whole = 0;
+        for (String path: PATHS) {
+            whole += path.length();
+        }
+        assertTrue(stored + " of " + whole, stored < whole);
+    }
+
+    /** A repository moved to another folder still checks out its files
+     * there, since commits do not record where it was. */
+    @Test
+    public void movesWithRepository() {
+        TestRepo moved = new TestRepo();
+        try {
+            copy(_repo.file("."), moved.file("."));
+            for (String path: PATHS) {
+                assertTrue(moved.file(path).delete());
+                assertEquals("", moved.run("checkout", "--", path));
+                assertEquals(path, moved.read(path));
+            }
+            assertFalse(moved.run("status").contains(".txt"));
+        } finally {
+            moved.delete();
+        }
+    }
+
+    /** Reads the paths in the table into the given list.
+     * @param paths is the list read into
+     * @return int is the number of path bytes the table stores*/
+    private int readTable(ArrayList<String> paths) {
+        byte[] table = Utils.readContents(_repo.file(".gitlet/paths"));
+        assertArrayEquals(PathTable.MAGIC, Arrays.copyOf(table,
+                PathTable.MAGIC.length));
+        int stored = 0;
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(table))) {
+            in.skipBytes(PathTable.MAGIC.length + 1);
+            byte[] previous = new byte[0];
+            while (in.available() > 0) {
+                int shared = CommitCodec.readVarint(in);
+                byte[] path = new byte[shared + CommitCodec.readVarint(in)];
+                System.arraycopy(previous, 0, path, 0, shared);
+                in.readFully(path, shared, path.length - shared);
+                stored += path.length - shared;
+                paths.add(new String(path, StandardCharsets.UTF_8));
+                previous = path;
+            }
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        return stored;
+    }
+
+    /** Copies everything in the folder SOURCE into the folder DEST.
+     * @param source is the folder copied from
+     * @param dest is the folder copied into*/
+    private static void copy(File source, File dest) {
+        Path from = source.toPath().normalize();
+        Path to = dest.toPath().normalize();
+        try (Stream<Path> paths = Files.walk(from)) {
+            for (Path path: (Iterable<Path>) paths::iterator) {
+                Path target = to.resolve(from.relativize(path));
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.copy(path, target);
+                }
+            }
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** The committed paths, in order. */
+    private static final String[] PATHS = {
+        "src/main/java/gitlet/commands/Add.txt",
+        "src/main/java/gitlet/commands/Checkout.txt",
+        "src/main/java/gitlet/commands/Commit.txt",
+        "src/main/java/gitlet/storage/ObjectStore.txt",
+        "src/main/java/gitlet/storage/PathTable.txt",
+    };
+
+    /** The repository. */
+    private TestRepo _repo;
+
+}
@@ -0,0 +1,70 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of promoting staged blobs into the object store at commit.
+ * @author Ria Vora*/
+public class PromoteTest {
+
+    /** Makes a repository.*/
+    @Before
+    public void setUp() {
+        _repo = new TestRepo();
+        _repo.run("init");
+    }
+
+    /** Deletes the repository.*/
+    @After
+    public void tearDown() {
+        _repo.delete();
+    }
+
+    /** A staged blob becomes its object by a rename, keeping its inode,
+     * rather than by being read and written again. */
+    @Test
+    public void renamesStagedBlob() throws IOException {
+        _repo.write("a.txt", "a");
+        _repo.run("add", "a.txt");
+        String id = Utils.sha1("a");
+        Object staged = inode(_repo.file(".gitlet/stage/" + id));
+        _repo.run("commit", "one");
+        File object = _repo.file(".gitlet/objects/"
+                + id.substring(0, ObjectStore.FAN_OUT) + "/" + id);
+        assertEquals(staged, inode(object));
+        assertEquals(0, _repo.file(".gitlet/stage").list().length);
+    }
+
+    /** Contents already in the store are not staged again. */
+    @Test
+    public void skipsStoredContents() {
+        _repo.write("a.txt", "same");
+        _repo.run("add", "a.txt");
+        _repo.run("commit", "one");
+        _repo.write("b.txt", "same");
+        _repo.run("add", "b.txt");
+        assertEquals(0, _repo.file(".gitlet/stage").list().length);
+        _repo.run("commit", "two");
+        assertTrue(_repo.file("a.txt").delete());
+        assertTrue(_repo.file("b.txt").delete());
+        _repo.run("checkout", "--", "b.txt");
+        assertEquals("same", _repo.read("b.txt"));
+    }
+
+    /** Returns the inode of the given file.
+     * @param file is the file
+     * @return Object is its inode*/
+    private static Object inode(File file) throws IOException {
+        return Files.getAttribute(file.toPath(), "unix:ino");
+    }
+
+    /** The repository. */
+    private TestRepo _repo;
+
+}
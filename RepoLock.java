@@ -0,0 +1,122 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/** RepoLock keeps gitlet processes working on the same repository from
+ * running over each other, with a FileChannel lock on a file in the
+ * .gitlet folder held for the whole of each command. Commands that
+ * only read the repository share the lock, so they never wait for one
+ * another, while every other command holds it alone, waiting for the
+ * commands before it to finish. A command sharing the lock writes
+ * nothing, so one that finds the repository needing recovery or
+ * upgrading from an older version of gitlet takes it alone instead.
+ * The operating system drops the lock when a process ends, so a crash
+ * never leaves it held. Where the filesystem cannot lock files,
+ * commands fail rather than run unlocked.
+ * @author Ria Vora*/
+public class RepoLock {
+
+    /** The commands that only read the repository. */
+    static final List<String> READ_ONLY =
+        Arrays.asList("log", "global-log", "find", "status");
+
+    /** The commands that take no lock: init creates the repository,
+     * the daemon locks for each command it runs, and print reads only
+     * the working tree. */
+    static final List<String> UNLOCKED =
+        Arrays.asList("init", "daemon", "print");
+
+    /** Waits for and takes the lock for the given command, shared for
+     * READ_ONLY commands and exclusive for the rest. Nothing is taken
+     * for UNLOCKED commands or outside a repository. The lock is
+     * taken exclusively whenever the repository is not current, since
+     * every command then writes to it.
+     * @param command is the name of the command*/
+    public static void acquire(String command) {
+        if (UNLOCKED.contains(command) || !Main.GITLET_FOLDER.exists()) {
+            return;
+        }
+        lock(READ_ONLY.contains(command));
+        if (shared() && !current()) {
+            release();
+            lock(false);
+        }
+        revalidate();
+    }
+
+    /** Returns whether the repository needs nothing written before a
+     * command reads it: no damaged Journal to recover, and no staging
+     * area, commit index, commit graph or objects left by older
+     * versions of gitlet to upgrade. Reads only, so that it can be
+     * checked while the lock is shared.
+     * @return boolean is whether the repository is current*/
+    private static boolean current() {
+        return !Main.CURRENT_COMMIT_FILE.exists() && !Journal.damaged()
+                && ObjectStore.migrated() && CommitIndex.current()
+                && CommitGraph.current();
+    }
+
+    /** Returns whether the lock held is shared with other commands.
+     * @return boolean is whether it is shared*/
+    public static boolean shared() {
+        return _lock != null && _lock.isShared();
+    }
+
+    /** Waits for and takes the lock.
+     * @param shared is whether it is shared*/
+    private static void lock(boolean shared) {
+        try {
+            _channel = FileChannel.open(LOCK_FILE.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            _lock = _channel.lock(0, Long.MAX_VALUE, shared);
+        } catch (IOException | UnsupportedOperationException excp) {
+            release();
+            Main.exitWithError("Cannot lock the repository.", 1);
+        }
+    }
+
+    /** Makes every class that keeps a repository file in memory between
+     * the commands a Daemon runs read it again if another process has
+     * changed it, now that no other process can be changing it. Tree
+     * nodes, commits and blobs are named by their contents, so those
+     * cached never go stale.*/
+    private static void revalidate() {
+        StagingIndex.reset();
+        Journal.revalidate();
+        PathTable.revalidate();
+        CommitGraph.revalidate();
+        StatCache.revalidate();
+        Pack.revalidate();
+    }
+
+    /** Releases the lock, if it is held.*/
+    public static void release() {
+        try {
+            if (_channel != null) {
+                _channel.close();
+            }
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        } finally {
+            _channel = null;
+            _lock = null;
+        }
+    }
+
+    /** The channel the lock is held through, or null. */
+    private static FileChannel _channel;
+
+    /** The lock, or null. */
+    private static FileLock _lock;
+
+    /** The lock file. */
+    static final File LOCK_FILE = new File(".gitlet/lock");
+
+}
@@ -0,0 +1,296 @@
+package gitlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/** StagingIndex is the staging area: a binary file of entries sorted by
+ * path, each holding the SHA-1 ID of the staged contents and its
+ * flags, with the staged contents themselves kept in the stage
+ * folder under their IDs. It is read once per command, looked up by
+ * path or by ID in O(log n), and written back atomically.
+ * @author Ria Vora*/
+public class StagingIndex {
+
+    /** The bytes the index file starts with. */
+    static final byte[] MAGIC = {'G', 'L', 'I'};
+
+    /** The current version of the index file. */
+    static final int VERSION = 2;
+
+    /** The flag of an entry staging its file for removal. */
+    static final int REMOVED = 1;
+
+    /** Returns whether nothing is staged.
+     * @return boolean is whether the index is empty*/
+    public static boolean isEmpty() {
+        return load().isEmpty();
+    }
+
+    /** Returns whether the given file is staged, for addition or for
+     * removal.
+     * @param filePath is the canonical pathway of the file
+     * @return boolean is whether it is staged*/
+    public static boolean contains(String filePath) {
+        return load().containsKey(filePath);
+    }
+
+    /** Returns whether the given file is staged for removal.
+     * @param filePath is the canonical pathway of the file
+     * @return boolean is whether it is staged for removal*/
+    public static boolean isRemoved(String filePath) {
+        Entry entry = load().get(filePath);
+        return entry != null && (entry._flags & REMOVED) != 0;
+    }
+
+    /** Returns whether any file is staged with the given contents.
+     * @param id is the SHA-1 ID of the contents
+     * @return boolean is whether the ID is staged*/
+    public static boolean references(String id) {
+        load();
+        return _byID.containsKey(id);
+    }
+
+    /** Returns the files staged for addition, sorted by pathway.
+     * @return the mapping of canonical pathways to content IDs*/
+    public static TreeMap<String, String> additions() {
+        TreeMap<String, String> result = new TreeMap<String, String>();
+        for (Map.Entry<String, Entry> entry: load().entrySet()) {
+            if ((entry.getValue()._flags & REMOVED) == 0) {
+                result.put(entry.getKey(), entry.getValue()._id);
+            }
+        }
+        return result;
+    }
+
+    /** Returns the files staged for removal, sorted by pathway.
+     * @return the TreeSet of canonical pathways*/
+    public static TreeSet<String> removals() {
+        TreeSet<String> result = new TreeSet<String>();
+        for (Map.Entry<String, Entry> entry: load().entrySet()) {
+            if ((entry.getValue()._flags & REMOVED) != 0) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    /** Returns every staged file in the form a commit records it: the
+     * ID of its contents, or "remove*" and its name if it is staged
+     * for removal.
+     * @return the mapping of canonical pathways to entries*/
+    public static HashMap<String, String> entries() {
+        HashMap<String, String> result = new HashMap<String, String>();
+        for (Map.Entry<String, Entry> entry: load().entrySet()) {
+            if ((entry.getValue()._flags & REMOVED) != 0) {
+                result.put(entry.getKey(), "remove*"
+                        + new File(entry.getKey()).getName());
+            } else {
+                result.put(entry.getKey(), entry.getValue()._id);
+            }
+        }
+        return result;
+    }
+
+    /** Stages the given file for addition with the given contents.
+     * @param filePath is the canonical pathway of the file
+     * @param id is the SHA-1 ID of its contents*/
+    public static void stage(String filePath, String id) {
+        put(filePath, new Entry(id, 0));
+    }
+
+    /** Stages the given file for removal.
+     * @param filePath is the canonical pathway of the file*/
+    public static void stageRemoval(String filePath) {
+        put(filePath, new Entry(null, REMOVED));
+    }
+
+    /** Unstages the given file. Its staged contents are released from
+     * the stage folder by the next save unless another file is staged
+     * with them.
+     * @param filePath is the canonical pathway of the file*/
+    public static void unstage(String filePath) {
+        Entry entry = load().remove(filePath);
+        if (entry != null) {
+            forget(filePath, entry);
+        }
+    }
+
+    /** Unstages every file, leaving the stage folder to the caller.*/
+    public static void clear() {
+        load().clear();
+        _byID.clear();
+    }
+
+    /** Writes the index back to its file through the Journal, sorted
+     * by repository-relative path, and releases every file in the
+     * stage folder no longer staged.*/
+    public static void save() {
+        TreeMap<String, Entry> sorted = new TreeMap<String, Entry>();
+        for (Map.Entry<String, Entry> entry: load().entrySet()) {
+            sorted.put(Tree.relativePath(entry.getKey()), entry.getValue());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            CommitCodec.writeVarint(out, sorted.size());
+            for (Map.Entry<String, Entry> entry: sorted.entrySet()) {
+                Entry staged = entry.getValue();
+                CommitCodec.writeString(out, entry.getKey());
+                out.writeByte(staged._flags);
+                if (staged._id == null) {
+                    out.write(new byte[Utils.UID_LENGTH / 2]);
+                } else {
+                    CommitCodec.writeID(out, staged._id);
+                }
+            }
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        Journal.write(INDEX_FILE, bytes.toByteArray());
+        for (File file: Main.STAGE_FOLDER.listFiles()) {
+            if (!_byID.containsKey(file.getName())) {
+                Journal.release(file);
+            }
+        }
+    }
+
+    /** Moves the staging area saved by older versions of gitlet, a
+     * serialized commit in commit.txt beside placeholder files in the
+     * stage folder for removals, into the index.*/
+    public static void migrate() {
+        if (!Main.CURRENT_COMMIT_FILE.exists()) {
+            return;
+        }
+        Commit staged = Utils.readObject(Main.CURRENT_COMMIT_FILE,
+                Commit.class);
+        clear();
+        for (Map.Entry<String, String> entry
+                : staged.getFileToID().entrySet()) {
+            String value = entry.getValue();
+            if (value.startsWith("remove*")) {
+                stageRemoval(entry.getKey());
+            } else {
+                stage(entry.getKey(), value);
+            }
+        }
+        save();
+        Journal.delete(Main.CURRENT_COMMIT_FILE);
+    }
+
+    /** Drops the index read into memory, so that it is read again
+     * from its file when next used.*/
+    static void reset() {
+        _entries = null;
+        _byID = null;
+    }
+
+    /** Replaces the entry of the given file.
+     * @param filePath is the canonical pathway of the file
+     * @param entry is its new entry*/
+    private static void put(String filePath, Entry entry) {
+        Entry old = load().put(filePath, entry);
+        if (old != null) {
+            forget(filePath, old);
+        }
+        if (entry._id != null) {
+            _byID.computeIfAbsent(entry._id, k -> new TreeSet<String>())
+                    .add(filePath);
+        }
+    }
+
+    /** Removes the given file's old entry from the index by ID.
+     * @param filePath is the canonical pathway of the file
+     * @param entry is its old entry*/
+    private static void forget(String filePath, Entry entry) {
+        if (entry._id == null) {
+            return;
+        }
+        TreeSet<String> paths = _byID.get(entry._id);
+        paths.remove(filePath);
+        if (paths.isEmpty()) {
+            _byID.remove(entry._id);
+        }
+    }
+
+    /** Reads the index file, if it has not been read yet. A missing
+     * file is an empty index.
+     * @return the mapping of canonical pathways to entries*/
+    private static TreeMap<String, Entry> load() {
+        if (_entries != null) {
+            return _entries;
+        }
+        _entries = new TreeMap<String, Entry>();
+        _byID = new TreeMap<String, TreeSet<String>>();
+        if (!INDEX_FILE.exists()) {
+            return _entries;
+        }
+        byte[] contents = Utils.readContents(INDEX_FILE);
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(contents))) {
+            for (byte b: MAGIC) {
+                if (in.readByte() != b) {
+                    throw new GitletException("Corrupt staging index.");
+                }
+            }
+            int version = in.readUnsignedByte();
+            if (version < 1 || version > VERSION) {
+                throw new GitletException("Unknown staging index version "
+                        + version + ".");
+            }
+            int size = CommitCodec.readVarint(in);
+            for (int i = 0; i < size; i += 1) {
+                String filePath = Tree.canonicalPath(
+                        CommitCodec.readString(in));
+                int flags = in.readUnsignedByte();
+                if (version == 1) {
+                    CommitCodec.readVarint(in);
+                }
+                String id = CommitCodec.readID(in);
+                put(filePath, new Entry((flags & REMOVED) != 0 ? null : id,
+                        flags));
+            }
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        return _entries;
+    }
+
+    /** The staged contents and flags of one file. */
+    private static class Entry {
+
+        /** An entry with the given fields.
+         * @param id is the SHA-1 ID of the contents, or null
+         * @param flags is the entry's flags*/
+        Entry(String id, int flags) {
+            _id = id;
+            _flags = flags;
+        }
+
+        /** The SHA-1 ID of the staged contents, or null for a
+         * removal. */
+        private final String _id;
+
+        /** The flags of the entry. */
+        private final int _flags;
+    }
+
+    /** The staged entries by canonical pathway, or null if the index
+     * has not been read yet. */
+    private static TreeMap<String, Entry> _entries;
+
+    /** The canonical pathways staged with each content ID. */
+    private static TreeMap<String, TreeSet<String>> _byID;
+
+    /** The staging index file. */
+    static final File INDEX_FILE = new File(".gitlet/index");
+
+}
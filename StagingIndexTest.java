@@ -0,0 +1,138 @@
+package gitlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of the binary StagingIndex of staged files.
+ * @author Ria Vora*/
+public class StagingIndexTest {
+
+    /** Makes a repository with b.txt committed.*/
+    @Before
+    public void setUp() {
+        _repo = new TestRepo();
+        _repo.run("init");
+        _repo.write("b.txt", "b");
+        _repo.run("add", "b.txt");
+        _repo.run("commit", "one");
+    }
+
+    /** Deletes the repository.*/
+    @After
+    public void tearDown() {
+        _repo.delete();
+    }
+
+    /** The index holds one entry per file, sorted by relative path,
+     * with removals flagged and without an ID. */
+    @Test
+    public void sortsEntries() throws IOException {
+        _repo.write("z.txt", "z.txt");
+        _repo.write("a/c.txt", "a/c.txt");
+        _repo.run("add", "z.txt", "a/c.txt");
+        _repo.run("rm", "b.txt");
+        DataInputStream in = index();
+        assertEquals(StagingIndex.VERSION, in.readUnsignedByte());
+        assertEquals(3, CommitCodec.readVarint(in));
+        String[] paths = {"a/c.txt", "b.txt", "z.txt"};
+        for (String path: paths) {
+            assertEquals(path, CommitCodec.readString(in));
+            int flags = in.readUnsignedByte();
+            String id = CommitCodec.readID(in);
+            if (path.equals("b.txt")) {
+                assertEquals(StagingIndex.REMOVED, flags);
+            } else {
+                assertEquals(0, flags);
+                assertEquals(Utils.sha1(path), id);
+            }
+        }
+        assertEquals(0, in.available());
+    }
+
+    /** Two files with the same contents share one staged blob, which
+     * is released only when neither is staged. */
+    @Test
+    public void sharesContents() {
+        _repo.write("x.txt", "same");
+        _repo.write("y.txt", "same");
+        _repo.run("add", "x.txt", "y.txt");
+        assertEquals(1, _repo.file(".gitlet/stage").list().length);
+        _repo.run("rm", "x.txt");
+        assertEquals(1, _repo.file(".gitlet/stage").list().length);
+        _repo.run("rm", "y.txt");
+        assertEquals(0, _repo.file(".gitlet/stage").list().length);
+        assertEquals("same", _repo.read("y.txt"));
+    }
+
+    /** An index written as version 1, whose entries also held a mode,
+     * is still read. */
+    @Test
+    public void readsVersion1() throws IOException {
+        _repo.write("a.txt", "a");
+        _repo.run("add", "a.txt");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.write(StagingIndex.MAGIC);
+            out.writeByte(1);
+            CommitCodec.writeVarint(out, 1);
+            CommitCodec.writeString(out, "a.txt");
+            out.writeByte(0);
+            CommitCodec.writeVarint(out, MODE);
+            CommitCodec.writeID(out, Utils.sha1("a"));
+        }
+        _repo.write(".gitlet/index", bytes.toByteArray());
+        assertTrue(_repo.file(".gitlet/journal").delete());
+        assertTrue(_repo.run("status").contains(
+                "=== Staged Files ===\na.txt\n\n"));
+        _repo.run("commit", "two");
+        _repo.write("a.txt", "changed");
+        _repo.run("checkout", "--", "a.txt");
+        assertEquals("a", _repo.read("a.txt"));
+    }
+
+    /** A staging area saved by older versions of gitlet, as a
+     * serialized commit in commit.txt, is moved into the index. */
+    @Test
+    public void migratesCommitFile() throws IOException {
+        _repo.write("a.txt", "a");
+        _repo.run("add", "a.txt");
+        Commit staged = new Commit();
+        staged.getFileToID().put(_repo.file("a.txt").getCanonicalPath(),
+                Utils.sha1("a"));
+        staged.getFileToID().put(_repo.file("b.txt").getCanonicalPath(),
+                "remove*b.txt");
+        Utils.writeObject(_repo.file(".gitlet/commit.txt"), staged);
+        assertTrue(_repo.file(".gitlet/index").delete());
+        assertTrue(_repo.file(".gitlet/journal").delete());
+        String status = _repo.run("status");
+        assertTrue(status.contains("=== Staged Files ===\na.txt\n\n"));
+        assertTrue(status.contains("=== Removed Files ===\nb.txt\n\n"));
+        assertFalse(_repo.file(".gitlet/commit.txt").exists());
+    }
+
+    /** Returns a stream of the index, past its MAGIC bytes.
+     * @return DataInputStream is the stream*/
+    private DataInputStream index() {
+        byte[] contents = Utils.readContents(_repo.file(".gitlet/index"));
+        assertArrayEquals(StagingIndex.MAGIC, Arrays.copyOf(contents,
+                StagingIndex.MAGIC.length));
+        return new DataInputStream(new ByteArrayInputStream(contents,
+                StagingIndex.MAGIC.length, contents.length));
+    }
+
+    /** The mode of a regular file, as version 1 indexes held it. */
+    private static final int MODE = 0100644;
+
+    /** The repository. */
+    private TestRepo _repo;
+
+}
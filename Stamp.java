@@ -0,0 +1,69 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/** Stamp is the identity, length and modification time of a file or
+ * folder at one moment, kept by the classes that cache a repository
+ * file in memory, so that a Daemon running many commands can tell
+ * whether another gitlet process has changed the file since it was
+ * read. A file replaced by renaming another over it gets a new
+ * identity even when its length and time are unchanged.
+ * @author Ria Vora*/
+public class Stamp {
+
+    /** Returns the current stamp of the given file.
+     * @param f is the file or folder
+     * @return Stamp is its stamp, equal to that of any other missing
+     * file if it does not exist*/
+    public static Stamp of(File f) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(f.toPath(),
+                    BasicFileAttributes.class);
+            return new Stamp(attrs.fileKey(), attrs.size(),
+                    attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+        } catch (IOException excp) {
+            return new Stamp(null, -1, 0);
+        }
+    }
+
+    /** A stamp with the given fields.
+     * @param key is the identity of the file, or null
+     * @param size is its length in bytes
+     * @param mtime is its modification time in nanoseconds*/
+    private Stamp(Object key, long size, long mtime) {
+        _key = key;
+        _size = size;
+        _mtime = mtime;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Stamp)) {
+            return false;
+        }
+        Stamp stamp = (Stamp) other;
+        return Objects.equals(_key, stamp._key) && _size == stamp._size
+                && _mtime == stamp._mtime;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(_key, _size, _mtime);
+    }
+
+    /** The identity of the file, such as its device and inode, or
+     * null where unavailable. */
+    private final Object _key;
+
+    /** The length of the file in bytes, or -1 if it is missing. */
+    private final long _size;
+
+    /** The modification time of the file in nanoseconds. */
+    private final long _mtime;
+
+}
@@ -0,0 +1,293 @@
+package gitlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/** StatCache is a binary index recording, for each working file gitlet
+ * has hashed, its size, modification and change times and inode along
+ * with the SHA-1 ID of its contents, so that a file whose stat data has
+ * not changed is not read and hashed again. A file modified within
+ * RACY_WINDOW of the cache being written could change again without
+ * its stat data changing, so such entries are never trusted. Under the
+ * Daemon, files the Watcher has seen no change to since they were last
+ * hashed are not even stat'ed. Files may be hashed from several
+ * threads at once.
+ * @author Ria Vora*/
+public class StatCache {
+
+    /** The bytes the cache file starts with. */
+    static final byte[] MAGIC = {'G', 'S', 'C'};
+
+    /** The current version of the cache file. */
+    static final int VERSION = 1;
+
+    /** The time in nanoseconds before the cache was written within
+     * which a file's modification time makes its entry untrusted. */
+    static final long RACY_WINDOW = TimeUnit.SECONDS.toNanos(1);
+
+    /** Returns the SHA-1 ID of the contents of the given file, reusing
+     * the cached ID if the file's stat data is unchanged and hashing
+     * the file otherwise.
+     * @param file is the file
+     * @return String is the SHA-1 ID of its contents*/
+    public static String hash(File file) {
+        return hash(file, null);
+    }
+
+    /** Returns the SHA-1 ID of the contents of the given file, as hash
+     * does, but writes the contents compressed into DEST while hashing
+     * them, if the file is read at all.
+     * @param file is the file
+     * @param dest is the file its compressed contents are written to
+     * while it is hashed, or null
+     * @return String is the SHA-1 ID of its contents*/
+    public static String hash(File file, File dest) {
+        String path = Main.canonicalPath(file);
+        Entry cached;
+        if (Watcher.isClean(path)) {
+            synchronized (StatCache.class) {
+                cached = load().get(path);
+            }
+            if (cached != null) {
+                return cached._id;
+            }
+        }
+        Watcher.markClean(path);
+        Entry stat = stat(file);
+        synchronized (StatCache.class) {
+            cached = load().get(path);
+        }
+        if (cached != null && cached.matches(stat)
+                && cached._mtime + RACY_WINDOW <= _written) {
+            return cached._id;
+        }
+        stat._id = dest == null ? ObjectStore.hash(file)
+                : ObjectStore.hash(file, dest);
+        synchronized (StatCache.class) {
+            _entries.put(path, stat);
+            _dirty = true;
+        }
+        return stat._id;
+    }
+
+    /** Returns the SHA-1 IDs of the contents of the given files, as
+     * hash does, with the files split across the Workers pool.
+     * @param files is the files
+     * @return the mapping of canonical paths to content IDs*/
+    public static HashMap<String, String> hashAll(Collection<File> files) {
+        return Workers.invoke(() -> files.parallelStream().collect(
+                Collectors.toMap(Main::canonicalPath, StatCache::hash,
+                    (a, b) -> a, HashMap::new)));
+    }
+
+    /** Records that the given file was just written with the contents
+     * of the blob with the given ID, so it need not be hashed again.
+     * @param file is the file
+     * @param id is the SHA-1 ID of its contents*/
+    public static synchronized void record(File file, String id) {
+        Watcher.markClean(Main.canonicalPath(file));
+        Entry stat = stat(file);
+        stat._id = id;
+        load().put(Main.canonicalPath(file), stat);
+        _dirty = true;
+    }
+
+    /** Writes the cache back if any entry changed, dropping the entries
+     * of files that no longer exist.*/
+    public static synchronized void save() {
+        if (!_dirty || !Main.GITLET_FOLDER.exists() || RepoLock.shared()) {
+            return;
+        }
+        _entries.keySet().removeIf(path -> !new File(path).exists());
+        long written = now();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(written);
+            out.writeInt(_entries.size());
+            for (Map.Entry<String, Entry> entry: _entries.entrySet()) {
+                Entry stat = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeLong(stat._size);
+                out.writeLong(stat._mtime);
+                out.writeLong(stat._ctime);
+                out.writeLong(stat._inode);
+                out.write(ObjectStore.toBytes(stat._id));
+            }
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        try {
+            File temp = File.createTempFile(CACHE_FILE.getName(), ".lock",
+                    Main.GITLET_FOLDER);
+            Utils.writeContents(temp, bytes.toByteArray());
+            Files.move(temp.toPath(), CACHE_FILE.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        _written = written;
+        _dirty = false;
+        _stamp = Stamp.of(CACHE_FILE);
+    }
+
+    /** Drops the cache read into memory if another process has
+     * rewritten its file since, so that it is read again when next
+     * used.*/
+    static synchronized void revalidate() {
+        if (_entries != null && !Stamp.of(CACHE_FILE).equals(_stamp)) {
+            _entries = null;
+            _dirty = false;
+        }
+    }
+
+    /** Reads the cache file, starting an empty cache if it is missing
+     * or was written by an unknown version.
+     * @return the mapping of canonical paths to entries*/
+    private static TreeMap<String, Entry> load() {
+        if (_entries != null) {
+            return _entries;
+        }
+        _entries = new TreeMap<String, Entry>();
+        _written = Long.MIN_VALUE;
+        _stamp = Stamp.of(CACHE_FILE);
+        if (!CACHE_FILE.exists()) {
+            return _entries;
+        }
+        byte[] contents = Utils.readContents(CACHE_FILE);
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(contents))) {
+            for (byte b: MAGIC) {
+                if (in.readByte() != b) {
+                    return _entries;
+                }
+            }
+            if (in.readUnsignedByte() != VERSION) {
+                return _entries;
+            }
+            _written = in.readLong();
+            int size = in.readInt();
+            byte[] id = new byte[Utils.UID_LENGTH / 2];
+            for (int i = 0; i < size; i += 1) {
+                String path = in.readUTF();
+                Entry stat = new Entry(in.readLong(), in.readLong(),
+                        in.readLong(), in.readLong());
+                in.readFully(id);
+                stat._id = ObjectStore.toHex(id);
+                _entries.put(path, stat);
+            }
+        } catch (IOException excp) {
+            _entries.clear();
+            _written = Long.MIN_VALUE;
+        }
+        return _entries;
+    }
+
+    /** Returns the current stat data of the given file, with no ID.
+     * @param file is the file
+     * @return Entry is its size, modification and change times
+     * and inode*/
+    private static Entry stat(File file) {
+        Path path = file.toPath();
+        try {
+            try {
+                Map<String, Object> attrs = Files.readAttributes(path,
+                        "unix:size,lastModifiedTime,ctime,ino");
+                return new Entry((Long) attrs.get("size"),
+                        ((FileTime) attrs.get("lastModifiedTime"))
+                                .to(TimeUnit.NANOSECONDS),
+                        ((FileTime) attrs.get("ctime"))
+                                .to(TimeUnit.NANOSECONDS),
+                        (Long) attrs.get("ino"));
+            } catch (UnsupportedOperationException excp) {
+                BasicFileAttributes attrs = Files.readAttributes(path,
+                        BasicFileAttributes.class);
+                long mtime = attrs.lastModifiedTime()
+                        .to(TimeUnit.NANOSECONDS);
+                return new Entry(attrs.size(), mtime, mtime, 0);
+            }
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Returns the current time.
+     * @return long is the time in nanoseconds since the epoch*/
+    private static long now() {
+        return TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    }
+
+    /** The stat data and content ID recorded for one file. */
+    private static class Entry {
+
+        /** An entry with the given stat data and no ID yet.
+         * @param size is the size of the file in bytes
+         * @param mtime is its modification time in nanoseconds
+         * @param ctime is its change time in nanoseconds
+         * @param inode is its inode, or 0 where unavailable*/
+        Entry(long size, long mtime, long ctime, long inode) {
+            _size = size;
+            _mtime = mtime;
+            _ctime = ctime;
+            _inode = inode;
+        }
+
+        /** Returns whether OTHER has the same stat data as this entry.
+         * @param other is the current stat data of the file
+         * @return boolean is whether they match*/
+        boolean matches(Entry other) {
+            return _size == other._size && _mtime == other._mtime
+                    && _ctime == other._ctime && _inode == other._inode;
+        }
+
+        /** The size of the file in bytes. */
+        private final long _size;
+
+        /** The modification time of the file in nanoseconds. */
+        private final long _mtime;
+
+        /** The change time of the file in nanoseconds, or its
+         * modification time where unavailable. */
+        private final long _ctime;
+
+        /** The inode of the file, or 0 where unavailable. */
+        private final long _inode;
+
+        /** The SHA-1 ID of the file's contents. */
+        private String _id;
+    }
+
+    /** The stamp of the cache file as last read or written. */
+    private static Stamp _stamp;
+
+    /** The cached entries keyed by canonical path, or null if the
+     * cache has not been read yet. */
+    private static TreeMap<String, Entry> _entries;
+
+    /** The time in nanoseconds the cache file was last written. */
+    private static long _written;
+
+    /** Whether any entry has changed since the cache was read. */
+    private static boolean _dirty;
+
+    /** The stat cache file. */
+    static final File CACHE_FILE = new File(".gitlet/stat-cache");
+
+}
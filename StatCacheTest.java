@@ -0,0 +1,110 @@
+package gitlet;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of when status trusts the IDs recorded in the StatCache, which
+ * the commands that write the repository fill. Each changes the ID
+ * recorded for an unchanged file and sees whether status then reports
+ * it modified.
+ * @author Ria Vora*/
+public class StatCacheTest {
+
+    /** Makes a repository.*/
+    @Before
+    public void setUp() {
+        _repo = new TestRepo();
+        _repo.run("init");
+    }
+
+    /** Deletes the repository.*/
+    @After
+    public void tearDown() {
+        _repo.delete();
+    }
+
+    /** An entry for a file modified well before the cache was written
+     * is trusted, so the file is not hashed again. */
+    @Test
+    public void trustsSettledEntries() {
+        commit(-AGE);
+        forgeID("a.txt");
+        assertTrue(_repo.run("status").contains("a.txt (modified)"));
+    }
+
+    /** An entry for a file modified within RACY_WINDOW of the cache
+     * being written is not trusted, so the file is hashed again. */
+    @Test
+    public void rehashesRacyEntries() {
+        commit(AGE);
+        forgeID("a.txt");
+        assertFalse(_repo.run("status").contains("a.txt (modified)"));
+    }
+
+    /** A file changed after it was cached is hashed again. */
+    @Test
+    public void rehashesChangedFiles() {
+        commit(-AGE);
+        _repo.write("a.txt", "b\n");
+        assertTrue(_repo.run("status").contains("a.txt (modified)"));
+    }
+
+    /** A cache file that cannot be read is ignored, and rewritten by
+     * the next command that writes the repository. */
+    @Test
+    public void ignoresDamagedCache() {
+        commit(-AGE);
+        _repo.write(".gitlet/stat-cache", "not a cache");
+        _repo.write("a.txt", "b\n");
+        assertTrue(_repo.run("status").contains("a.txt (modified)"));
+        _repo.run("add", "a.txt");
+        forgeID("a.txt");
+    }
+
+    /** Commits a.txt with its modification time moved from now by the
+     * given time, caching its ID.
+     * @param shift is the time in milliseconds to move it by*/
+    private void commit(long shift) {
+        _repo.write("a.txt", "a\n");
+        assertTrue(_repo.file("a.txt").setLastModified(
+                System.currentTimeMillis() + shift));
+        _repo.run("add", "a.txt");
+        _repo.run("commit", "one");
+    }
+
+    /** Replaces the ID the cache records for the file at the given path
+     * with one that is not the ID of its contents.
+     * @param path is the path of the file in the repository*/
+    private void forgeID(String path) {
+        File cache = _repo.file(".gitlet/stat-cache");
+        ByteBuffer entries = ByteBuffer.wrap(Utils.readContents(cache));
+        entries.position(StatCache.MAGIC.length + 1 + Long.BYTES);
+        int size = entries.getInt();
+        for (int i = 0; i < size; i += 1) {
+            byte[] name = new byte[entries.getShort() & 0xffff];
+            entries.get(name);
+            entries.position(entries.position() + 4 * Long.BYTES);
+            if (new String(name, StandardCharsets.UTF_8).endsWith(
+                    File.separator + path)) {
+                entries.put(new byte[Utils.UID_LENGTH / 2]);
+                Utils.writeContents(cache, entries.array());
+                return;
+            }
+            entries.position(entries.position() + Utils.UID_LENGTH / 2);
+        }
+        fail("No cache entry for " + path + ".");
+    }
+
+    /** The time in milliseconds files are moved away from now. */
+    private static final long AGE = 60000;
+
+    /** The repository. */
+    private TestRepo _repo;
+
+}
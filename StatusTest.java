@@ -0,0 +1,86 @@
+package gitlet;
+
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of status over a working tree hashed and scanned by several
+ * Workers at once.
+ * @author Ria Vora*/
+public class StatusTest {
+
+    /** Makes a repository with FILES committed files, then modifies,
+     * deletes and adds some of them.*/
+    @Before
+    public void setUp() {
+        _repo = new TestRepo();
+        _repo.run("init");
+        ArrayList<String> names = new ArrayList<String>();
+        names.add("add");
+        for (int i = 0; i < FILES; i += 1) {
+            _repo.write(name(i), "file " + i + "\n");
+            names.add(name(i));
+        }
+        _repo.run(names.toArray(new String[0]));
+        _repo.run("commit", "files");
+        for (int i = 0; i < FILES; i += 1) {
+            if (i % 5 == 0) {
+                assertTrue(_repo.file(name(i)).delete());
+            } else if (i % 3 == 0) {
+                _repo.write(name(i), "changed " + i + "\n");
+            }
+        }
+        for (int i = FILES; i < FILES + FILES / 4; i += 1) {
+            _repo.write(name(i), "untracked " + i + "\n");
+        }
+    }
+
+    /** Deletes the repository.*/
+    @After
+    public void tearDown() {
+        _repo.delete();
+    }
+
+    /** Status lists every change, in order, however many threads it
+     * uses. */
+    @Test
+    public void sameAtAnyParallelism() {
+        StringBuilder modified = new StringBuilder();
+        StringBuilder untracked = new StringBuilder();
+        for (int i = 0; i < FILES + FILES / 4; i += 1) {
+            if (i >= FILES) {
+                untracked.append(name(i)).append("\n");
+            } else if (i % 5 == 0) {
+                modified.append(name(i)).append(" (deleted)\n");
+            } else if (i % 3 == 0) {
+                modified.append(name(i)).append(" (modified)\n");
+            }
+        }
+        String expected = "=== Branches ===\n*master\n\n"
+                + "=== Staged Files ===\n\n=== Removed Files ===\n\n"
+                + "=== Modifications Not Staged For Commit ===\n"
+                + modified + "\n=== Untracked Files ===\n" + untracked;
+        for (String parallelism: new String[] {"1", "2", "8"}) {
+            _repo.setEnvironment(Workers.PARALLELISM_VARIABLE, parallelism);
+            assertEquals(expected, _repo.run("status").trim() + "\n");
+        }
+    }
+
+    /** Returns the name of the file numbered I, so that the files sort
+     * in numeric order.
+     * @param i is the number of the file
+     * @return String is its name*/
+    private static String name(int i) {
+        return String.format("f%03d.txt", i);
+    }
+
+    /** The number of files committed. */
+    private static final int FILES = 120;
+
+    /** The repository. */
+    private TestRepo _repo;
+
+}
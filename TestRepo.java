@@ -0,0 +1,173 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/** TestRepo is a scratch folder for the tests, in which gitlet commands
+ * are run as separate processes, since gitlet always works on the
+ * repository in the folder it is started in.
+ * @author Ria Vora*/
+class TestRepo {
+
+    /** A new empty scratch folder, without a repository. */
+    TestRepo() {
+        try {
+            _dir = Files.createTempDirectory("gitlet-test").toFile();
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Runs the given gitlet command in the folder and waits for it.
+     * @param args is the command and its operands
+     * @return String is everything it printed*/
+    String run(String... args) {
+        Process process = start(args);
+        try {
+            String result = new String(process.getInputStream()
+                    .readAllBytes(), StandardCharsets.UTF_8);
+            _status = process.waitFor();
+            return result;
+        } catch (IOException | InterruptedException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Starts the given gitlet command in the folder without waiting.
+     * @param args is the command and its operands
+     * @return Process is the command, printing into its input stream*/
+    Process start(String... args) {
+        ArrayList<String> command = new ArrayList<String>(Arrays.asList(
+                JAVA, "-cp", System.getProperty("java.class.path"),
+                "gitlet.Main"));
+        command.addAll(Arrays.asList(args));
+        try {
+            ProcessBuilder builder = new ProcessBuilder(command);
+            builder.environment().putAll(_environment);
+            return builder.directory(_dir).redirectErrorStream(true)
+                    .start();
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Sets the given environment variable for the commands run from
+     * now on.
+     * @param name is the name of the variable
+     * @param value is its value*/
+    void setEnvironment(String name, String value) {
+        _environment.put(name, value);
+    }
+
+    /** Starts a daemon for the repository and waits until it listens.
+     * @return Process is the daemon*/
+    Process daemon() {
+        Process result = start("daemon");
+        File socket = file(Daemon.SOCKET_FILE.getPath());
+        for (int i = 0; i < DAEMON_WAIT && !socket.exists(); i += 1) {
+            pause(1);
+        }
+        return result;
+    }
+
+    /** Returns the exit status of the last command run.
+     * @return int is the status*/
+    int status() {
+        return _status;
+    }
+
+    /** Returns the ID of the newest commit printed by log.
+     * @return String is the full commit ID*/
+    String head() {
+        Matcher m = COMMIT_LINE.matcher(run("log"));
+        if (!m.find()) {
+            throw new GitletException("No commits logged.");
+        }
+        return m.group(1);
+    }
+
+    /** Returns the file at the given path in the folder.
+     * @param path is the path relative to the folder
+     * @return File is the file*/
+    File file(String path) {
+        return new File(_dir, path);
+    }
+
+    /** Writes the given contents into the file at the given path in
+     * the folder, making the folders above it.
+     * @param path is the path relative to the folder
+     * @param contents is the new contents*/
+    void write(String path, String contents) {
+        write(path, contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Writes the given bytes into the file at the given path in the
+     * folder, making the folders above it.
+     * @param path is the path relative to the folder
+     * @param contents is the new contents*/
+    void write(String path, byte[] contents) {
+        File f = file(path);
+        f.getParentFile().mkdirs();
+        Utils.writeContents(f, contents);
+    }
+
+    /** Returns the contents of the file at the given path in the
+     * folder.
+     * @param path is the path relative to the folder
+     * @return String is its contents*/
+    String read(String path) {
+        return Utils.readContentsAsString(file(path));
+    }
+
+    /** Deletes the folder and everything in it.*/
+    void delete() {
+        try (Stream<Path> paths = Files.walk(_dir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile)
+                    .forEach(File::delete);
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Sleeps for the given number of tenths of a second.
+     * @param tenths is the time to sleep*/
+    static void pause(int tenths) {
+        try {
+            Thread.sleep(100L * tenths);
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** The java launcher running this JVM. */
+    static final String JAVA = Path.of(System.getProperty("java.home"),
+            "bin", "java").toString();
+
+    /** The number of tenths of a second to wait for a daemon. */
+    static final int DAEMON_WAIT = 100;
+
+    /** A line of log naming a commit. */
+    static final Pattern COMMIT_LINE =
+        Pattern.compile("^commit ([0-9a-f]{40})$", Pattern.MULTILINE);
+
+    /** The scratch folder. */
+    private final File _dir;
+
+    /** The environment variables set for the commands run. */
+    private final HashMap<String, String> _environment =
+        new HashMap<String, String>();
+
+    /** The exit status of the last command run. */
+    private int _status;
+
+}
@@ -0,0 +1,575 @@
+package gitlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/** Tree stores the snapshot of a commit as Merkle tree objects, one per
+ * directory, kept in the objects folder under the SHA-1 ID of their
+ * encoding. A tree maps the name of each file in its directory to the
+ * ID of the file's contents, and the name of each subdirectory, with a
+ * trailing slash, to the ID of the subdirectory's tree. Unchanged
+ * directories keep their IDs, so they are shared between commits and
+ * skipped when two trees are compared. Paths in trees are relative to
+ * the repository, while snapshots use canonical pathways.
+ *
+ * <p>A directory with more than NODE_LIMIT entries is stored as a hash
+ * array mapped trie: a bucket node splitting its entries by BUCKET_BITS
+ * of the hash of their names into child nodes, each of which is split
+ * again while it is too large. The shape depends only on the entries,
+ * so equal directories still have equal IDs, and changing one entry of
+ * a large directory rewrites only the nodes on that entry's path.
+ * Decoded nodes are cached, so snapshots read by one command share the
+ * nodes they have in common.
+ * @author Ria Vora*/
+public class Tree {
+
+    /** The bytes every encoded tree starts with. */
+    static final byte[] MAGIC = {'G', 'L', 'T'};
+
+    /** The current version of the encoding. Version 1 trees, which
+     * hold their entries without a kind byte, are still read. */
+    static final int VERSION = 2;
+
+    /** The kind byte of a node holding entries. */
+    static final int ENTRIES = 0;
+
+    /** The kind byte of a node holding buckets of child nodes. */
+    static final int BUCKETS = 1;
+
+    /** The most entries a node holds before it is split into
+     * buckets. */
+    static final int NODE_LIMIT = 256;
+
+    /** The number of bits of a name's hash choosing its bucket at
+     * each level of a split directory. */
+    static final int BUCKET_BITS = 4;
+
+    /** The number of buckets of a bucket node. */
+    static final int BUCKETS_PER_NODE = 1 << BUCKET_BITS;
+
+    /** The level below which nodes are no longer split, once every
+     * bit of the hash has been used. */
+    static final int MAX_LEVEL = Integer.SIZE / BUCKET_BITS;
+
+    /** The separator of path components inside trees. */
+    static final char SEPARATOR = '/';
+
+    /** Returns the ID of the root tree holding the given snapshot.
+     * @param snapshot maps canonical pathways to content IDs
+     * @return String is the ID of the root tree*/
+    public static String write(Map<String, String> snapshot) {
+        return update("", snapshot);
+    }
+
+    /** Returns the ID of the root tree made by applying the given
+     * changes to the tree with ID ROOTID. Only the nodes on the paths
+     * of changed files are read and rewritten.
+     * @param rootID is the ID of the root tree, or "" for none
+     * @param changes maps canonical pathways to new content IDs, or
+     * to null for files that are removed
+     * @return String is the ID of the new root tree*/
+    public static String update(String rootID,
+                                Map<String, String> changes) {
+        TreeMap<String, String> relative = new TreeMap<String, String>();
+        for (Map.Entry<String, String> entry: changes.entrySet()) {
+            relative.put(relativePath(entry.getKey()), entry.getValue());
+        }
+        String result = update(rootID.isEmpty() ? null : rootID, relative);
+        if (result == null) {
+            return writeEntries(new TreeMap<String, String>())._id;
+        }
+        return result;
+    }
+
+    /** Returns the snapshot held by the tree with the given ID.
+     * @param rootID is the ID of the root tree
+     * @return the mapping of canonical pathways to content IDs*/
+    public static HashMap<String, String> read(String rootID) {
+        HashMap<String, String> result = new HashMap<String, String>();
+        read(rootID, "", result);
+        return result;
+    }
+
+    /** Returns the ID of the contents of the given file in the tree
+     * with ID ROOTID, reading only the nodes on its path.
+     * @param rootID is the ID of the root tree
+     * @param filePath is the canonical pathway of the file
+     * @return String is the ID of its contents, or "" if untracked*/
+    public static String lookup(String rootID, String filePath) {
+        if (!inRepository(filePath)) {
+            return "";
+        }
+        String path = relativePath(filePath);
+        String id = rootID;
+        int start = 0;
+        for (int slash = path.indexOf(SEPARATOR); slash >= 0;
+             slash = path.indexOf(SEPARATOR, start)) {
+            id = find(id, path.substring(start, slash + 1));
+            if (id == null) {
+                return "";
+            }
+            start = slash + 1;
+        }
+        String result = find(id, path.substring(start));
+        return result == null ? "" : result;
+    }
+
+    /** Returns every file whose contents differ between the trees
+     * with IDs OLDID and NEWID, without reading nodes whose IDs are
+     * equal.
+     * @param oldID is the ID of the old root tree
+     * @param newID is the ID of the new root tree
+     * @return the mapping of canonical pathways to their old and new
+     * content IDs, null where the file is absent*/
+    public static TreeMap<String, String[]> diff(String oldID,
+                                                 String newID) {
+        TreeMap<String, String[]> result = new TreeMap<String, String[]>();
+        diff(oldID, newID, "", result);
+        return result;
+    }
+
+    /** Applies the given changes, keyed by paths relative to the tree,
+     * to the tree with ID ID.
+     * @param id is the ID of the tree, or null for an empty tree
+     * @param changes maps relative paths to content IDs or null
+     * @return String is the ID of the new tree, or null if it is empty*/
+    private static String update(String id, TreeMap<String, String> changes) {
+        TreeMap<String, String> entries = new TreeMap<String, String>();
+        TreeMap<String, TreeMap<String, String>> subtrees =
+                new TreeMap<String, TreeMap<String, String>>();
+        for (Map.Entry<String, String> entry: changes.entrySet()) {
+            String path = entry.getKey();
+            int slash = path.indexOf(SEPARATOR);
+            if (slash >= 0) {
+                subtrees.computeIfAbsent(path.substring(0, slash + 1),
+                        k -> new TreeMap<String, String>())
+                        .put(path.substring(slash + 1), entry.getValue());
+            } else {
+                entries.put(path, entry.getValue());
+            }
+        }
+        for (Map.Entry<String, TreeMap<String, String>> subtree
+                : subtrees.entrySet()) {
+            String name = subtree.getKey();
+            entries.put(name, update(id == null ? null : find(id, name),
+                    subtree.getValue()));
+        }
+        Node result = update(id, 0, entries);
+        return result == null ? null : result._id;
+    }
+
+    /** Applies the given changes to the entries of the node with ID
+     * ID, at level LEVEL of its directory.
+     * @param id is the ID of the node, or null for an empty node
+     * @param level is the level of the node
+     * @param changes maps entry names to new IDs, or to null for
+     * entries that are removed
+     * @return Node is the new node, or null if it is empty*/
+    private static Node update(String id, int level,
+                               TreeMap<String, String> changes) {
+        Node node = id == null ? null : readNode(id);
+        if (node == null || node._entries != null) {
+            TreeMap<String, String> entries = node == null
+                    ? new TreeMap<String, String>()
+                    : new TreeMap<String, String>(node._entries);
+            for (Map.Entry<String, String> change: changes.entrySet()) {
+                if (change.getValue() == null) {
+                    entries.remove(change.getKey());
+                } else {
+                    entries.put(change.getKey(), change.getValue());
+                }
+            }
+            return build(entries, level);
+        }
+        ArrayList<TreeMap<String, String>> parts = split(changes, level);
+        String[] children = node._children.clone();
+        int[] sizes = node._sizes.clone();
+        int size = 0;
+        for (int b = 0; b < BUCKETS_PER_NODE; b += 1) {
+            if (!parts.get(b).isEmpty()) {
+                Node child = update(children[b], level + 1, parts.get(b));
+                children[b] = child == null ? null : child._id;
+                sizes[b] = child == null ? 0 : child._size;
+            }
+            size += sizes[b];
+        }
+        if (size == 0) {
+            return null;
+        } else if (size <= NODE_LIMIT) {
+            TreeMap<String, String> entries = new TreeMap<String, String>();
+            for (String child: children) {
+                if (child != null) {
+                    entries.putAll(entries(child));
+                }
+            }
+            return writeEntries(entries);
+        }
+        return writeBuckets(level, children, sizes);
+    }
+
+    /** Returns the node holding the given entries at the given level
+     * of a directory, split into buckets if there are too many.
+     * @param entries maps entry names to IDs
+     * @param level is the level of the node
+     * @return Node is the node, or null if there are no entries*/
+    private static Node build(TreeMap<String, String> entries, int level) {
+        if (entries.isEmpty()) {
+            return null;
+        } else if (entries.size() <= NODE_LIMIT || level >= MAX_LEVEL) {
+            return writeEntries(entries);
+        }
+        ArrayList<TreeMap<String, String>> parts = split(entries, level);
+        String[] children = new String[BUCKETS_PER_NODE];
+        int[] sizes = new int[BUCKETS_PER_NODE];
+        for (int b = 0; b < BUCKETS_PER_NODE; b += 1) {
+            Node child = build(parts.get(b), level + 1);
+            if (child != null) {
+                children[b] = child._id;
+                sizes[b] = child._size;
+            }
+        }
+        return writeBuckets(level, children, sizes);
+    }
+
+    /** Splits the given entries into the buckets of a node at the
+     * given level.
+     * @param entries maps entry names to values
+     * @param level is the level of the node
+     * @return the entries of each bucket*/
+    private static ArrayList<TreeMap<String, String>> split(
+            TreeMap<String, String> entries, int level) {
+        ArrayList<TreeMap<String, String>> result =
+                new ArrayList<TreeMap<String, String>>();
+        for (int b = 0; b < BUCKETS_PER_NODE; b += 1) {
+            result.add(new TreeMap<String, String>());
+        }
+        for (Map.Entry<String, String> entry: entries.entrySet()) {
+            result.get(bucket(entry.getKey(), level))
+                    .put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /** Returns the bucket of the entry with the given name in a node
+     * at the given level.
+     * @param name is the entry name
+     * @param level is the level of the node
+     * @return int is the bucket*/
+    private static int bucket(String name, int level) {
+        return (name.hashCode() >>> (level * BUCKET_BITS))
+                & (BUCKETS_PER_NODE - 1);
+    }
+
+    /** Returns the ID of the entry with the given name in the directory
+     * whose tree has ID ID, reading only the nodes on its path.
+     * @param id is the ID of the directory's tree
+     * @param name is the entry name
+     * @return String is the entry's ID, or null if it is absent*/
+    private static String find(String id, String name) {
+        Node node = readNode(id);
+        while (node._entries == null) {
+            String child = node._children[bucket(name, node._level)];
+            if (child == null) {
+                return null;
+            }
+            node = readNode(child);
+        }
+        return node._entries.get(name);
+    }
+
+    /** Adds the files of the tree with ID ID, whose relative path is
+     * PREFIX, to RESULT.
+     * @param id is the ID of the tree
+     * @param prefix is the relative path of the tree's directory
+     * @param result maps canonical pathways to content IDs*/
+    private static void read(String id, String prefix,
+                             HashMap<String, String> result) {
+        for (Map.Entry<String, String> entry: entries(id).entrySet()) {
+            String name = prefix + entry.getKey();
+            if (isTree(name)) {
+                read(entry.getValue(), name, result);
+            } else {
+                result.put(canonicalPath(name), entry.getValue());
+            }
+        }
+    }
+
+    /** Adds the files that differ between the nodes with IDs OLDID and
+     * NEWID of the directory whose relative path is PREFIX to RESULT.
+     * Bucket nodes at the same level are compared bucket by bucket.
+     * @param oldID is the ID of the old node, or null if absent
+     * @param newID is the ID of the new node, or null if absent
+     * @param prefix is the relative path of the nodes' directory
+     * @param result maps canonical pathways to old and new IDs*/
+    private static void diff(String oldID, String newID, String prefix,
+                             TreeMap<String, String[]> result) {
+        if (oldID != null && oldID.equals(newID)) {
+            return;
+        }
+        Node oldNode = oldID == null ? null : readNode(oldID);
+        Node newNode = newID == null ? null : readNode(newID);
+        if (oldNode != null && newNode != null && oldNode._entries == null
+                && newNode._entries == null
+                && oldNode._level == newNode._level) {
+            for (int b = 0; b < BUCKETS_PER_NODE; b += 1) {
+                diff(oldNode._children[b], newNode._children[b], prefix,
+                        result);
+            }
+            return;
+        }
+        TreeMap<String, String> oldEntries = oldID == null
+                ? new TreeMap<String, String>() : entries(oldID);
+        TreeMap<String, String> newEntries = newID == null
+                ? new TreeMap<String, String>() : entries(newID);
+        TreeSet<String> names = new TreeSet<String>(oldEntries.keySet());
+        names.addAll(newEntries.keySet());
+        for (String name: names) {
+            String oldEntry = oldEntries.get(name);
+            String newEntry = newEntries.get(name);
+            if (isTree(name)) {
+                diff(oldEntry, newEntry, prefix + name, result);
+            } else if (oldEntry == null || !oldEntry.equals(newEntry)) {
+                result.put(canonicalPath(prefix + name),
+                        new String[] {oldEntry, newEntry});
+            }
+        }
+    }
+
+    /** Returns whether the given entry name or relative path names
+     * a subtree.
+     * @param name is the name or path
+     * @return boolean is whether it ends with SEPARATOR*/
+    private static boolean isTree(String name) {
+        return name.charAt(name.length() - 1) == SEPARATOR;
+    }
+
+    /** Returns every entry of the node with the given ID and of the
+     * nodes below it.
+     * @param id is the ID of the node
+     * @return the mapping of entry names to IDs*/
+    static TreeMap<String, String> entries(String id) {
+        Node node = readNode(id);
+        if (node._entries != null) {
+            return node._entries;
+        }
+        TreeMap<String, String> result = new TreeMap<String, String>();
+        for (String child: node._children) {
+            if (child != null) {
+                result.putAll(entries(child));
+            }
+        }
+        return result;
+    }
+
+    /** Returns the node with the given ID, decoding it on first use.
+     * @param id is the ID of the node
+     * @return Node is the node*/
+    private static Node readNode(String id) {
+        Node cached = ObjectCache.node(id);
+        if (cached != null) {
+            return cached;
+        }
+        byte[] contents = ObjectStore.readObject(id);
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(contents))) {
+            in.skipBytes(MAGIC.length);
+            int version = in.readUnsignedByte();
+            if (version < 1 || version > VERSION) {
+                throw new GitletException("Unknown tree version "
+                        + version + ".");
+            }
+            int kind = version == 1 ? ENTRIES : in.readUnsignedByte();
+            Node result = new Node(id);
+            if (kind == ENTRIES) {
+                int size = CommitCodec.readVarint(in);
+                result._entries = new TreeMap<String, String>();
+                for (int i = 0; i < size; i += 1) {
+                    String name = CommitCodec.readString(in);
+                    result._entries.put(name, CommitCodec.readID(in));
+                }
+                result._size = size;
+            } else {
+                result._level = in.readUnsignedByte();
+                result._children = new String[BUCKETS_PER_NODE];
+                result._sizes = new int[BUCKETS_PER_NODE];
+                int count = CommitCodec.readVarint(in);
+                for (int i = 0; i < count; i += 1) {
+                    int b = in.readUnsignedByte();
+                    result._sizes[b] = CommitCodec.readVarint(in);
+                    result._children[b] = CommitCodec.readID(in);
+                    result._size += result._sizes[b];
+                }
+            }
+            cache(result);
+            return result;
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** Writes the node holding the given entries.
+     * @param entries maps entry names to IDs
+     * @return Node is the node*/
+    private static Node writeEntries(TreeMap<String, String> entries) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(ENTRIES);
+            CommitCodec.writeVarint(out, entries.size());
+            for (Map.Entry<String, String> entry: entries.entrySet()) {
+                CommitCodec.writeString(out, entry.getKey());
+                CommitCodec.writeID(out, entry.getValue());
+            }
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        Node result = new Node(writeNode(bytes.toByteArray()));
+        result._entries = entries;
+        result._size = entries.size();
+        cache(result);
+        return result;
+    }
+
+    /** Writes the bucket node with the given children.
+     * @param level is the level of the node
+     * @param children is the ID of each bucket's node, or null
+     * @param sizes is the number of entries below each bucket
+     * @return Node is the node*/
+    private static Node writeBuckets(int level, String[] children,
+                                     int[] sizes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int count = 0;
+        for (String child: children) {
+            if (child != null) {
+                count += 1;
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(BUCKETS);
+            out.writeByte(level);
+            CommitCodec.writeVarint(out, count);
+            for (int b = 0; b < BUCKETS_PER_NODE; b += 1) {
+                if (children[b] != null) {
+                    out.writeByte(b);
+                    CommitCodec.writeVarint(out, sizes[b]);
+                    CommitCodec.writeID(out, children[b]);
+                }
+            }
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+        Node result = new Node(writeNode(bytes.toByteArray()));
+        result._level = level;
+        result._children = children;
+        result._sizes = sizes;
+        for (int size: sizes) {
+            result._size += size;
+        }
+        cache(result);
+        return result;
+    }
+
+    /** Caches the given node in the ObjectCache, sized by the number
+     * of entries or buckets it holds.
+     * @param node is the node*/
+    private static void cache(Node node) {
+        ObjectCache.putNode(node._id, node, node._entries != null
+                ? node._entries.size() : node._children.length);
+    }
+
+    /** Writes the given encoded node into the objects folder, unless
+     * it is already there.
+     * @param contents is the encoded node
+     * @return String is the ID of the node*/
+    private static String writeNode(byte[] contents) {
+        String id = Utils.sha1(contents);
+        ObjectStore.writeObject(id, contents);
+        return id;
+    }
+
+    /** One decoded tree node, holding either entries or buckets, which
+     * is never changed once decoded. */
+    static class Node {
+
+        /** A node with the given ID and nothing in it yet.
+         * @param id is the ID of the node*/
+        Node(String id) {
+            _id = id;
+        }
+
+        /** The ID of the node. */
+        private final String _id;
+
+        /** The entries of an entries node, or null. */
+        private TreeMap<String, String> _entries;
+
+        /** The ID of each bucket's node in a bucket node, null for
+         * empty buckets, or null for an entries node. */
+        private String[] _children;
+
+        /** The number of entries below each bucket of a bucket node. */
+        private int[] _sizes;
+
+        /** The level of a bucket node. */
+        private int _level;
+
+        /** The number of entries in or below this node. */
+        private int _size;
+    }
+
+    /** Returns the path of the given canonical pathway relative to the
+     * repository, with components separated by SEPARATOR.
+     * @param filePath is the canonical pathway of a file
+     * @return String is its relative path*/
+    static String relativePath(String filePath) {
+        if (!inRepository(filePath)) {
+            throw new GitletException("File outside repository: "
+                    + filePath);
+        }
+        return filePath.substring(root().length() + 1)
+                .replace(File.separatorChar, SEPARATOR);
+    }
+
+    /** Returns whether the given canonical pathway names a file
+     * inside the repository, rather than the repository itself or a
+     * file outside it.
+     * @param filePath is a canonical pathway
+     * @return boolean is whether it is inside the repository*/
+    static boolean inRepository(String filePath) {
+        return filePath.startsWith(root() + File.separator);
+    }
+
+    /** Returns the canonical pathway of the given relative path.
+     * @param path is a path relative to the repository
+     * @return String is its canonical pathway*/
+    static String canonicalPath(String path) {
+        return root() + File.separator
+                + path.replace(SEPARATOR, File.separatorChar);
+    }
+
+    /** Returns the canonical pathway of the repository.
+     * @return String is the pathway of the working directory*/
+    private static String root() {
+        if (_root == null) {
+            _root = Main.canonicalPath(new File("."));
+        }
+        return _root;
+    }
+
+    /** The canonical pathway of the repository, or null if not
+     * found yet. */
+    private static String _root;
+
+}
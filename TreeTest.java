@@ -0,0 +1,110 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of commit snapshots stored as trees of nested directories.
+ * @author Ria Vora*/
+public class TreeTest {
+
+    /** Makes a repository with files in nested directories committed,
+     * and a branch named other at that commit.*/
+    @Before
+    public void setUp() {
+        _repo = new TestRepo();
+        _repo.run("init");
+        _repo.write("top.txt", "top");
+        _repo.write("a/b/c.txt", "c");
+        _repo.write("d/e.txt", "e");
+        _repo.run("add", "top.txt", "a/b/c.txt", "d/e.txt");
+        _repo.run("commit", "nested");
+        _repo.run("branch", "other");
+    }
+
+    /** Deletes the repository.*/
+    @After
+    public void tearDown() {
+        _repo.delete();
+    }
+
+    /** A commit changing one file writes new trees only for the
+     * directories on its path, sharing the others. */
+    @Test
+    public void sharesUnchangedSubtrees() {
+        long before = objects();
+        _repo.write("d/e.txt", "changed");
+        _repo.run("add", "d/e.txt");
+        _repo.run("commit", "change e");
+        assertEquals("a blob, d and the root", before + 3, objects());
+    }
+
+    /** Status names nested files by their paths in the repository. */
+    @Test
+    public void nestedStatus() {
+        _repo.write("a/b/c.txt", "changed");
+        _repo.write("d/new.txt", "new");
+        String status = _repo.run("status");
+        assertTrue(status.contains("\na/b/c.txt (modified)\n"));
+        assertTrue(status.contains("\nd/new.txt\n"));
+    }
+
+    /** Checking out a branch makes the directories it needs and removes
+     * the ones it leaves empty. */
+    @Test
+    public void checksOutDirectories() {
+        _repo.run("checkout", "other");
+        _repo.write("x/y/z.txt", "z");
+        _repo.run("add", "x/y/z.txt");
+        _repo.run("rm", "a/b/c.txt");
+        _repo.run("commit", "move");
+        _repo.run("checkout", "master");
+        assertFalse(_repo.file("x").exists());
+        assertEquals("c", _repo.read("a/b/c.txt"));
+        _repo.run("checkout", "other");
+        assertFalse(_repo.file("a").exists());
+        assertEquals("z", _repo.read("x/y/z.txt"));
+        assertEquals("e", _repo.read("d/e.txt"));
+    }
+
+    /** Files outside the repository cannot be added, and are never in a
+     * commit. */
+    @Test
+    public void rejectsOutsidePaths() {
+        TestRepo outer = new TestRepo();
+        try {
+            String outside = ".." + File.separator
+                    + outer.file("out.txt").getParentFile().getName()
+                    + File.separator + "out.txt";
+            outer.write("out.txt", "out");
+            assertEquals("File is outside the repository.\n",
+                    _repo.run("add", outside));
+            assertEquals("File does not exist in that commit.\n",
+                    _repo.run("checkout", "--", outside));
+            assertEquals("out", outer.read("out.txt"));
+        } finally {
+            outer.delete();
+        }
+    }
+
+    /** Returns the number of objects in the store.
+     * @return long is the number of blobs and trees*/
+    private long objects() {
+        try (Stream<?> files = Files.walk(_repo.file(".gitlet/objects")
+                .toPath()).filter(Files::isRegularFile)) {
+            return files.count();
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** The repository. */
+    private TestRepo _repo;
+
+}
@@ -0,0 +1,25 @@
+package gitlet;
+
+import ucb.junit.textui;
+
+/** The suite of all JUnit tests for the gitlet package.
+ *  @author Ria Vora
+ */
+public class UnitTest {
+
+    /** Run the JUnit tests in the gitlet package. Add xxxTest.class to
+     *  the class list below to include them. */
+    public static void main(String[] ignored) {
+        System.exit(textui.runClasses(ObjectStoreTest.class,
+                CommitIndexTest.class, CommitCodecTest.class,
+                CommitGraphTest.class, MergeBaseTest.class,
+                MergePlanTest.class, ContentMergeTest.class,
+                BlobHashTest.class, StatCacheTest.class, StatusTest.class,
+                CheckoutTest.class, TreeTest.class, BucketTreeTest.class,
+                PathTableTest.class, CommitIDTest.class, AddTest.class,
+                StagingIndexTest.class, PromoteTest.class,
+                CompressionTest.class, PackTest.class, DaemonTest.class,
+                WatcherTest.class, ObjectCacheTest.class));
+    }
+
+}
@@ -0,0 +1,314 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/** Watcher keeps, for the Daemon, the set of files in the working tree
+ * and the set of files that are clean, meaning that they have not
+ * changed since StatCache last hashed them, by registering a
+ * WatchService over every directory of the tree. While it is active,
+ * listing the working tree needs no scan and a clean file's cached ID
+ * is used without even a stat. Before each command, sync waits until
+ * every change made before it has been seen, by creating a file in
+ * the .gitlet folder and waiting for its event. When events are lost
+ * to an overflow, every file is taken to be dirty and the tree is
+ * scanned again.
+ * @author Ria Vora*/
+public class Watcher {
+
+    /** The longest time in milliseconds sync waits for the watcher to
+     * catch up before commands fall back to scanning. */
+    static final long SYNC_TIMEOUT = 2000;
+
+    /** The prefix of the names of the files sync creates. */
+    static final String SYNC_PREFIX = "watch-sync-";
+
+    /** Starts watching the working tree in the current folder.*/
+    public static void start() throws IOException {
+        _root = new File(".").getCanonicalFile().toPath();
+        _gitlet = _root.resolve(Main.GITLET_FOLDER.getName());
+        _service = FileSystems.getDefault().newWatchService();
+        _keys.put(_gitlet.register(_service,
+                StandardWatchEventKinds.ENTRY_CREATE), _gitlet);
+        register(_root);
+        Thread thread = new Thread(Watcher::watch, "gitlet-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Waits until every change to the working tree made before now
+     * has been seen, so that the watcher can be trusted for the next
+     * command. Leaves the watcher inactive if it does not catch up
+     * within SYNC_TIMEOUT.*/
+    public static void sync() {
+        _active = false;
+        if (_service == null) {
+            return;
+        }
+        long target;
+        synchronized (Watcher.class) {
+            _requested += 1;
+            target = _requested;
+        }
+        File sentinel = _gitlet.resolve(SYNC_PREFIX + target).toFile();
+        try {
+            Files.createFile(sentinel.toPath());
+            long deadline = System.currentTimeMillis() + SYNC_TIMEOUT;
+            synchronized (Watcher.class) {
+                while (_synced < target && _service != null) {
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        break;
+                    }
+                    Watcher.class.wait(wait);
+                }
+                _active = _synced >= target;
+            }
+        } catch (IOException | InterruptedException excp) {
+            _active = false;
+        } finally {
+            sentinel.delete();
+        }
+    }
+
+    /** Returns whether the watcher is caught up and can be trusted.
+     * @return boolean is whether it is active*/
+    public static boolean active() {
+        return _active;
+    }
+
+    /** Returns whether the given working file exists, from the watched
+     * tree while the watcher is active.
+     * @param f is the file
+     * @return boolean is whether it exists*/
+    public static boolean exists(File f) {
+        if (!_active) {
+            return f.exists();
+        }
+        return _files.contains(Main.canonicalPath(f));
+    }
+
+    /** Returns every file in the given directory of the working tree
+     * and the directories below it, from the watched tree.
+     * @param dir is the directory
+     * @return the ArrayList of files*/
+    public static ArrayList<File> files(File dir) {
+        String prefix = Main.canonicalPath(dir);
+        Set<String> paths = _files;
+        if (!prefix.equals(_root.toString())) {
+            paths = _files.subSet(prefix + File.separator,
+                    prefix + (char) (File.separatorChar + 1));
+        }
+        ArrayList<File> result = new ArrayList<File>();
+        for (String path: paths) {
+            result.add(new File(path));
+        }
+        return result;
+    }
+
+    /** Returns whether the given file has not changed since it was last
+     * marked clean, while the watcher is active.
+     * @param filePath is the canonical pathway of the file
+     * @return boolean is whether it is clean*/
+    public static boolean isClean(String filePath) {
+        return _active && _clean.contains(filePath);
+    }
+
+    /** Marks the given file clean, just before it is hashed, so that
+     * any later change to it makes it dirty again.
+     * @param filePath is the canonical pathway of the file*/
+    public static void markClean(String filePath) {
+        if (_service != null) {
+            _clean.add(filePath);
+        }
+    }
+
+    /** Takes events from the watch service until it is closed.*/
+    private static void watch() {
+        try {
+            while (true) {
+                long seen = handle(_service.take());
+                for (WatchKey key = _service.poll(); key != null;
+                     key = _service.poll()) {
+                    seen = Math.max(seen, handle(key));
+                }
+                if (seen > 0) {
+                    synchronized (Watcher.class) {
+                        _synced = Math.max(_synced, seen);
+                        Watcher.class.notifyAll();
+                    }
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException
+                | GitletException excp) {
+            synchronized (Watcher.class) {
+                _service = null;
+                _active = false;
+                Watcher.class.notifyAll();
+            }
+        }
+    }
+
+    /** Applies the events of the given key to the watched tree. A
+     * directory is modified whenever an entry in it changes, which its
+     * own events report, so only its creation or deletion changes the
+     * files below it.
+     * @param key is the key
+     * @return long is the number of the latest sync file it saw
+     * created, or 0*/
+    private static long handle(WatchKey key) {
+        Path dir = _keys.get(key);
+        long seen = 0;
+        for (WatchEvent<?> event: key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                rescan();
+                continue;
+            } else if (dir == null) {
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            String name = path.getFileName().toString();
+            if (dir.equals(_gitlet)) {
+                if (name.startsWith(SYNC_PREFIX)) {
+                    seen = Math.max(seen, Long.parseLong(
+                            name.substring(SYNC_PREFIX.length())));
+                }
+                continue;
+            } else if (path.equals(_gitlet)) {
+                continue;
+            }
+            String filePath = path.toString();
+            if (event.kind() == StandardWatchEventKinds.ENTRY_MODIFY) {
+                _clean.remove(filePath);
+                if (Files.isRegularFile(path)) {
+                    _files.add(filePath);
+                }
+                continue;
+            }
+            forget(filePath);
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                    && Files.isDirectory(path)) {
+                register(path);
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                    && Files.isRegularFile(path)) {
+                _files.add(filePath);
+            }
+        }
+        if (!key.reset()) {
+            _keys.remove(key);
+        }
+        return seen;
+    }
+
+    /** Drops the given path, and everything below it if it was a
+     * directory, from the watched tree and the clean files.
+     * @param filePath is the canonical pathway*/
+    private static void forget(String filePath) {
+        _files.remove(filePath);
+        _clean.remove(filePath);
+        String lo = filePath + File.separator;
+        String hi = filePath + (char) (File.separatorChar + 1);
+        _files.subSet(lo, hi).clear();
+        _clean.removeIf(path -> path.startsWith(lo));
+    }
+
+    /** Takes every file to be dirty and scans the whole tree again,
+     * after events have been lost.*/
+    private static void rescan() {
+        _clean.clear();
+        _files.clear();
+        register(_root);
+    }
+
+    /** Watches the given directory and every directory below it, other
+     * than the .gitlet folder, adding their files to the watched tree.
+     * @param start is the directory*/
+    private static void register(Path start) {
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir,
+                        BasicFileAttributes attrs) throws IOException {
+                    if (dir.equals(_gitlet)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    try {
+                        _keys.put(dir.register(_service,
+                                StandardWatchEventKinds.ENTRY_CREATE,
+                                StandardWatchEventKinds.ENTRY_DELETE,
+                                StandardWatchEventKinds.ENTRY_MODIFY), dir);
+                    } catch (NoSuchFileException excp) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file,
+                        BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        _files.add(file.toString());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file,
+                        IOException excp) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (NoSuchFileException excp) {
+            /* Deleted while being registered; its event follows. */
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        }
+    }
+
+    /** The canonical pathway of the working tree. */
+    private static Path _root;
+
+    /** The canonical pathway of the .gitlet folder. */
+    private static Path _gitlet;
+
+    /** The watch service, or null if not watching. */
+    private static volatile WatchService _service;
+
+    /** The directory each registered key watches. */
+    private static final ConcurrentHashMap<WatchKey, Path> _keys =
+        new ConcurrentHashMap<WatchKey, Path>();
+
+    /** The canonical pathways of every file in the working tree. */
+    private static final ConcurrentSkipListSet<String> _files =
+        new ConcurrentSkipListSet<String>();
+
+    /** The canonical pathways of the clean files. */
+    private static final Set<String> _clean =
+        ConcurrentHashMap.newKeySet();
+
+    /** Whether the watcher caught up at the last sync. */
+    private static volatile boolean _active;
+
+    /** The number of the latest sync file created. */
+    private static long _requested;
+
+    /** The number of the latest sync file seen. */
+    private static long _synced;
+
+}
@@ -0,0 +1,105 @@
+package gitlet;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of status through a Daemon whose Watcher follows the working
+ * tree, each checked against status run in-process.
+ * @author Ria Vora*/
+public class WatcherTest {
+
+    /** Makes a repository with files in nested folders committed, and
+     * starts its daemon.*/
+    @Before
+    public void setUp() {
+        _repo = new TestRepo();
+        _repo.run("init");
+        _repo.write("top.txt", "top");
+        _repo.write("d/a.txt", "a");
+        _repo.write("d/e/b.txt", "b");
+        _repo.run("add", ".");
+        _repo.run("commit", "one");
+        _daemon = _repo.daemon();
+    }
+
+    /** Stops the daemon and deletes the repository.*/
+    @After
+    public void tearDown() throws InterruptedException {
+        _repo.run("daemon", "stop");
+        if (!_daemon.waitFor(DAEMON_STOP, TimeUnit.SECONDS)) {
+            _daemon.destroyForcibly().waitFor();
+        }
+        _repo.delete();
+    }
+
+    /** Touching a folder, which the watcher sees as a modification of
+     * it, does not lose the files below it. */
+    @Test
+    public void touchesFolder() {
+        assertEquals(CLEAN, _repo.run("status"));
+        assertTrue(_repo.file("d").setLastModified(
+                System.currentTimeMillis() - AGE));
+        assertTrue(_repo.file("d/e").setLastModified(
+                System.currentTimeMillis() - AGE));
+        assertEquals(CLEAN, _repo.run("status"));
+        _repo.write("d/tmp.txt", "tmp");
+        assertTrue(_repo.file("d/tmp.txt").delete());
+        assertEquals(CLEAN, _repo.run("status"));
+    }
+
+    /** Changes, deletions, new nested folders and renamed folders are
+     * all seen, as status sees them in-process. */
+    @Test
+    public void followsChanges() {
+        _repo.run("status");
+        _repo.write("top.txt", "changed");
+        assertTrue(_repo.file("d/a.txt").delete());
+        _repo.write("n/m/new.txt", "new");
+        assertTrue(_repo.file("d/e").renameTo(_repo.file("d/f")));
+        String served = _repo.run("status");
+        assertTrue(served.contains("top.txt (modified)\n"));
+        assertTrue(served.contains("d/a.txt (deleted)\n"));
+        assertTrue(served.contains("d/e/b.txt (deleted)\n"));
+        assertTrue(served.contains("\nd/f/b.txt\n"));
+        assertTrue(served.contains("\nn/m/new.txt\n"));
+        assertEquals(inProcess(), served);
+    }
+
+    /** Returns the output of status run without the daemon, by hiding
+     * its socket.
+     * @return String is the output*/
+    private String inProcess() {
+        File socket = _repo.file(Daemon.SOCKET_FILE.getPath());
+        File hidden = _repo.file(".gitlet/hidden.sock");
+        assertTrue(socket.renameTo(hidden));
+        try {
+            return _repo.run("status");
+        } finally {
+            assertTrue(hidden.renameTo(socket));
+        }
+    }
+
+    /** The status of the repository with nothing changed. */
+    private static final String CLEAN = "=== Branches ===\n*master\n\n"
+            + "=== Staged Files ===\n\n=== Removed Files ===\n\n"
+            + "=== Modifications Not Staged For Commit ===\n\n"
+            + "=== Untracked Files ===\n";
+
+    /** The time in milliseconds folders are moved into the past. */
+    private static final long AGE = 60000;
+
+    /** The number of seconds to wait for a daemon to stop. */
+    private static final int DAEMON_STOP = 10;
+
+    /** The repository. */
+    private TestRepo _repo;
+
+    /** The daemon. */
+    private Process _daemon;
+
+}
@@ -0,0 +1,53 @@
+package gitlet;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/** Workers runs the parallel parts of gitlet commands, such as hashing
+ * the working tree, on one shared ForkJoinPool. Its parallelism is set
+ * by the GITLET_PARALLELISM environment variable and defaults to the
+ * number of available processors.
+ * @author Ria Vora*/
+public class Workers {
+
+    /** The environment variable setting the parallelism. */
+    static final String PARALLELISM_VARIABLE = "GITLET_PARALLELISM";
+
+    /** Returns the number of threads parallel work is split across.
+     * @return int is the parallelism, at least 1*/
+    public static int parallelism() {
+        String setting = System.getenv(PARALLELISM_VARIABLE);
+        if (setting != null) {
+            try {
+                return Math.max(1, Integer.parseInt(setting.trim()));
+            } catch (NumberFormatException excp) {
+                throw new GitletException("Invalid "
+                        + PARALLELISM_VARIABLE + ": " + setting);
+            }
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /** Runs the given task in the shared pool, so that any parallel
+     * streams it uses are split across the pool's threads, and returns
+     * its result.
+     * @param task is the task
+     * @param <T> is the type of the task's result
+     * @return T is the task's result*/
+    public static <T> T invoke(Callable<T> task) {
+        return pool().submit(task).join();
+    }
+
+    /** Returns the shared pool, creating it on first use.
+     * @return ForkJoinPool is the pool*/
+    private static synchronized ForkJoinPool pool() {
+        if (_pool == null) {
+            _pool = new ForkJoinPool(parallelism());
+        }
+        return _pool;
+    }
+
+    /** The shared pool, or null if not created yet. */
+    private static ForkJoinPool _pool;
+
+}